@@ -0,0 +1,63 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.amazonaws.services.lambda.runtime.events.SQSEvent.SQSMessage;
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** {@link AwsEventsFieldNamingStrategy#alternateNames(Field)} benchmark. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AwsEventsFieldNamingStrategyBenchmark {
+
+  /** {@link SQSMessage} field name. */
+  @Param({"messageId", "eventSourceArn", "md5OfMessageAttributes"})
+  public String fieldName;
+
+  /** {@link AwsEventsFieldNamingStrategy}. */
+  private final AwsEventsFieldNamingStrategy strategy = new AwsEventsFieldNamingStrategy();
+
+  /** {@link Field}. */
+  private Field field;
+
+  /**
+   * Lookup {@link Field}.
+   *
+   * @throws NoSuchFieldException NoSuchFieldException
+   */
+  @Setup
+  public void setup() throws NoSuchFieldException {
+    this.field = SQSMessage.class.getDeclaredField(this.fieldName);
+  }
+
+  /**
+   * Alternate Names.
+   *
+   * @return {@link List}
+   */
+  @Benchmark
+  public List<String> alternateNames() {
+    return this.strategy.alternateNames(this.field);
+  }
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/** Loads the event samples from 'src/test/resources' for benchmarks. */
+public final class BenchmarkResources {
+
+  private BenchmarkResources() {}
+
+  /**
+   * Load Event sample.
+   *
+   * @param event {@link String} event directory, ie: SQSEvent
+   * @return {@link String}
+   * @throws IOException IOException
+   */
+  public static String loadEvent(final String event) throws IOException {
+    String filename = "/" + event + "/event01.json";
+    try (InputStream is = BenchmarkResources.class.getResourceAsStream(filename)) {
+      if (is == null) {
+        throw new IOException("Cannot find " + filename);
+      }
+      return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+}
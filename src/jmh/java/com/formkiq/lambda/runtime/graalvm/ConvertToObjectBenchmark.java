@@ -0,0 +1,103 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.IamPolicyResponseV1;
+import com.amazonaws.services.lambda.runtime.events.S3Event;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.google.gson.Gson;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link LambdaRuntime#convertToObject(Gson, String, java.lang.reflect.Type)} and {@link
+ * LambdaRuntime#readObject(Gson, java.io.InputStream, Class)} for each event sample.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConvertToObjectBenchmark {
+
+  /** Event sample to event class. */
+  private static final Map<String, Class<?>> EVENT_TYPES =
+      Map.of(
+          "APIGatewayProxyRequestEvent", APIGatewayProxyRequestEvent.class,
+          "DynamodbEvent", DynamodbEvent.class,
+          "IamPolicy", IamPolicyResponseV1.class,
+          "S3Event", S3Event.class,
+          "SQSEvent", SQSEvent.class);
+
+  /** Event sample. */
+  @Param({"APIGatewayProxyRequestEvent", "DynamodbEvent", "IamPolicy", "S3Event", "SQSEvent"})
+  public String event;
+
+  /** {@link Gson}. */
+  private Gson gson;
+
+  /** Event payload. */
+  private String payload;
+
+  /** Event payload bytes. */
+  private byte[] payloadBytes;
+
+  /** Event {@link Class}. */
+  private Class<?> eventType;
+
+  /**
+   * Load event sample.
+   *
+   * @throws IOException IOException
+   */
+  @Setup
+  public void setup() throws IOException {
+    this.gson = LambdaRuntime.buildJsonProvider();
+    this.payload = BenchmarkResources.loadEvent(this.event);
+    this.payloadBytes = this.payload.getBytes(StandardCharsets.UTF_8);
+    this.eventType = EVENT_TYPES.get(this.event);
+  }
+
+  /**
+   * Convert payload to event.
+   *
+   * @return {@link Object}
+   */
+  @Benchmark
+  public Object convertToObject() {
+    return LambdaRuntime.convertToObject(this.gson, this.payload, this.eventType);
+  }
+
+  /**
+   * Read event from the payload bytes.
+   *
+   * @return {@link Object}
+   * @throws IOException IOException
+   */
+  @Benchmark
+  public Object readObject() throws IOException {
+    return LambdaRuntime.readObject(
+        this.gson, new ByteArrayInputStream(this.payloadBytes), this.eventType);
+  }
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import java.util.concurrent.TimeUnit;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** {@link DateTimeConverter} benchmarks. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DateTimeConverterBenchmark {
+
+  /** {@link DateTimeConverter}. */
+  private final DateTimeConverter converter = new DateTimeConverter();
+
+  /** Date value. */
+  private JsonElement json;
+
+  /** {@link DateTime}. */
+  private DateTime dateTime;
+
+  /** Setup values. */
+  @Setup
+  public void setup() {
+    this.json = new JsonPrimitive("1970-01-01T00:00:00.000Z");
+    this.dateTime = this.converter.deserialize(this.json, DateTime.class, null);
+  }
+
+  /**
+   * Deserialize {@link DateTime}.
+   *
+   * @return {@link DateTime}
+   */
+  @Benchmark
+  public DateTime deserialize() {
+    return this.converter.deserialize(this.json, DateTime.class, null);
+  }
+
+  /**
+   * Serialize {@link DateTime}.
+   *
+   * @return {@link JsonElement}
+   */
+  @Benchmark
+  public JsonElement serialize() {
+    return this.converter.serialize(this.dateTime, DateTime.class, null);
+  }
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/** {@link HttpClient} get / post benchmarks against an in-process {@link RuntimeApiStubServer}. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HttpClientBenchmark {
+
+  /** Event sample returned by "next" and posted as the response. */
+  @Param({"SQSEvent", "DynamodbEvent"})
+  public String event;
+
+  /** {@link RuntimeApiStubServer}. */
+  private RuntimeApiStubServer server;
+
+  /** Next Invocation Url. */
+  private String nextUrl;
+
+  /** Response Url. */
+  private String responseUrl;
+
+  /** Response Body. */
+  private String body;
+
+  /**
+   * Start {@link RuntimeApiStubServer}.
+   *
+   * @throws IOException IOException
+   */
+  @Setup
+  public void setup() throws IOException {
+    this.body = BenchmarkResources.loadEvent(this.event);
+    this.server = new RuntimeApiStubServer(this.body);
+    String url = "http://" + this.server.getRuntimeApi() + "/2018-06-01/runtime/invocation/";
+    this.nextUrl = url + "next";
+    this.responseUrl = url + "benchmark/response";
+  }
+
+  /** Stop {@link RuntimeApiStubServer}. */
+  @TearDown
+  public void tearDown() {
+    this.server.close();
+  }
+
+  /**
+   * {@link HttpClient#get(String)}.
+   *
+   * @return {@link HttpResponse}
+   * @throws IOException IOException
+   */
+  @Benchmark
+  public HttpResponse get() throws IOException {
+    return HttpClient.get(this.nextUrl);
+  }
+
+  /**
+   * {@link HttpClient#post(String, String)}.
+   *
+   * @return {@link HttpResponse}
+   * @throws IOException IOException
+   */
+  @Benchmark
+  public HttpResponse post() throws IOException {
+    return HttpClient.post(this.responseUrl, this.body);
+  }
+}
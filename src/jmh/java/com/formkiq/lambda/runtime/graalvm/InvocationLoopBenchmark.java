@@ -0,0 +1,91 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Full {@link LambdaRuntime} loop iteration (next, invoke, response) per second. The handler is
+ * created and its plan resolved once per trial, each operation runs a 'SINGLE_LOOP' iteration of
+ * the event loop.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class InvocationLoopBenchmark {
+
+  /** Handler. */
+  @Param({"TestRequestApiGatewayProxyHandler", "TestRequestStreamHandler"})
+  public String handlerName;
+
+  /** {@link RuntimeApiStubServer}. */
+  private RuntimeApiStubServer server;
+
+  /** Lambda Environment. */
+  private Map<String, String> env;
+
+  /** {@link LambdaHandlerPlan}. */
+  private LambdaHandlerPlan plan;
+
+  /** Handler. */
+  private Object handler;
+
+  /**
+   * Start {@link RuntimeApiStubServer}, create the handler and install the runtime state on the
+   * benchmark thread.
+   *
+   * @throws Exception Exception
+   */
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    this.server =
+        new RuntimeApiStubServer(BenchmarkResources.loadEvent("APIGatewayProxyRequestEvent"));
+    this.env = new HashMap<>();
+    this.env.put("AWS_LAMBDA_RUNTIME_API", this.server.getRuntimeApi());
+    this.env.put("_HANDLER", getClass().getPackageName() + "." + this.handlerName);
+    this.env.put("SINGLE_LOOP", "true");
+
+    this.plan = LambdaHandlerPlan.resolve(this.env.get("_HANDLER"));
+    this.handler = this.plan.newInstance(this.env);
+    LambdaRuntime.install(this.env, this.plan);
+  }
+
+  /** Stop {@link RuntimeApiStubServer}. */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    this.server.close();
+  }
+
+  /**
+   * Run one loop iteration.
+   *
+   * @throws IOException IOException
+   */
+  @Benchmark
+  public void invoke() throws IOException {
+    LambdaRuntime.invoke(this.env, this.plan, this.handler);
+  }
+}
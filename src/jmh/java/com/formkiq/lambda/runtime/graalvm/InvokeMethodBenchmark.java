@@ -0,0 +1,93 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Handler dispatch, deserialize, invoke and serialize, without any Runtime Api calls. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class InvokeMethodBenchmark {
+
+  /** Handler. */
+  @Param({
+    "TestRequestInputStringStringHandler",
+    "TestRequestInputStringStringHandler::run",
+    "TestRequestApiGatewayProxyHandler",
+    "TestRequestStreamHandler"
+  })
+  public String handlerName;
+
+  /** {@link LambdaHandlerPlan}. */
+  private LambdaHandlerPlan plan;
+
+  /** Handler. */
+  private Object handler;
+
+  /** {@link Context}. */
+  private Context context;
+
+  /** Event payload. */
+  private String payload;
+
+  /** Disabled {@link InvocationMetrics}. */
+  private final InvocationMetrics metrics = new InvocationMetrics(false);
+
+  /**
+   * Resolve and create Handler.
+   *
+   * @throws Exception Exception
+   */
+  @Setup
+  public void setup() throws Exception {
+    this.plan = LambdaHandlerPlan.resolve(getClass().getPackageName() + "." + this.handlerName);
+    this.handler = this.plan.newInstance();
+    this.context = new LambdaContext("benchmark");
+    this.payload = loadPayload();
+  }
+
+  /**
+   * Load the Event payload matching the Handler input type.
+   *
+   * @return {@link String}
+   * @throws IOException IOException
+   */
+  private String loadPayload() throws IOException {
+    return this.handlerName.startsWith("TestRequestInputString")
+        ? "\"test\""
+        : BenchmarkResources.loadEvent("APIGatewayProxyRequestEvent");
+  }
+
+  /**
+   * Invoke Handler.
+   *
+   * @return {@link String}
+   * @throws Exception Exception
+   */
+  @Benchmark
+  public String invoke() throws Exception {
+    return LambdaRuntime.invokeLambdaRequestHandler(
+        this.handler, this.plan, this.context, this.payload, this.metrics);
+  }
+}
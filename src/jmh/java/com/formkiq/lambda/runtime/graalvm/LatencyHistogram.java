@@ -0,0 +1,156 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe log-linear latency histogram, in microseconds. Each power of two range is split in 16
+ * linear buckets, so recorded values are accurate to within ~6%.
+ */
+public class LatencyHistogram {
+
+  /** Sub bucket bits. */
+  private static final int SUB_BUCKET_BITS = 4;
+
+  /** Linear buckets per power of two. */
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /** Nanoseconds per microsecond. */
+  private static final long NANOS_PER_MICRO = 1000L;
+
+  /** Percentiles included in the summary. */
+  private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+
+  /** Bucket counts. */
+  private final AtomicLongArray counts = new AtomicLongArray(Long.SIZE * SUB_BUCKETS);
+
+  /** Total number of values. */
+  private final LongAdder total = new LongAdder();
+
+  /** Sum of all values. */
+  private final LongAdder sum = new LongAdder();
+
+  /** Max value. */
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Get bucket index of value.
+   *
+   * @param value long
+   * @return int
+   */
+  static int index(final long value) {
+    int index = (int) value;
+
+    if (value >= SUB_BUCKETS) {
+      int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+      int sub = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+      index = (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    return index;
+  }
+
+  /**
+   * Get the lowest value stored in a bucket.
+   *
+   * @param index int
+   * @return long
+   */
+  static long lowerBound(final int index) {
+    int bucket = index / SUB_BUCKETS;
+    long sub = index % SUB_BUCKETS;
+    long value = sub;
+
+    if (bucket > 0) {
+      int exponent = bucket + SUB_BUCKET_BITS - 1;
+      value = (1L << exponent) | (sub << (exponent - SUB_BUCKET_BITS));
+    }
+
+    return value;
+  }
+
+  /**
+   * Record a latency.
+   *
+   * @param nanos long
+   */
+  public void record(final long nanos) {
+    long micros = Math.max(0, nanos / NANOS_PER_MICRO);
+    this.counts.incrementAndGet(index(micros));
+    this.total.increment();
+    this.sum.add(micros);
+    this.max.accumulateAndGet(micros, Math::max);
+  }
+
+  /** Reset the histogram. */
+  public void reset() {
+    for (int i = 0; i < this.counts.length(); i++) {
+      this.counts.set(i, 0);
+    }
+    this.total.reset();
+    this.sum.reset();
+    this.max.set(0);
+  }
+
+  /**
+   * Get number of recorded values.
+   *
+   * @return long
+   */
+  public long getCount() {
+    return this.total.sum();
+  }
+
+  /**
+   * Get value at percentile, in microseconds.
+   *
+   * @param percentile double, 0 - 100
+   * @return long
+   */
+  public long getValueAtPercentile(final double percentile) {
+    long count = getCount();
+    long target = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+    long value = 0;
+    long seen = 0;
+
+    for (int i = 0; i < this.counts.length() && seen < target; i++) {
+      seen += this.counts.get(i);
+      value = lowerBound(i);
+    }
+
+    return count > 0 ? Math.min(value, this.max.get()) : 0;
+  }
+
+  /**
+   * Summary of the histogram.
+   *
+   * @return {@link String}
+   */
+  public String summary() {
+    long count = getCount();
+    StringBuilder sb = new StringBuilder();
+    sb.append("count=").append(count);
+    sb.append(" mean=").append(count > 0 ? this.sum.sum() / count : 0).append("us");
+
+    for (double p : PERCENTILES) {
+      sb.append(" p").append(p).append('=').append(getValueAtPercentile(p)).append("us");
+    }
+
+    sb.append(" max=").append(this.max.get()).append("us");
+    return sb.toString();
+  }
+}
@@ -0,0 +1,250 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives {@link LambdaRuntime} loops against a {@link RuntimeApiEmulator}, replaying event files at
+ * a target rate and reporting the runtime side latency.
+ *
+ * <p>Options are passed as 'key=value' arguments:
+ *
+ * <ul>
+ *   <li>handler - Lambda '_HANDLER', default {@link TestRequestApiGatewayProxyHandler}
+ *   <li>events - comma separated event files or 'src/test/resources' sample names
+ *   <li>rate - events per second, 0 for unlimited
+ *   <li>concurrency - number of runtime loops
+ *   <li>count - number of measured events
+ *   <li>warmup - number of warmup events
+ *   <li>payloadSize - pad JSON object events to this many bytes
+ * </ul>
+ */
+public final class LoadGenerator {
+
+  /** Nanoseconds per second. */
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  /** Completion timeout, in milliseconds. */
+  private static final long TIMEOUT_MS = TimeUnit.MINUTES.toMillis(10);
+
+  /** Padding field prefix, replaces the opening '{' of the event. */
+  private static final String PADDING_PREFIX = "{\"_padding\":\"";
+
+  /** Padding field suffix. */
+  private static final String PADDING_SUFFIX = "\",";
+
+  private LoadGenerator() {}
+
+  /**
+   * Main.
+   *
+   * @param args String[]
+   * @throws Exception Exception
+   */
+  public static void main(final String[] args) throws Exception {
+    Map<String, String> options = parseOptions(args);
+
+    String handler =
+        options.getOrDefault("handler", TestRequestApiGatewayProxyHandler.class.getName());
+    int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "1"));
+    long rate = Long.parseLong(options.getOrDefault("rate", "0"));
+    long count = Long.parseLong(options.getOrDefault("count", "10000"));
+    long warmup = Long.parseLong(options.getOrDefault("warmup", "1000"));
+    int payloadSize = Integer.parseInt(options.getOrDefault("payloadSize", "0"));
+    List<byte[]> events =
+        loadEvents(options.getOrDefault("events", "APIGatewayProxyRequestEvent"), payloadSize);
+
+    List<Thread> runtimes;
+    try (RuntimeApiEmulator emulator = new RuntimeApiEmulator()) {
+
+      runtimes = startRuntimes(emulator, handler, concurrency);
+
+      replay(emulator, events, warmup, rate);
+      emulator.getLatency().reset();
+
+      long start = System.nanoTime();
+      replay(emulator, events, count, rate);
+      long elapsed = System.nanoTime() - start;
+
+      report(emulator, count, elapsed);
+    }
+
+    // the closed emulator fails the long polls, so the runtime loops exit
+    for (Thread runtime : runtimes) {
+      runtime.join();
+    }
+  }
+
+  /**
+   * Parse 'key=value' arguments.
+   *
+   * @param args String[]
+   * @return {@link Map}
+   */
+  private static Map<String, String> parseOptions(final String[] args) {
+    Map<String, String> options = new HashMap<>();
+    for (String arg : args) {
+      int pos = arg.indexOf('=');
+      if (pos > 0) {
+        options.put(arg.substring(0, pos), arg.substring(pos + 1));
+      }
+    }
+    return options;
+  }
+
+  /**
+   * Load Events.
+   *
+   * @param names {@link String}
+   * @param payloadSize int
+   * @return {@link List}
+   * @throws IOException IOException
+   */
+  private static List<byte[]> loadEvents(final String names, final int payloadSize)
+      throws IOException {
+    List<byte[]> events = new ArrayList<>();
+
+    for (String name : names.split(",")) {
+      Path path = Path.of(name);
+      String event =
+          Files.exists(path)
+              ? Files.readString(path, StandardCharsets.UTF_8)
+              : BenchmarkResources.loadEvent(name);
+      events.add(pad(event.trim(), payloadSize).getBytes(StandardCharsets.UTF_8));
+    }
+
+    return events;
+  }
+
+  /**
+   * Pad JSON object event to payload size.
+   *
+   * @param event {@link String}
+   * @param payloadSize int
+   * @return {@link String}
+   */
+  static String pad(final String event, final int payloadSize) {
+    String s = event;
+    int missing = payloadSize - event.getBytes(StandardCharsets.UTF_8).length;
+    int overhead = PADDING_PREFIX.length() + PADDING_SUFFIX.length() - 1;
+
+    if (missing > overhead && event.startsWith("{")) {
+      String padding = "x".repeat(missing - overhead);
+      s = PADDING_PREFIX + padding + PADDING_SUFFIX + event.substring(1);
+    }
+
+    return s;
+  }
+
+  /**
+   * Start Lambda Runtime loops.
+   *
+   * @param emulator {@link RuntimeApiEmulator}
+   * @param handler {@link String}
+   * @param concurrency int
+   * @return {@link List} {@link Thread}
+   */
+  private static List<Thread> startRuntimes(
+      final RuntimeApiEmulator emulator, final String handler, final int concurrency) {
+
+    Map<String, String> env = new HashMap<>();
+    env.put("AWS_LAMBDA_RUNTIME_API", emulator.getRuntimeApi());
+    env.put("_HANDLER", handler);
+
+    List<Thread> runtimes = new ArrayList<>();
+    for (int i = 0; i < concurrency; i++) {
+      Thread t = new Thread(() -> runRuntime(env), "lambda-runtime-" + i);
+      t.start();
+      runtimes.add(t);
+    }
+
+    return runtimes;
+  }
+
+  /**
+   * Run Lambda Runtime loop until the {@link RuntimeApiEmulator} is closed.
+   *
+   * @param env {@link Map}
+   */
+  private static void runRuntime(final Map<String, String> env) {
+    try {
+      LambdaRuntime.invoke(env);
+    } catch (IOException e) {
+      // expected, the emulator fails the long poll when it is closed
+    }
+  }
+
+  /**
+   * Replay events at the target rate and wait for them to complete.
+   *
+   * @param emulator {@link RuntimeApiEmulator}
+   * @param events {@link List}
+   * @param count long
+   * @param rate long
+   * @throws InterruptedException InterruptedException
+   */
+  private static void replay(
+      final RuntimeApiEmulator emulator,
+      final List<byte[]> events,
+      final long count,
+      final long rate)
+      throws InterruptedException {
+
+    long expected = emulator.getCompleted() + count;
+    long interval = rate > 0 ? NANOS_PER_SECOND / rate : 0;
+    long next = System.nanoTime();
+
+    for (long i = 0; i < count; i++) {
+      if (interval > 0) {
+        next += interval;
+        LockSupport.parkNanos(next - System.nanoTime());
+      }
+      emulator.submit(events.get((int) (i % events.size())));
+    }
+
+    if (!emulator.awaitCompleted(expected, TIMEOUT_MS)) {
+      throw new IllegalStateException("Timed out waiting for " + count + " invocations");
+    }
+  }
+
+  /**
+   * Print load test report.
+   *
+   * @param emulator {@link RuntimeApiEmulator}
+   * @param count long
+   * @param elapsedNanos long
+   */
+  private static void report(
+      final RuntimeApiEmulator emulator, final long count, final long elapsedNanos) {
+    double seconds = (double) elapsedNanos / NANOS_PER_SECOND;
+    System.out.printf(
+        "invocations=%d errors=%d initErrors=%d throughput=%.1f/s responseBytes=%d%n",
+        count,
+        emulator.getErrors(),
+        emulator.getInitErrors(),
+        count / seconds,
+        emulator.getResponseBytes());
+    System.out.println(
+        "runtime latency (next response -> response post): " + emulator.getLatency().summary());
+  }
+}
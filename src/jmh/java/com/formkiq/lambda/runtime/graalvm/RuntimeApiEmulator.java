@@ -0,0 +1,316 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lightweight in-process Lambda Runtime Api emulator, supporting the next, response, error and init
+ * error endpoints.
+ *
+ * <p>Events are queued with {@link #submit(byte[])} and handed out to the long polling runtimes.
+ * The runtime side latency, from the time the "next" response is sent to the time the response (or
+ * error) is posted, is recorded in a {@link LatencyHistogram}.
+ */
+public class RuntimeApiEmulator implements AutoCloseable {
+
+  /** Http Ok. */
+  private static final int HTTP_OK = 200;
+
+  /** Http Accepted. */
+  private static final int HTTP_ACCEPTED = 202;
+
+  /** Http Not Found. */
+  private static final int HTTP_NOT_FOUND = 404;
+
+  /** Http Internal Server Error, ends the runtime loop. */
+  private static final int HTTP_INTERNAL_ERROR = 500;
+
+  /** Long poll check interval, in milliseconds. */
+  private static final long POLL_INTERVAL_MS = 50;
+
+  /** Invocation deadline, in milliseconds. */
+  private static final long DEADLINE_MS = 900_000;
+
+  /** Invocation path prefix. */
+  private static final String INVOCATION_PATH = "/2018-06-01/runtime/invocation/";
+
+  /** {@link HttpServer}. */
+  private final HttpServer server;
+
+  /** {@link ExecutorService} for the {@link HttpServer}. */
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  /** Queued Events. */
+  private final BlockingQueue<byte[]> events = new LinkedBlockingQueue<>();
+
+  /** In flight Request Id to the time the event was sent. */
+  private final Map<String, Long> inflight = new ConcurrentHashMap<>();
+
+  /** Runtime side latency. */
+  private final LatencyHistogram latency = new LatencyHistogram();
+
+  /** Request Id sequence. */
+  private final AtomicLong requestIds = new AtomicLong();
+
+  /** Number of responses. */
+  private final AtomicLong responses = new AtomicLong();
+
+  /** Number of invocation errors. */
+  private final AtomicLong errors = new AtomicLong();
+
+  /** Number of init errors. */
+  private final AtomicLong initErrors = new AtomicLong();
+
+  /** Response bytes received. */
+  private final AtomicLong responseBytes = new AtomicLong();
+
+  /** Completion monitor. */
+  private final Object completion = new Object();
+
+  /** Is the emulator running. */
+  private volatile boolean running = true;
+
+  /**
+   * constructor.
+   *
+   * @throws IOException IOException
+   */
+  public RuntimeApiEmulator() throws IOException {
+    // disable Nagle, otherwise every response is delayed by the client's delayed ACK
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+    this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    this.server.setExecutor(this.executor);
+    this.server.createContext("/", this::handle);
+    this.server.start();
+  }
+
+  /**
+   * Get 'AWS_LAMBDA_RUNTIME_API' value.
+   *
+   * @return {@link String}
+   */
+  public String getRuntimeApi() {
+    return "localhost:" + this.server.getAddress().getPort();
+  }
+
+  /**
+   * Queue an Event.
+   *
+   * @param event byte[]
+   */
+  public void submit(final byte[] event) {
+    this.events.add(event);
+  }
+
+  /**
+   * Get the number of completed (response or error) invocations.
+   *
+   * @return long
+   */
+  public long getCompleted() {
+    return this.responses.get() + this.errors.get();
+  }
+
+  /**
+   * Wait until the number of completed invocations is reached.
+   *
+   * @param count long
+   * @param timeoutMs long
+   * @return boolean true if reached
+   * @throws InterruptedException InterruptedException
+   */
+  public boolean awaitCompleted(final long count, final long timeoutMs)
+      throws InterruptedException {
+    long deadline = System.currentTimeMillis() + timeoutMs;
+
+    synchronized (this.completion) {
+      long remaining = timeoutMs;
+      while (getCompleted() < count && remaining > 0) {
+        this.completion.wait(remaining);
+        remaining = deadline - System.currentTimeMillis();
+      }
+    }
+
+    return getCompleted() >= count;
+  }
+
+  /**
+   * Get runtime side latency histogram.
+   *
+   * @return {@link LatencyHistogram}
+   */
+  public LatencyHistogram getLatency() {
+    return this.latency;
+  }
+
+  /**
+   * Get number of invocation errors.
+   *
+   * @return long
+   */
+  public long getErrors() {
+    return this.errors.get();
+  }
+
+  /**
+   * Get number of init errors.
+   *
+   * @return long
+   */
+  public long getInitErrors() {
+    return this.initErrors.get();
+  }
+
+  /**
+   * Get response bytes received.
+   *
+   * @return long
+   */
+  public long getResponseBytes() {
+    return this.responseBytes.get();
+  }
+
+  /**
+   * Handle Runtime Api request.
+   *
+   * @param exchange {@link HttpExchange}
+   * @throws IOException IOException
+   */
+  private void handle(final HttpExchange exchange) throws IOException {
+    String path = exchange.getRequestURI().getPath();
+    long received = System.nanoTime();
+    long bytes = drain(exchange);
+
+    try {
+      if (path.endsWith("/invocation/next")) {
+        next(exchange);
+      } else if (path.startsWith(INVOCATION_PATH) && path.endsWith("/response")) {
+        complete(exchange, path, "/response", received, this.responses);
+        this.responseBytes.addAndGet(bytes);
+      } else if (path.startsWith(INVOCATION_PATH) && path.endsWith("/error")) {
+        complete(exchange, path, "/error", received, this.errors);
+      } else if (path.endsWith("/init/error")) {
+        this.initErrors.incrementAndGet();
+        exchange.sendResponseHeaders(HTTP_ACCEPTED, -1);
+      } else {
+        exchange.sendResponseHeaders(HTTP_NOT_FOUND, -1);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      exchange.sendResponseHeaders(HTTP_INTERNAL_ERROR, -1);
+    } finally {
+      exchange.close();
+    }
+  }
+
+  /**
+   * Read and discard request body.
+   *
+   * @param exchange {@link HttpExchange}
+   * @return long number of bytes
+   * @throws IOException IOException
+   */
+  private long drain(final HttpExchange exchange) throws IOException {
+    try (InputStream is = exchange.getRequestBody()) {
+      return is.transferTo(OutputStream.nullOutputStream());
+    }
+  }
+
+  /**
+   * Long poll for the next Event.
+   *
+   * @param exchange {@link HttpExchange}
+   * @throws IOException IOException
+   * @throws InterruptedException InterruptedException
+   */
+  private void next(final HttpExchange exchange) throws IOException, InterruptedException {
+    byte[] event = null;
+    while (event == null && this.running) {
+      event = this.events.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    if (event != null) {
+      String requestId = "emulator-" + this.requestIds.incrementAndGet();
+      long deadline = System.currentTimeMillis() + DEADLINE_MS;
+
+      exchange.getResponseHeaders().add("Lambda-Runtime-Aws-Request-Id", requestId);
+      exchange.getResponseHeaders().add("Lambda-Runtime-Trace-Id", "Root=" + requestId);
+      exchange.getResponseHeaders().add("Lambda-Runtime-Deadline-Ms", String.valueOf(deadline));
+      // register before sending, the response can be posted before the body write returns
+      this.inflight.put(requestId, Long.valueOf(System.nanoTime()));
+      exchange.sendResponseHeaders(HTTP_OK, event.length);
+      try (OutputStream os = exchange.getResponseBody()) {
+        os.write(event);
+      }
+      this.inflight.replace(requestId, Long.valueOf(System.nanoTime()));
+
+    } else {
+      // emulator stopped, fail the long poll so the runtime loop exits
+      exchange.sendResponseHeaders(HTTP_INTERNAL_ERROR, -1);
+    }
+  }
+
+  /**
+   * Complete an invocation.
+   *
+   * @param exchange {@link HttpExchange}
+   * @param path {@link String}
+   * @param suffix {@link String}
+   * @param received long
+   * @param counter {@link AtomicLong}
+   * @throws IOException IOException
+   */
+  private void complete(
+      final HttpExchange exchange,
+      final String path,
+      final String suffix,
+      final long received,
+      final AtomicLong counter)
+      throws IOException {
+    String requestId =
+        path.substring(INVOCATION_PATH.length(), path.length() - suffix.length());
+
+    Long sent = this.inflight.remove(requestId);
+    if (sent != null) {
+      this.latency.record(received - sent.longValue());
+    }
+
+    counter.incrementAndGet();
+    exchange.sendResponseHeaders(HTTP_ACCEPTED, -1);
+
+    synchronized (this.completion) {
+      this.completion.notifyAll();
+    }
+  }
+
+  @Override
+  public void close() {
+    this.running = false;
+    this.server.stop(1);
+    this.executor.shutdownNow();
+  }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal in-process Lambda Runtime Api stub, "next" always returns the same event and every POST
+ * is accepted.
+ */
+public class RuntimeApiStubServer implements AutoCloseable {
+
+  /** Http Accepted. */
+  private static final int HTTP_ACCEPTED = 202;
+
+  /** Http Ok. */
+  private static final int HTTP_OK = 200;
+
+  /** {@link HttpServer}. */
+  private final HttpServer server;
+
+  /** Next Event body. */
+  private final byte[] event;
+
+  /**
+   * constructor.
+   *
+   * @param eventBody {@link String}
+   * @throws IOException IOException
+   */
+  public RuntimeApiStubServer(final String eventBody) throws IOException {
+    this.event = eventBody.getBytes(StandardCharsets.UTF_8);
+    // disable Nagle, otherwise every response is delayed by the client's delayed ACK
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+    this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    this.server.createContext("/", this::handle);
+    this.server.start();
+  }
+
+  /**
+   * Get 'AWS_LAMBDA_RUNTIME_API' value.
+   *
+   * @return {@link String}
+   */
+  public String getRuntimeApi() {
+    return "localhost:" + this.server.getAddress().getPort();
+  }
+
+  /**
+   * Handle Runtime Api request.
+   *
+   * @param exchange {@link HttpExchange}
+   * @throws IOException IOException
+   */
+  private void handle(final HttpExchange exchange) throws IOException {
+
+    try (InputStream is = exchange.getRequestBody()) {
+      is.transferTo(OutputStream.nullOutputStream());
+    }
+
+    if ("GET".equals(exchange.getRequestMethod())) {
+      exchange.getResponseHeaders().add("Lambda-Runtime-Aws-Request-Id", "benchmark");
+      exchange.sendResponseHeaders(HTTP_OK, this.event.length);
+      try (OutputStream os = exchange.getResponseBody()) {
+        os.write(this.event);
+      }
+    } else {
+      exchange.sendResponseHeaders(HTTP_ACCEPTED, -1);
+    }
+
+    exchange.close();
+  }
+
+  @Override
+  public void close() {
+    this.server.stop(0);
+  }
+}
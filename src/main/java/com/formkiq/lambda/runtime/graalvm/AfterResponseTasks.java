@@ -0,0 +1,203 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the {@link LambdaContext#afterResponse(Runnable)} tasks of an invocation on a daemon worker
+ * thread after the response is posted, waiting at most the after response timeout and never past
+ * the invocation deadline, so the tasks complete before the next long poll lets Lambda freeze the
+ * execution environment.
+ *
+ * <p>Only used by the runtime thread, installed by {@link #install(Map)}. A worker whose tasks
+ * timed out is interrupted and replaced.
+ */
+final class AfterResponseTasks {
+
+  /** Default after response timeout, in milliseconds. */
+  private static final String DEFAULT_TIMEOUT_MS = "1000";
+
+  /** Seconds an idle worker thread is kept. */
+  private static final long KEEP_ALIVE_SECONDS = 60;
+
+  /** Runtime thread's {@link AfterResponseTasks}. */
+  private static final ThreadLocal<AfterResponseTasks> TASKS = new ThreadLocal<>();
+
+  /** Max time the tasks of an invocation run, in milliseconds. */
+  private final long timeoutMs;
+
+  /** Worker {@link ExecutorService}, null until tasks are registered. */
+  private ExecutorService worker;
+
+  /**
+   * constructor.
+   *
+   * @param env {@link Map}
+   */
+  AfterResponseTasks(final Map<String, String> env) {
+    this.timeoutMs =
+        Long.parseLong(
+            env.getOrDefault("LAMBDA_RUNTIME_AFTER_RESPONSE_TIMEOUT_MS", DEFAULT_TIMEOUT_MS));
+  }
+
+  /**
+   * Install the runtime thread's {@link AfterResponseTasks}, stopping the previous worker.
+   *
+   * @param env {@link Map}
+   */
+  static void install(final Map<String, String> env) {
+    AfterResponseTasks previous = TASKS.get();
+    if (previous != null && previous.worker != null) {
+      previous.worker.shutdownNow();
+    }
+    TASKS.set(new AfterResponseTasks(env));
+  }
+
+  /**
+   * Get the thread's {@link AfterResponseTasks}.
+   *
+   * @return {@link AfterResponseTasks}
+   */
+  static AfterResponseTasks get() {
+    return TASKS.get();
+  }
+
+  /**
+   * Has the handler registered after response tasks.
+   *
+   * @param context {@link Context}
+   * @return boolean
+   */
+  static boolean isPending(final Context context) {
+    return context instanceof LambdaContext c && c.hasAfterResponseTasks();
+  }
+
+  /**
+   * Run the invocation's after response tasks, if any, marking {@link
+   * InvocationPhase#AFTER_RESPONSE}. Task failures and timeouts are only logged, as the response
+   * has already been posted.
+   *
+   * @param context {@link LambdaContext}
+   * @param metrics {@link InvocationMetrics}
+   */
+  void run(final LambdaContext context, final InvocationMetrics metrics) {
+    List<Runnable> tasks = context.takeAfterResponseTasks();
+
+    if (!tasks.isEmpty()) {
+      LambdaLogger logger = context.getLogger();
+      long timeout = getTimeout(context);
+
+      if (timeout > 0) {
+        await(worker().submit(() -> runAll(tasks, logger)), timeout, logger);
+      } else {
+        logger.log("After response tasks skipped, the invocation deadline has passed");
+      }
+
+      metrics.mark(InvocationPhase.AFTER_RESPONSE);
+    }
+  }
+
+  /**
+   * Get the time the tasks may run, the after response timeout capped by the invocation deadline.
+   *
+   * @param context {@link LambdaContext}
+   * @return long milliseconds
+   */
+  private long getTimeout(final LambdaContext context) {
+    long deadline = context.getDeadlineMs();
+    return deadline > 0
+        ? Math.min(this.timeoutMs, deadline - System.currentTimeMillis())
+        : this.timeoutMs;
+  }
+
+  /**
+   * Wait for the tasks, interrupting them and replacing the worker when they time out. The tasks
+   * may not stop when interrupted, so the pooled input objects they may hold are dropped.
+   *
+   * @param future {@link Future}
+   * @param timeout long milliseconds
+   * @param logger {@link LambdaLogger}
+   */
+  private void await(final Future<?> future, final long timeout, final LambdaLogger logger) {
+    try {
+      future.get(timeout, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      this.worker.shutdownNow();
+      this.worker = null;
+      InputRecycler.discard();
+      logger.log("After response tasks did not complete in " + timeout + "ms");
+    } catch (ExecutionException e) {
+      logger.log(LambdaLoggerSystemOut.toString(e));
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Run tasks in order, a failed task does not stop the following ones.
+   *
+   * @param tasks {@link List} of {@link Runnable}
+   * @param logger {@link LambdaLogger}
+   */
+  private static void runAll(final List<Runnable> tasks, final LambdaLogger logger) {
+    for (Runnable task : tasks) {
+      if (Thread.currentThread().isInterrupted()) {
+        break;
+      }
+
+      try {
+        task.run();
+      } catch (RuntimeException e) {
+        logger.log(LambdaLoggerSystemOut.toString(e));
+      }
+    }
+  }
+
+  /**
+   * Get the worker {@link ExecutorService}, a single daemon thread that stops when idle.
+   *
+   * @return {@link ExecutorService}
+   */
+  private ExecutorService worker() {
+    if (this.worker == null) {
+      ThreadPoolExecutor pool =
+          new ThreadPoolExecutor(
+              1,
+              1,
+              KEEP_ALIVE_SECONDS,
+              TimeUnit.SECONDS,
+              new LinkedBlockingQueue<>(),
+              r -> {
+                Thread t = new Thread(r, "lambda-runtime-after-response");
+                t.setDaemon(true);
+                return t;
+              });
+      pool.allowCoreThreadTimeOut(true);
+      this.worker = pool;
+    }
+    return this.worker;
+  }
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent.ProxyRequestContext;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming {@link TypeAdapter} of {@link APIGatewayProxyRequestEvent}. The 'requestContext' is
+ * read by {@link Gson}'s {@link TypeAdapter}, created when an event first has one.
+ */
+class ApiGatewayProxyRequestEventTypeAdapter
+    extends AwsEventTypeAdapter<APIGatewayProxyRequestEvent> {
+
+  /** {@link ProxyRequestContext} {@link TypeAdapter}, created on first use. */
+  private TypeAdapter<ProxyRequestContext> requestContextAdapter;
+
+  /**
+   * constructor.
+   *
+   * @param gson {@link Gson}
+   * @param factory {@link TypeAdapterFactory}
+   */
+  ApiGatewayProxyRequestEventTypeAdapter(final Gson gson, final TypeAdapterFactory factory) {
+    super(gson, factory, TypeToken.get(APIGatewayProxyRequestEvent.class));
+  }
+
+  @Override
+  public APIGatewayProxyRequestEvent read(final JsonReader in) throws IOException {
+    return nextObject(in, APIGatewayProxyRequestEvent::new, this::readEventField);
+  }
+
+  /**
+   * Read a {@link APIGatewayProxyRequestEvent} field.
+   *
+   * @param in {@link JsonReader}
+   * @param name {@link String}
+   * @param event {@link APIGatewayProxyRequestEvent}
+   * @throws IOException IOException
+   */
+  private void readEventField(
+      final JsonReader in, final String name, final APIGatewayProxyRequestEvent event)
+      throws IOException {
+    switch (name) {
+      case "version" -> event.setVersion(nextString(in));
+      case "resource" -> event.setResource(nextString(in));
+      case "path" -> event.setPath(nextString(in));
+      case "httpmethod" -> event.setHttpMethod(nextString(in));
+      case "body" -> event.setBody(nextString(in));
+      case "isbase64encoded" -> event.setIsBase64Encoded(nextBoolean(in));
+      case "requestcontext" -> event.setRequestContext(nextRequestContext(in));
+      default -> readParameterField(in, name, event);
+    }
+  }
+
+  /**
+   * Read a {@link APIGatewayProxyRequestEvent} headers or parameters field.
+   *
+   * @param in {@link JsonReader}
+   * @param name {@link String}
+   * @param event {@link APIGatewayProxyRequestEvent}
+   * @throws IOException IOException
+   */
+  private static void readParameterField(
+      final JsonReader in, final String name, final APIGatewayProxyRequestEvent event)
+      throws IOException {
+    switch (name) {
+      case "headers" -> event.setHeaders(nextStringMap(in));
+      case "multivalueheaders" -> event.setMultiValueHeaders(nextStringListMap(in));
+      case "querystringparameters" -> event.setQueryStringParameters(nextStringMap(in));
+      case "multivaluequerystringparameters" ->
+          event.setMultiValueQueryStringParameters(nextStringListMap(in));
+      case "pathparameters" -> event.setPathParameters(nextStringMap(in));
+      case "stagevariables" -> event.setStageVariables(nextStringMap(in));
+      default -> in.skipValue();
+    }
+  }
+
+  /**
+   * Read a {@link Map} of strings.
+   *
+   * @param in {@link JsonReader}
+   * @return {@link Map}
+   * @throws IOException IOException
+   */
+  private static Map<String, String> nextStringMap(final JsonReader in) throws IOException {
+    return nextMap(in, AwsEventTypeAdapter::nextString);
+  }
+
+  /**
+   * Read a {@link Map} of string {@link List}s.
+   *
+   * @param in {@link JsonReader}
+   * @return {@link Map}
+   * @throws IOException IOException
+   */
+  private static Map<String, List<String>> nextStringListMap(final JsonReader in)
+      throws IOException {
+    return nextMap(in, i -> nextList(i, AwsEventTypeAdapter::nextString));
+  }
+
+  /**
+   * Read a {@link ProxyRequestContext}.
+   *
+   * @param in {@link JsonReader}
+   * @return {@link ProxyRequestContext}
+   * @throws IOException IOException
+   */
+  private ProxyRequestContext nextRequestContext(final JsonReader in) throws IOException {
+    if (this.requestContextAdapter == null) {
+      this.requestContextAdapter = getGson().getAdapter(ProxyRequestContext.class);
+    }
+    return this.requestContextAdapter.read(in);
+  }
+}
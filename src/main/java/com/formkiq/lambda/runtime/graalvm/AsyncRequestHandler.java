@@ -0,0 +1,42 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link RequestHandler} that completes its response asynchronously, so it can start concurrent
+ * downstream calls and combine their results. The runtime posts the response when the {@link
+ * CompletableFuture} completes, and fails the invocation if it is not complete by the invocation
+ * deadline.
+ *
+ * <p>Any {@link RequestHandler} returning a {@link java.util.concurrent.CompletionStage} is handled
+ * the same way.
+ *
+ * @param <I> Input type
+ * @param <O> Output type
+ */
+public interface AsyncRequestHandler<I, O> extends RequestHandler<I, CompletableFuture<O>> {
+
+  /**
+   * Handle the request.
+   *
+   * @param input Input
+   * @param context {@link Context}
+   * @return {@link CompletableFuture} of the output
+   */
+  @Override
+  CompletableFuture<O> handleRequest(I input, Context context);
+}
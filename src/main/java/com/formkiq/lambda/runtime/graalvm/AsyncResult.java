@@ -0,0 +1,87 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/** Waits for the {@link CompletionStage} results of asynchronous handlers. */
+final class AsyncResult {
+
+  /** Time kept before the invocation deadline to post the error of a timed out handler, in ms. */
+  private static final long ERROR_POST_MARGIN_MS = 200L;
+
+  /** constructor. */
+  private AsyncResult() {}
+
+  /**
+   * Get the result of a handler. A {@link CompletionStage} is waited for until shortly before the
+   * invocation deadline, leaving time to post the invocation error, and cancelled if it is not
+   * complete by then, dropping the pooled input objects it may still hold. Other results are
+   * returned as is.
+   *
+   * @param value {@link Object} returned by the handler
+   * @param context {@link Context}
+   * @return {@link Object}
+   * @throws InvocationTargetException the stage completed exceptionally or timed out
+   */
+  static Object await(final Object value, final Context context)
+      throws InvocationTargetException {
+
+    Object result = value;
+
+    if (value instanceof CompletionStage<?> stage) {
+      Future<?> future = stage.toCompletableFuture();
+      long deadline = context instanceof LambdaContext c ? c.getDeadlineMs() : 0;
+
+      try {
+        result =
+            deadline > 0
+                ? future.get(
+                    deadline - ERROR_POST_MARGIN_MS - System.currentTimeMillis(),
+                    TimeUnit.MILLISECONDS)
+                : future.get();
+      } catch (ExecutionException e) {
+        throw unwrap(e.getCause());
+      } catch (TimeoutException e) {
+        future.cancel(true);
+        InputRecycler.discard();
+        throw new InvocationTargetException(e, "Handler did not complete before the deadline");
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InvocationTargetException(e);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Rethrow the failure of a {@link CompletionStage}, {@link RuntimeException}s as is like a
+   * synchronous handler's.
+   *
+   * @param cause {@link Throwable}
+   * @return {@link InvocationTargetException} of a checked exception
+   */
+  private static InvocationTargetException unwrap(final Throwable cause) {
+    if (cause instanceof RuntimeException e) {
+      throw e;
+    }
+    return new InvocationTargetException(cause);
+  }
+}
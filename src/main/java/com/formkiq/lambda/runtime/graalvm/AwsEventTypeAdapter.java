@@ -0,0 +1,296 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Base of the streaming {@link TypeAdapter}s of the aws-lambda-java-events classes, which read the
+ * event fields in a switch over the field names instead of through reflection. Events are written
+ * with {@link Gson}'s reflective {@link TypeAdapter}.
+ *
+ * <p>Field names are matched by their {@link #fieldKey(String)}, so every name the reflective
+ * adapters accept through {@link AwsEventsFieldNamingStrategy#alternateNames} (camelCase,
+ * PascalCase, all lower or upper case, hyphenated, 'ARN' suffix) reads the same field.
+ *
+ * @param <T> Type of event
+ */
+abstract class AwsEventTypeAdapter<T> extends TypeAdapter<T> {
+
+  /** {@link ByteBufferTypeAdapter}. */
+  private static final ByteBufferTypeAdapter BYTE_BUFFERS = new ByteBufferTypeAdapter();
+
+  /** {@link Gson}. */
+  private final Gson gson;
+
+  /** {@link TypeAdapterFactory} that created the adapter. */
+  private final TypeAdapterFactory factory;
+
+  /** Event {@link TypeToken}. */
+  private final TypeToken<T> type;
+
+  /** Reflective {@link TypeAdapter} used to write events, created on first use. */
+  private TypeAdapter<T> delegate;
+
+  /**
+   * constructor.
+   *
+   * @param gsonProvider {@link Gson}
+   * @param adapterFactory {@link TypeAdapterFactory}
+   * @param eventType {@link TypeToken}
+   */
+  AwsEventTypeAdapter(
+      final Gson gsonProvider,
+      final TypeAdapterFactory adapterFactory,
+      final TypeToken<T> eventType) {
+    this.gson = gsonProvider;
+    this.factory = adapterFactory;
+    this.type = eventType;
+  }
+
+  /**
+   * Get the {@link Gson} the adapter was created by.
+   *
+   * @return {@link Gson}
+   */
+  Gson getGson() {
+    return this.gson;
+  }
+
+  @Override
+  public void write(final JsonWriter out, final T value) throws IOException {
+    if (this.delegate == null) {
+      this.delegate = this.gson.getDelegateAdapter(this.factory, this.type);
+    }
+    this.delegate.write(out, value);
+  }
+
+  /**
+   * Read a JSON object, passing each field to a {@link FieldReader}.
+   *
+   * @param <O> Type of object
+   * @param in {@link JsonReader}
+   * @param objectFactory {@link Supplier} of the object
+   * @param fields {@link FieldReader}
+   * @return O, null if the JSON value is null
+   * @throws IOException IOException
+   */
+  static <O> O nextObject(
+      final JsonReader in, final Supplier<O> objectFactory, final FieldReader<O> fields)
+      throws IOException {
+    O object = null;
+
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+    } else {
+      object = objectFactory.get();
+      in.beginObject();
+      while (in.hasNext()) {
+        fields.read(in, fieldKey(in.nextName()), object);
+      }
+      in.endObject();
+    }
+
+    return object;
+  }
+
+  /**
+   * Get the key a field name is matched by, the name in lower case without hyphens.
+   *
+   * @param name {@link String}
+   * @return {@link String}
+   */
+  static String fieldKey(final String name) {
+    String key = name.toLowerCase(Locale.ROOT);
+    return key.indexOf('-') >= 0 ? key.replace("-", "") : key;
+  }
+
+  /**
+   * Read a JSON array.
+   *
+   * @param <E> Type of element
+   * @param in {@link JsonReader}
+   * @param elements {@link ValueReader} of the elements
+   * @return {@link List}, null if the JSON value is null
+   * @throws IOException IOException
+   */
+  static <E> List<E> nextList(final JsonReader in, final ValueReader<E> elements)
+      throws IOException {
+    List<E> list = null;
+
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+    } else {
+      list = new ArrayList<>();
+      in.beginArray();
+      while (in.hasNext()) {
+        list.add(elements.read(in));
+      }
+      in.endArray();
+    }
+
+    return list;
+  }
+
+  /**
+   * Read a JSON object as an insertion ordered {@link Map}.
+   *
+   * @param <E> Type of value
+   * @param in {@link JsonReader}
+   * @param values {@link ValueReader} of the values
+   * @return {@link Map}, null if the JSON value is null
+   * @throws IOException IOException
+   */
+  static <E> Map<String, E> nextMap(final JsonReader in, final ValueReader<E> values)
+      throws IOException {
+    Map<String, E> map = null;
+
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+    } else {
+      map = new LinkedHashMap<>();
+      in.beginObject();
+      while (in.hasNext()) {
+        map.put(StringCanonicalizer.canonicalize(in.nextName()), values.read(in));
+      }
+      in.endObject();
+    }
+
+    return map;
+  }
+
+  /**
+   * Read a string, short strings are canonicalized by the {@link StringCanonicalizer}. Booleans are
+   * read as "true" or "false", like {@link CanonicalStringTypeAdapter}.
+   *
+   * @param in {@link JsonReader}
+   * @return {@link String}, null if the JSON value is null
+   * @throws IOException IOException
+   */
+  static String nextString(final JsonReader in) throws IOException {
+    JsonToken token = in.peek();
+    String value = null;
+
+    if (token == JsonToken.NULL) {
+      in.nextNull();
+    } else if (token == JsonToken.BOOLEAN) {
+      value = Boolean.toString(in.nextBoolean());
+    } else {
+      value = StringCanonicalizer.canonicalize(in.nextString());
+    }
+
+    return value;
+  }
+
+  /**
+   * Read a {@link Boolean}.
+   *
+   * @param in {@link JsonReader}
+   * @return {@link Boolean}, null if the JSON value is null
+   * @throws IOException IOException
+   */
+  static Boolean nextBoolean(final JsonReader in) throws IOException {
+    Boolean value = null;
+
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+    } else if (in.peek() == JsonToken.STRING) {
+      value = Boolean.valueOf(in.nextString());
+    } else {
+      value = Boolean.valueOf(in.nextBoolean());
+    }
+
+    return value;
+  }
+
+  /**
+   * Read a {@link Long}.
+   *
+   * @param in {@link JsonReader}
+   * @return {@link Long}, null if the JSON value is null
+   * @throws IOException IOException
+   */
+  static Long nextLong(final JsonReader in) throws IOException {
+    Long value = null;
+
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+    } else {
+      value = Long.valueOf(in.nextLong());
+    }
+
+    return value;
+  }
+
+  /**
+   * Read a base64 {@link ByteBuffer}.
+   *
+   * @param in {@link JsonReader}
+   * @return {@link ByteBuffer}, null if the JSON value is null
+   * @throws IOException IOException
+   */
+  static ByteBuffer nextByteBuffer(final JsonReader in) throws IOException {
+    return BYTE_BUFFERS.read(in);
+  }
+
+  /**
+   * Reads a JSON value.
+   *
+   * @param <E> Type of value
+   */
+  @FunctionalInterface
+  interface ValueReader<E> {
+
+    /**
+     * Read the next value.
+     *
+     * @param in {@link JsonReader}
+     * @return E
+     * @throws IOException IOException
+     */
+    E read(JsonReader in) throws IOException;
+  }
+
+  /**
+   * Reads a JSON object field into an object, skipping unknown fields.
+   *
+   * @param <O> Type of object
+   */
+  @FunctionalInterface
+  interface FieldReader<O> {
+
+    /**
+     * Read the value of a field.
+     *
+     * @param in {@link JsonReader}
+     * @param name {@link String} field name {@link #fieldKey(String)}
+     * @param object O
+     * @throws IOException IOException
+     */
+    void read(JsonReader in, String name, O object) throws IOException;
+  }
+}
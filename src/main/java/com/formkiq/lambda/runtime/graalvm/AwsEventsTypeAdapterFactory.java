@@ -0,0 +1,54 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * {@link TypeAdapterFactory} of the streaming {@link TypeAdapter}s of the common
+ * aws-lambda-java-events classes, so their first deserialization does not go through reflection.
+ *
+ * <p>The event classes are matched by name, so the adapters, and the events jar, are only loaded
+ * when a handler uses one of the events.
+ */
+public class AwsEventsTypeAdapterFactory implements TypeAdapterFactory {
+
+  /** {@link com.amazonaws.services.lambda.runtime.events.SQSEvent} class name. */
+  private static final String SQS_EVENT = "com.amazonaws.services.lambda.runtime.events.SQSEvent";
+
+  /** {@link com.amazonaws.services.lambda.runtime.events.DynamodbEvent} class name. */
+  private static final String DYNAMODB_EVENT =
+      "com.amazonaws.services.lambda.runtime.events.DynamodbEvent";
+
+  /** {@link com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent} name. */
+  private static final String API_GATEWAY_PROXY_REQUEST_EVENT =
+      "com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent";
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> TypeAdapter<T> create(final Gson gson, final TypeToken<T> type) {
+    TypeAdapter<?> adapter =
+        switch (type.getRawType().getName()) {
+          case SQS_EVENT -> new SqsEventTypeAdapter(gson, this);
+          case DYNAMODB_EVENT -> new DynamodbEventTypeAdapter(gson, this);
+          case API_GATEWAY_PROXY_REQUEST_EVENT ->
+              new ApiGatewayProxyRequestEventTypeAdapter(gson, this);
+          default -> null;
+        };
+
+    return (TypeAdapter<T>) adapter;
+  }
+}
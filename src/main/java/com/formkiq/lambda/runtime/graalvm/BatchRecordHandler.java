@@ -0,0 +1,38 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.amazonaws.services.lambda.runtime.Context;
+
+/**
+ * Handler of a single record of a batch event (SQS, DynamoDB Streams, Kinesis).
+ *
+ * <p>The runtime splits the batch and calls {@link #handleRecord(Object, Context)} for each record
+ * in parallel. Records that share an SQS FIFO message group, Kinesis partition key or DynamoDB item
+ * key are processed in order, one at a time. Records that throw an {@link Exception} (and the
+ * records after them with the same ordering key) are returned to Lambda as "batchItemFailures", so
+ * the event source mapping must have ReportBatchItemFailures enabled.
+ *
+ * @param <R> Record type, for example {@code SQSEvent.SQSMessage}
+ */
+public interface BatchRecordHandler<R> {
+
+  /**
+   * Handle a record.
+   *
+   * @param record Record
+   * @param context {@link Context}
+   * @throws Exception Exception, the record is reported as a failure
+   */
+  void handleRecord(R record, Context context) throws Exception;
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+
+/**
+ * Item identifier and ordering key of a batch record, read from the raw record JSON.
+ *
+ * <ul>
+ *   <li>SQS - "messageId", ordered by "attributes.MessageGroupId"
+ *   <li>Kinesis - "kinesis.sequenceNumber", ordered by "kinesis.partitionKey"
+ *   <li>DynamoDB Streams - "dynamodb.SequenceNumber", ordered by "dynamodb.Keys"
+ * </ul>
+ */
+public final class BatchRecordKey {
+
+  /** Item Identifier, null if unknown. */
+  private final String itemIdentifier;
+
+  /** Ordering Key, null if the record can be processed in any order. */
+  private final String orderingKey;
+
+  /**
+   * constructor.
+   *
+   * @param id {@link String}
+   * @param key {@link String}
+   */
+  private BatchRecordKey(final String id, final String key) {
+    this.itemIdentifier = id;
+    this.orderingKey = key;
+  }
+
+  /**
+   * Read {@link BatchRecordKey} from a record.
+   *
+   * @param reader {@link JsonReader} positioned at the record
+   * @return {@link BatchRecordKey}
+   * @throws IOException IOException
+   */
+  public static BatchRecordKey read(final JsonReader reader) throws IOException {
+    String id = null;
+    String key = null;
+
+    reader.beginObject();
+
+    while (reader.hasNext()) {
+      String[] values;
+
+      switch (reader.nextName()) {
+        case "messageId" -> id = readValue(reader);
+        case "attributes" -> key = readFields(reader, "MessageGroupId")[0];
+        case "kinesis" -> {
+          values = readFields(reader, "sequenceNumber", "partitionKey");
+          id = values[0];
+          key = values[1];
+        }
+        case "dynamodb" -> {
+          values = readFields(reader, "SequenceNumber", "Keys");
+          id = values[0];
+          key = values[1];
+        }
+        default -> reader.skipValue();
+      }
+    }
+
+    reader.endObject();
+    return new BatchRecordKey(id, key);
+  }
+
+  /**
+   * Read fields of a JSON object.
+   *
+   * @param reader {@link JsonReader}
+   * @param names {@link String}
+   * @return {@link String} values, in the order of the names
+   * @throws IOException IOException
+   */
+  private static String[] readFields(final JsonReader reader, final String... names)
+      throws IOException {
+    String[] values = new String[names.length];
+
+    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+      reader.skipValue();
+      return values;
+    }
+
+    reader.beginObject();
+
+    while (reader.hasNext()) {
+      int pos = indexOf(names, reader.nextName());
+      if (pos >= 0) {
+        values[pos] = readValue(reader);
+      } else {
+        reader.skipValue();
+      }
+    }
+
+    reader.endObject();
+    return values;
+  }
+
+  /**
+   * Read a value as a {@link String}, objects and arrays as their JSON.
+   *
+   * @param reader {@link JsonReader}
+   * @return {@link String}
+   * @throws IOException IOException
+   */
+  private static String readValue(final JsonReader reader) throws IOException {
+    String value;
+    JsonToken token = reader.peek();
+
+    if (token == JsonToken.NULL) {
+      reader.nextNull();
+      value = null;
+    } else if (token == JsonToken.BEGIN_OBJECT || token == JsonToken.BEGIN_ARRAY) {
+      value = JsonParser.parseReader(reader).toString();
+    } else {
+      value = reader.nextString();
+    }
+
+    return value;
+  }
+
+  /**
+   * Find name.
+   *
+   * @param names {@link String}
+   * @param name {@link String}
+   * @return int, -1 if not found
+   */
+  private static int indexOf(final String[] names, final String name) {
+    int pos = -1;
+    for (int i = 0; i < names.length && pos < 0; i++) {
+      if (names[i].equals(name)) {
+        pos = i;
+      }
+    }
+    return pos;
+  }
+
+  /**
+   * Get Item Identifier.
+   *
+   * @return {@link String}
+   */
+  public String getItemIdentifier() {
+    return this.itemIdentifier;
+  }
+
+  /**
+   * Get Ordering Key.
+   *
+   * @return {@link String}
+   */
+  public String getOrderingKey() {
+    return this.orderingKey;
+  }
+}
@@ -0,0 +1,270 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link RequestHandler} that runs a {@link BatchRecordHandler} for every record of a {@link
+ * LazyBatchEvent} on a bounded executor and returns the "batchItemFailures" response.
+ *
+ * <p>The number of threads is set by 'LAMBDA_RUNTIME_BATCH_PARALLELISM', defaulting to the number
+ * of available processors.
+ *
+ * @param <R> Record type
+ */
+public class BatchRecordRequestHandler<R> implements RequestHandler<LazyBatchEvent<R>, String> {
+
+  /** Idle worker thread keep alive, in seconds. */
+  private static final long KEEP_ALIVE_SECONDS = 60L;
+
+  /** {@link BatchRecordHandler}. */
+  private final BatchRecordHandler<R> recordHandler;
+
+  /** Worker {@link ExecutorService}, null when records are processed on the runtime thread. */
+  private final ExecutorService executor;
+
+  /**
+   * constructor.
+   *
+   * @param handler {@link BatchRecordHandler}
+   * @param env {@link Map}
+   */
+  public BatchRecordRequestHandler(
+      final BatchRecordHandler<R> handler, final Map<String, String> env) {
+    int parallelism = getParallelism(env);
+    this.recordHandler = handler;
+    this.executor = parallelism > 1 ? newExecutor(parallelism) : null;
+  }
+
+  /**
+   * Get the number of records processed in parallel.
+   *
+   * @param env {@link Map}
+   * @return int
+   */
+  static int getParallelism(final Map<String, String> env) {
+    String value = env.get("LAMBDA_RUNTIME_BATCH_PARALLELISM");
+    return value != null
+        ? Math.max(1, Integer.parseInt(value))
+        : Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Create worker {@link ExecutorService} of daemon threads that stop when idle.
+   *
+   * @param parallelism int
+   * @return {@link ExecutorService}
+   */
+  private static ExecutorService newExecutor(final int parallelism) {
+    AtomicInteger count = new AtomicInteger();
+
+    ThreadPoolExecutor pool =
+        new ThreadPoolExecutor(
+            parallelism,
+            parallelism,
+            KEEP_ALIVE_SECONDS,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            r -> {
+              Thread t = new Thread(r, "batch-record-" + count.incrementAndGet());
+              t.setDaemon(true);
+              return t;
+            });
+
+    pool.allowCoreThreadTimeOut(true);
+    return pool;
+  }
+
+  @Override
+  public String handleRequest(final LazyBatchEvent<R> event, final Context context) {
+    BatchRecordKey[] keys = readKeys(event);
+    boolean[] failed = new boolean[keys.length];
+
+    List<int[]> lanes = buildLanes(keys);
+
+    if (this.executor == null || lanes.size() == 1) {
+      for (int[] lane : lanes) {
+        processLane(event, lane, failed, context);
+      }
+    } else {
+      processLanes(event, lanes, failed, context);
+    }
+
+    return buildResponse(keys, failed);
+  }
+
+  /**
+   * Read the {@link BatchRecordKey} of every record.
+   *
+   * @param event {@link LazyBatchEvent}
+   * @return {@link BatchRecordKey}
+   */
+  private static BatchRecordKey[] readKeys(final LazyBatchEvent<?> event) {
+    BatchRecordKey[] keys = new BatchRecordKey[event.size()];
+
+    for (int i = 0; i < keys.length; i++) {
+      try (JsonReader reader = event.openRecord(i)) {
+        keys[i] = BatchRecordKey.read(reader);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    return keys;
+  }
+
+  /**
+   * Group records into lanes, records with the same ordering key share a lane in batch order and
+   * records without an ordering key get a lane of their own.
+   *
+   * @param keys {@link BatchRecordKey}
+   * @return {@link List} of record indexes
+   */
+  private static List<int[]> buildLanes(final BatchRecordKey[] keys) {
+    List<int[]> lanes = new ArrayList<>(keys.length);
+    Map<String, List<Integer>> ordered = new LinkedHashMap<>();
+
+    for (int i = 0; i < keys.length; i++) {
+      String key = keys[i].getOrderingKey();
+      if (key != null) {
+        ordered.computeIfAbsent(key, k -> new ArrayList<>()).add(Integer.valueOf(i));
+      } else {
+        lanes.add(new int[] {i});
+      }
+    }
+
+    for (List<Integer> lane : ordered.values()) {
+      lanes.add(lane.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    return lanes;
+  }
+
+  /**
+   * Process lanes on the worker {@link ExecutorService}.
+   *
+   * @param event {@link LazyBatchEvent}
+   * @param lanes {@link List}
+   * @param failed boolean[]
+   * @param context {@link Context}
+   */
+  private void processLanes(
+      final LazyBatchEvent<R> event,
+      final List<int[]> lanes,
+      final boolean[] failed,
+      final Context context) {
+
+    List<Callable<Void>> tasks = new ArrayList<>(lanes.size());
+    for (int[] lane : lanes) {
+      tasks.add(
+          () -> {
+            processLane(event, lane, failed, context);
+            return null;
+          });
+    }
+
+    try {
+      for (Future<Void> future : this.executor.invokeAll(tasks)) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * Process the records of a lane in order, once a record fails the rest of the lane is failed
+   * without being processed.
+   *
+   * @param event {@link LazyBatchEvent}
+   * @param lane int[]
+   * @param failed boolean[]
+   * @param context {@link Context}
+   */
+  private void processLane(
+      final LazyBatchEvent<R> event,
+      final int[] lane,
+      final boolean[] failed,
+      final Context context) {
+    boolean laneFailed = false;
+
+    for (int i : lane) {
+      if (!laneFailed) {
+        try {
+          this.recordHandler.handleRecord(event.get(i), context);
+        } catch (Exception e) {
+          context.getLogger().log(LambdaLoggerSystemOut.toString(e));
+          laneFailed = true;
+        }
+      }
+
+      failed[i] = laneFailed;
+    }
+  }
+
+  /**
+   * Build the "batchItemFailures" response.
+   *
+   * @param keys {@link BatchRecordKey}
+   * @param failed boolean[]
+   * @return {@link String}
+   */
+  private static String buildResponse(final BatchRecordKey[] keys, final boolean[] failed) {
+    StringBuilder sb = new StringBuilder("{\"batchItemFailures\":[");
+    String separator = "";
+
+    for (int i = 0; i < keys.length; i++) {
+      if (failed[i]) {
+        String id = keys[i].getItemIdentifier();
+        if (id == null) {
+          throw new IllegalStateException("Record " + i + " failed and has no item identifier");
+        }
+
+        sb.append(separator).append("{\"itemIdentifier\":");
+        sb.append(LambdaRuntime.getJsonProvider().toJson(id)).append('}');
+        separator = ",";
+      }
+    }
+
+    return sb.append("]}").toString();
+  }
+
+  /**
+   * Get {@link BatchRecordHandler}.
+   *
+   * @return {@link BatchRecordHandler}
+   */
+  public BatchRecordHandler<R> getRecordHandler() {
+    return this.recordHandler;
+  }
+}
@@ -0,0 +1,354 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Per thread I/O buffers kept between invocations, so steady state invocations read the event and
+ * write the response without allocating I/O buffers.
+ *
+ * <p>Buffers grow to fit the largest event or response. So that one large event does not pin
+ * memory for the life of the execution environment, a buffer that grew above
+ * 'LAMBDA_RUNTIME_BUFFER_MAX_BYTES' is released at the end of the invocation, and a buffer that
+ * stays mostly unused for 'LAMBDA_RUNTIME_BUFFER_IDLE_INVOCATIONS' invocations is halved.
+ *
+ * <p>Setting 'LAMBDA_RUNTIME_OFFHEAP_THRESHOLD' reads events with a larger Content-Length into a
+ * reusable {@link OffHeapBuffer} instead, a direct {@link ByteBuffer} or, when
+ * 'LAMBDA_RUNTIME_OFFHEAP_FILE' is set, a memory-mapped file, so they stay out of the Java heap.
+ *
+ * <p>Setting 'LAMBDA_RUNTIME_GZIP_INPUT' decompresses gzip events, raw or base64 encoded, while
+ * they are read by the handler, base64 gzip fields inside a JSON event are not decompressed.
+ * {@link GzipResponse} results of at least 'LAMBDA_RUNTIME_GZIP_RESPONSE_MIN_BYTES' are posted as
+ * a base64 gzip JSON string. Both use a pooled {@link Inflater} / {@link Deflater}, so their native
+ * memory is not allocated per invocation.
+ *
+ * <p>The runtime thread's pool is created by {@link #install(Map)} at runtime, it must not be
+ * referenced from classes initialized at image build time.
+ */
+public final class BufferPool {
+
+  /** Initial buffer capacity. */
+  private static final int INITIAL_CAPACITY = 8192;
+
+  /** Default max bytes a buffer keeps between invocations. */
+  private static final String DEFAULT_MAX_BYTES = String.valueOf(1024 * 1024);
+
+  /** Default invocations a buffer is mostly unused before it is shrunk. */
+  private static final String DEFAULT_IDLE_INVOCATIONS = "32";
+
+  /** Default {@link OffHeapBuffer} capacity, the max synchronous invocation payload. */
+  private static final String DEFAULT_OFFHEAP_MAX_BYTES = String.valueOf(6 * 1024 * 1024);
+
+  /** Default min response bytes that are compressed. */
+  private static final String DEFAULT_GZIP_RESPONSE_MIN_BYTES = "1024";
+
+  /** {@link BufferPool} of each thread. */
+  private static final ThreadLocal<BufferPool> POOLS =
+      ThreadLocal.withInitial(() -> new BufferPool(Map.of()));
+
+  /** Event input buffer. */
+  private final PooledBuffer input = new PooledBuffer(INITIAL_CAPACITY);
+
+  /** Response output buffer. */
+  private final PooledBuffer output = new PooledBuffer(INITIAL_CAPACITY);
+
+  /** UTF-8 {@link ByteBufferReader} of uncompressed events. */
+  private final ByteBufferReader reader =
+      new ByteBufferReader(
+          StandardCharsets.UTF_8
+              .newDecoder()
+              .onMalformedInput(CodingErrorAction.REPLACE)
+              .onUnmappableCharacter(CodingErrorAction.REPLACE),
+          INITIAL_CAPACITY);
+
+  /** Max bytes a buffer keeps between invocations. */
+  private final int maxBytes;
+
+  /** Invocations a buffer is mostly unused before it is shrunk. */
+  private final int idleInvocations;
+
+  /** Content-Length above which events are read off heap, -1 if disabled. */
+  private final long offHeapThreshold;
+
+  /** {@link OffHeapBuffer} capacity. */
+  private final int offHeapMaxBytes;
+
+  /** {@link OffHeapBuffer} memory-mapped file, null to use a direct {@link ByteBuffer}. */
+  private final Path offHeapFile;
+
+  /** Whether gzip events are decompressed. */
+  private final boolean gzipInput;
+
+  /** Min {@link GzipResponse} bytes that are compressed. */
+  private final int gzipResponseMinBytes;
+
+  /** Compressed response buffer. */
+  private final PooledBuffer compressed = new PooledBuffer(INITIAL_CAPACITY);
+
+  /** Compression chunk. */
+  private final byte[] chunk = new byte[INITIAL_CAPACITY];
+
+  /** Compression {@link CRC32}. */
+  private final CRC32 crc = new CRC32();
+
+  /** {@link OffHeapBuffer}, created on first use. */
+  private OffHeapBuffer offHeap;
+
+  /** {@link Inflater}, created on first use. */
+  private Inflater inflater;
+
+  /** {@link Deflater}, created on first use. */
+  private Deflater deflater;
+
+  /**
+   * constructor.
+   *
+   * @param env {@link Map}
+   */
+  public BufferPool(final Map<String, String> env) {
+    this.maxBytes =
+        Integer.parseInt(env.getOrDefault("LAMBDA_RUNTIME_BUFFER_MAX_BYTES", DEFAULT_MAX_BYTES));
+    this.idleInvocations =
+        Integer.parseInt(
+            env.getOrDefault("LAMBDA_RUNTIME_BUFFER_IDLE_INVOCATIONS", DEFAULT_IDLE_INVOCATIONS));
+    this.offHeapThreshold =
+        Long.parseLong(env.getOrDefault("LAMBDA_RUNTIME_OFFHEAP_THRESHOLD", "-1"));
+    this.offHeapMaxBytes =
+        Integer.parseInt(
+            env.getOrDefault("LAMBDA_RUNTIME_OFFHEAP_MAX_BYTES", DEFAULT_OFFHEAP_MAX_BYTES));
+
+    String file = env.get("LAMBDA_RUNTIME_OFFHEAP_FILE");
+    this.offHeapFile = file != null ? Path.of(file) : null;
+
+    this.gzipInput = "true".equals(env.get("LAMBDA_RUNTIME_GZIP_INPUT"));
+    this.gzipResponseMinBytes =
+        Integer.parseInt(
+            env.getOrDefault(
+                "LAMBDA_RUNTIME_GZIP_RESPONSE_MIN_BYTES", DEFAULT_GZIP_RESPONSE_MIN_BYTES));
+  }
+
+  /**
+   * Get the current thread's {@link BufferPool}.
+   *
+   * @return {@link BufferPool}
+   */
+  public static BufferPool get() {
+    return POOLS.get();
+  }
+
+  /**
+   * Install a {@link BufferPool} configured from the environment for the current thread.
+   *
+   * @param env {@link Map}
+   * @return {@link BufferPool}
+   */
+  public static BufferPool install(final Map<String, String> env) {
+    BufferPool pool = new BufferPool(env);
+    POOLS.set(pool);
+    return pool;
+  }
+
+  /**
+   * Read the {@link InputStream} to the end into the input buffer, replacing its contents.
+   *
+   * @param is {@link InputStream}
+   * @return {@link PooledBuffer}
+   * @throws IOException IOException
+   */
+  public PooledBuffer read(final InputStream is) throws IOException {
+    this.input.reset();
+    return this.input.readFrom(is);
+  }
+
+  /**
+   * Read the {@link InputStream} to the end, into the {@link OffHeapBuffer} when off heap events
+   * are enabled and the Content-Length is above the threshold and fits, otherwise into the input
+   * buffer.
+   *
+   * @param is {@link InputStream}
+   * @param contentLength long, -1 if unknown
+   * @return {@link EventPayload}
+   * @throws IOException IOException
+   */
+  public EventPayload read(final InputStream is, final long contentLength) throws IOException {
+    EventPayload payload;
+
+    if (this.offHeapThreshold >= 0
+        && contentLength > this.offHeapThreshold
+        && contentLength <= this.offHeapMaxBytes) {
+
+      if (this.offHeap == null) {
+        this.offHeap = OffHeapBuffer.allocate(this.offHeapMaxBytes, this.offHeapFile);
+      }
+
+      payload = this.offHeap.readFrom(is);
+
+    } else {
+      payload = read(is);
+    }
+
+    return payload;
+  }
+
+  /**
+   * Get the output buffer, emptied.
+   *
+   * @return {@link PooledBuffer}
+   */
+  public PooledBuffer output() {
+    this.output.reset();
+    return this.output;
+  }
+
+  /**
+   * Get a {@link Reader} of the UTF-8 decoded event, valid until the next call. Events are decoded
+   * incrementally in chunks, so they are never decoded into a char[] of their full size.
+   *
+   * @param payload {@link EventPayload}
+   * @return {@link Reader}
+   * @throws IOException IOException
+   */
+  public Reader reader(final EventPayload payload) throws IOException {
+    return isCompressed(payload)
+        ? new InputStreamReader(open(payload), StandardCharsets.UTF_8)
+        : this.reader.open(payload.byteBuffer());
+  }
+
+  /**
+   * Is the event gzip compressed and decompressed by {@link #open(EventPayload)}.
+   *
+   * @param payload {@link EventPayload}
+   * @return boolean
+   */
+  public boolean isCompressed(final EventPayload payload) {
+    return this.gzipInput && PooledGzipInputStream.isGzip(payload.byteBuffer());
+  }
+
+  /**
+   * Open an {@link InputStream} of the event, decompressing gzip events when enabled.
+   *
+   * @param payload {@link EventPayload}
+   * @return {@link InputStream}
+   * @throws IOException IOException
+   */
+  public InputStream open(final EventPayload payload) throws IOException {
+    InputStream is = payload.inputStream();
+
+    if (isCompressed(payload)) {
+      if (this.inflater == null) {
+        this.inflater = new Inflater(true);
+      }
+
+      is =
+          new PooledGzipInputStream(
+              PooledGzipInputStream.openCompressed(payload), this.inflater, this.crc, this.chunk);
+    }
+
+    return is;
+  }
+
+  /**
+   * Read all bytes of the event, decompressing gzip events when enabled.
+   *
+   * @param payload {@link EventPayload}
+   * @return byte[]
+   * @throws IOException IOException
+   */
+  public byte[] readAllBytes(final EventPayload payload) throws IOException {
+    byte[] bytes;
+
+    if (isCompressed(payload)) {
+      try (InputStream is = open(payload)) {
+        bytes = is.readAllBytes();
+      }
+    } else {
+      bytes = payload.toByteArray();
+    }
+
+    return bytes;
+  }
+
+  /**
+   * Compress the response of a {@link GzipResponse} as a base64 gzip JSON string, when it is at
+   * least the min bytes.
+   *
+   * @param body {@link ResponseBody}
+   * @return {@link ResponseBody}, the compressed or the given body
+   * @throws IOException IOException
+   */
+  public ResponseBody compress(final ResponseBody body) throws IOException {
+    ResponseBody response = body;
+
+    if (body.getLength() >= this.gzipResponseMinBytes) {
+
+      if (this.deflater == null) {
+        this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+      }
+
+      this.compressed.reset();
+      this.compressed.write('"');
+
+      try (OutputStream base64 = Base64.getEncoder().wrap(this.compressed);
+          PooledGzipOutputStream gzip =
+              new PooledGzipOutputStream(base64, this.deflater, this.crc, this.chunk)) {
+        body.writeTo(gzip);
+      }
+
+      this.compressed.write('"');
+      response = ResponseBody.of(this.compressed);
+    }
+
+    return response;
+  }
+
+  /**
+   * Get a {@link Reader} of the UTF-8 decoded bytes, valid until the next call.
+   *
+   * @param bytes {@link PooledBuffer}
+   * @return {@link Reader}
+   */
+  public Reader reader(final PooledBuffer bytes) {
+    return this.reader.open(bytes.byteBuffer());
+  }
+
+  /**
+   * Release the buffers at the end of an invocation, shrinking them when they grew too large or
+   * have been mostly unused.
+   */
+  public void release() {
+    this.input.release(this.maxBytes, this.idleInvocations);
+    this.output.release(this.maxBytes, this.idleInvocations);
+    this.compressed.release(this.maxBytes, this.idleInvocations);
+  }
+
+  /** Shrink the buffers back to their initial capacity, releasing the heap they grew to. */
+  public void trim() {
+    this.input.release(INITIAL_CAPACITY, this.idleInvocations);
+    this.output.release(INITIAL_CAPACITY, this.idleInvocations);
+    this.compressed.release(INITIAL_CAPACITY, this.idleInvocations);
+  }
+}
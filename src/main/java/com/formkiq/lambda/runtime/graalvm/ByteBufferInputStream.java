@@ -0,0 +1,66 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/** {@link InputStream} view of a {@link ByteBuffer}, reading from its position to its limit. */
+public final class ByteBufferInputStream extends InputStream {
+
+  /** Unsigned byte mask. */
+  private static final int BYTE_MASK = 0xff;
+
+  /** {@link ByteBuffer}. */
+  private final ByteBuffer buffer;
+
+  /**
+   * constructor.
+   *
+   * @param byteBuffer {@link ByteBuffer}, read without changing its position
+   */
+  public ByteBufferInputStream(final ByteBuffer byteBuffer) {
+    this.buffer = byteBuffer.duplicate();
+  }
+
+  @Override
+  public int read() {
+    return this.buffer.hasRemaining() ? this.buffer.get() & BYTE_MASK : -1;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) {
+    int read = -1;
+
+    if (len == 0) {
+      read = 0;
+    } else if (this.buffer.hasRemaining()) {
+      read = Math.min(len, this.buffer.remaining());
+      this.buffer.get(b, off, read);
+    }
+
+    return read;
+  }
+
+  @Override
+  public long skip(final long n) {
+    int skip = (int) Math.max(0, Math.min(n, this.buffer.remaining()));
+    this.buffer.position(this.buffer.position() + skip);
+    return skip;
+  }
+
+  @Override
+  public int available() {
+    return this.buffer.remaining();
+  }
+}
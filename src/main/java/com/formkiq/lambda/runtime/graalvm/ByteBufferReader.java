@@ -0,0 +1,99 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+
+/**
+ * Reusable {@link Reader} decoding a {@link ByteBuffer} incrementally into a fixed size {@link
+ * CharBuffer} chunk, so an event is never decoded into a char[] of its full size.
+ */
+final class ByteBufferReader extends Reader {
+
+  /** {@link CharsetDecoder}. */
+  private final CharsetDecoder decoder;
+
+  /** Decoded chars not read yet. */
+  private final CharBuffer chunk;
+
+  /** Bytes to decode. */
+  private ByteBuffer bytes;
+
+  /** Whether the decoder was flushed, after all bytes were decoded. */
+  private boolean flushed;
+
+  /**
+   * constructor.
+   *
+   * @param charsetDecoder {@link CharsetDecoder}
+   * @param chunkSize int decoded chars chunk size
+   */
+  ByteBufferReader(final CharsetDecoder charsetDecoder, final int chunkSize) {
+    this.decoder = charsetDecoder;
+    this.chunk = CharBuffer.allocate(chunkSize);
+  }
+
+  /**
+   * Start decoding a {@link ByteBuffer}, replacing the previous one.
+   *
+   * @param byteBuffer {@link ByteBuffer}, decoded from its position to its limit
+   * @return {@link ByteBufferReader}
+   */
+  ByteBufferReader open(final ByteBuffer byteBuffer) {
+    this.bytes = byteBuffer;
+    this.flushed = false;
+    this.decoder.reset();
+    this.chunk.clear().flip();
+    return this;
+  }
+
+  @Override
+  public int read(final char[] cbuf, final int off, final int len) {
+    int read = len == 0 ? 0 : -1;
+
+    if (len > 0 && (this.chunk.hasRemaining() || fill())) {
+      read = Math.min(len, this.chunk.remaining());
+      this.chunk.get(cbuf, off, read);
+    }
+
+    return read;
+  }
+
+  /**
+   * Decode the next chunk.
+   *
+   * @return boolean whether chars were decoded
+   */
+  private boolean fill() {
+    this.chunk.clear();
+
+    if (!this.flushed) {
+      CoderResult result = this.decoder.decode(this.bytes, this.chunk, true);
+      if (result.isUnderflow()) {
+        this.flushed = this.decoder.flush(this.chunk).isUnderflow();
+      }
+    }
+
+    this.chunk.flip();
+    return this.chunk.hasRemaining();
+  }
+
+  @Override
+  public void close() {
+    this.bytes = null;
+  }
+}
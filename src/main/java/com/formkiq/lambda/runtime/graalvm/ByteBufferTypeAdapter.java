@@ -0,0 +1,136 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * {@link TypeAdapter} for base64 {@link ByteBuffer} fields (Kinesis record data, DynamoDB 'B' /
+ * 'BS' attributes). The encoded value is read as a {@link String} by {@link
+ * JsonReader#nextString()} and its characters are decoded into the {@link ByteBuffer} array,
+ * without the byte[] copy of the encoded value {@link Base64.Decoder#decode(String)} makes.
+ */
+public class ByteBufferTypeAdapter extends TypeAdapter<ByteBuffer> {
+
+  /** Number of ASCII characters. */
+  private static final int ASCII = 128;
+
+  /** Bits per base64 character. */
+  private static final int SEXTET_BITS = 6;
+
+  /** Bits per byte. */
+  private static final int BYTE_BITS = 8;
+
+  /** Characters per base64 group. */
+  private static final int GROUP_CHARS = 4;
+
+  /** Bytes per base64 group. */
+  private static final int GROUP_BYTES = 3;
+
+  /** Base64 character values, standard and url safe alphabets, -1 for invalid characters. */
+  private static final int[] SEXTETS = buildSextets();
+
+  /**
+   * Build the base64 character values.
+   *
+   * @return int[]
+   */
+  private static int[] buildSextets() {
+    int[] sextets = new int[ASCII];
+    Arrays.fill(sextets, -1);
+
+    String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+    for (int i = 0; i < alphabet.length(); i++) {
+      sextets[alphabet.charAt(i)] = i;
+    }
+
+    sextets['+'] = alphabet.length();
+    sextets['-'] = alphabet.length();
+    sextets['/'] = alphabet.length() + 1;
+    sextets['_'] = alphabet.length() + 1;
+    return sextets;
+  }
+
+  /**
+   * Decode base64 characters.
+   *
+   * @param s {@link CharSequence}
+   * @return {@link ByteBuffer}
+   */
+  static ByteBuffer decode(final CharSequence s) {
+    int length = s.length();
+    while (length > 0 && s.charAt(length - 1) == '=') {
+      length--;
+    }
+
+    if (length % GROUP_CHARS == 1) {
+      throw new JsonSyntaxException("invalid base64 length " + s.length());
+    }
+
+    byte[] bytes = new byte[length * GROUP_BYTES / GROUP_CHARS];
+    int bits = 0;
+    int pending = 0;
+    int pos = 0;
+
+    for (int i = 0; i < length; i++) {
+      char c = s.charAt(i);
+      int sextet = c < ASCII ? SEXTETS[c] : -1;
+      if (sextet < 0) {
+        throw new JsonSyntaxException("invalid base64 character at " + i);
+      }
+
+      bits = (bits << SEXTET_BITS) | sextet;
+      pending += SEXTET_BITS;
+
+      if (pending >= BYTE_BITS) {
+        pending -= BYTE_BITS;
+        bytes[pos++] = (byte) (bits >> pending);
+      }
+    }
+
+    return ByteBuffer.wrap(bytes);
+  }
+
+  @Override
+  public ByteBuffer read(final JsonReader in) throws IOException {
+    ByteBuffer buffer = null;
+
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+    } else {
+      buffer = decode(in.nextString());
+    }
+
+    return buffer;
+  }
+
+  @Override
+  public void write(final JsonWriter out, final ByteBuffer value) throws IOException {
+    if (value == null) {
+      out.nullValue();
+    } else {
+      ByteBuffer src = value.duplicate();
+      byte[] bytes = new byte[src.remaining()];
+      src.get(bytes);
+      out.value(Base64.getEncoder().encodeToString(bytes));
+    }
+  }
+}
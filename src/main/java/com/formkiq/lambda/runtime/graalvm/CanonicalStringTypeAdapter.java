@@ -0,0 +1,47 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+
+/**
+ * {@link String} {@link TypeAdapter} that returns the {@link StringCanonicalizer} instance of short
+ * strings, so the strings repeated in the records of a batch event are only retained once.
+ */
+public class CanonicalStringTypeAdapter extends TypeAdapter<String> {
+
+  @Override
+  public String read(final JsonReader in) throws IOException {
+    JsonToken token = in.peek();
+    String value = null;
+
+    if (token == JsonToken.NULL) {
+      in.nextNull();
+    } else if (token == JsonToken.BOOLEAN) {
+      value = Boolean.toString(in.nextBoolean());
+    } else {
+      value = StringCanonicalizer.canonicalize(in.nextString());
+    }
+
+    return value;
+  }
+
+  @Override
+  public void write(final JsonWriter out, final String value) throws IOException {
+    out.value(value);
+  }
+}
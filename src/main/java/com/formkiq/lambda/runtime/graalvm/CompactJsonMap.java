@@ -0,0 +1,383 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Insertion ordered, open addressing {@link Map} of a JSON object, the input of handlers declared
+ * with a {@code Map<String, Object>} input.
+ *
+ * <p>Entries are kept in parallel arrays instead of a tree node per entry, keys are found with a
+ * scan of the key array in small maps and with a linear probing index in larger ones. JSON numbers
+ * are stored unboxed and only boxed when they are read, integral numbers as {@link Long} and others
+ * as {@link Double}.
+ */
+public final class CompactJsonMap extends AbstractMap<String, Object> {
+
+  /** Initial number of entries. */
+  private static final int INITIAL_CAPACITY = 4;
+
+  /** Max entries found by scanning the keys, larger maps use the key index. */
+  private static final int SCAN_CAPACITY = 8;
+
+  /** {@link #values} marker of a long stored in {@link #numbers}. */
+  private static final Object LONG = new Object();
+
+  /** {@link #values} marker of double bits stored in {@link #numbers}. */
+  private static final Object DOUBLE = new Object();
+
+  /** Keys, in insertion order. */
+  private String[] keys;
+
+  /** Values, or a number marker. */
+  private Object[] values;
+
+  /** Number values, null until a number is put. */
+  private long[] numbers;
+
+  /** Key index, entry index + 1, 0 for an empty slot, null while the keys are scanned. */
+  private int[] slots;
+
+  /** Number of entries. */
+  private int count;
+
+  /** constructor. */
+  public CompactJsonMap() {
+    this.keys = new String[INITIAL_CAPACITY];
+    this.values = new Object[INITIAL_CAPACITY];
+  }
+
+  @Override
+  public int size() {
+    return this.count;
+  }
+
+  @Override
+  public boolean containsKey(final Object key) {
+    return indexOf(key) >= 0;
+  }
+
+  @Override
+  public Object get(final Object key) {
+    int index = indexOf(key);
+    return index >= 0 ? valueAt(index) : null;
+  }
+
+  @Override
+  public Object put(final String key, final Object value) {
+    int index = entry(key);
+    Object previous = valueAt(index);
+    this.values[index] = value;
+    return previous;
+  }
+
+  /**
+   * Put a long value, boxed when it is read.
+   *
+   * @param key {@link String}
+   * @param value long
+   */
+  void putLong(final String key, final long value) {
+    putNumber(key, value, LONG);
+  }
+
+  /**
+   * Put a double value, boxed when it is read.
+   *
+   * @param key {@link String}
+   * @param value double
+   */
+  void putDouble(final String key, final double value) {
+    putNumber(key, Double.doubleToRawLongBits(value), DOUBLE);
+  }
+
+  /**
+   * Put a number value.
+   *
+   * @param key {@link String}
+   * @param bits long
+   * @param marker {@link #LONG} or {@link #DOUBLE}
+   */
+  private void putNumber(final String key, final long bits, final Object marker) {
+    int index = entry(key);
+    if (this.numbers == null) {
+      this.numbers = new long[this.keys.length];
+    }
+    this.numbers[index] = bits;
+    this.values[index] = marker;
+  }
+
+  @Override
+  public Object remove(final Object key) {
+    int index = indexOf(key);
+    Object previous = null;
+
+    if (index >= 0) {
+      previous = valueAt(index);
+      removeAt(index);
+    }
+
+    return previous;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(this.keys, 0, this.count, null);
+    Arrays.fill(this.values, 0, this.count, null);
+    this.count = 0;
+    reindex();
+  }
+
+  @Override
+  public Set<Map.Entry<String, Object>> entrySet() {
+    return new EntrySet();
+  }
+
+  /**
+   * Get the value of an entry, boxing numbers.
+   *
+   * @param index int
+   * @return {@link Object}
+   */
+  private Object valueAt(final int index) {
+    Object value = this.values[index];
+
+    if (value == LONG) {
+      value = Long.valueOf(this.numbers[index]);
+    } else if (value == DOUBLE) {
+      value = Double.valueOf(Double.longBitsToDouble(this.numbers[index]));
+    }
+
+    return value;
+  }
+
+  /**
+   * Find the index slot of a key.
+   *
+   * @param key {@link Object}
+   * @return int slot, holding 0 if the key is not in the map
+   */
+  private int slotOf(final Object key) {
+    int mask = this.slots.length - 1;
+    int hash = key.hashCode();
+    int slot = (hash ^ (hash >>> (Integer.SIZE / 2))) & mask;
+
+    while (this.slots[slot] != 0 && !key.equals(this.keys[this.slots[slot] - 1])) {
+      slot = (slot + 1) & mask;
+    }
+
+    return slot;
+  }
+
+  /**
+   * Get the entry index of a key.
+   *
+   * @param key {@link Object}
+   * @return int, -1 if the key is not in the map
+   */
+  private int indexOf(final Object key) {
+    int index = -1;
+
+    if (key != null && this.slots != null) {
+      index = this.slots[slotOf(key)] - 1;
+    } else if (key != null) {
+      for (int i = 0; i < this.count; i++) {
+        if (key.equals(this.keys[i])) {
+          index = i;
+          break;
+        }
+      }
+    }
+
+    return index;
+  }
+
+  /**
+   * Get the entry index of a key, adding the key if it is not in the map.
+   *
+   * @param key {@link String}
+   * @return int
+   */
+  private int entry(final String key) {
+    if (key == null) {
+      throw new NullPointerException("null key");
+    }
+
+    int index = indexOf(key);
+
+    if (index < 0) {
+      if (this.count == this.keys.length) {
+        grow();
+      }
+
+      index = this.count++;
+      this.keys[index] = key;
+      this.values[index] = null;
+
+      if (this.slots != null) {
+        this.slots[slotOf(key)] = index + 1;
+      }
+    }
+
+    return index;
+  }
+
+  /** Double the entries and rebuild the key index. */
+  private void grow() {
+    int capacity = this.keys.length * 2;
+    this.keys = Arrays.copyOf(this.keys, capacity);
+    this.values = Arrays.copyOf(this.values, capacity);
+    if (this.numbers != null) {
+      this.numbers = Arrays.copyOf(this.numbers, capacity);
+    }
+    reindex();
+  }
+
+  /** Rebuild the key index, maps of up to {@link #SCAN_CAPACITY} entries have none. */
+  private void reindex() {
+    this.slots = this.keys.length > SCAN_CAPACITY ? new int[this.keys.length * 2] : null;
+
+    if (this.slots != null) {
+      for (int i = 0; i < this.count; i++) {
+        this.slots[slotOf(this.keys[i])] = i + 1;
+      }
+    }
+  }
+
+  /**
+   * Remove an entry, keeping the insertion order of the others.
+   *
+   * @param index int
+   */
+  private void removeAt(final int index) {
+    int moved = this.count - index - 1;
+    System.arraycopy(this.keys, index + 1, this.keys, index, moved);
+    System.arraycopy(this.values, index + 1, this.values, index, moved);
+    if (this.numbers != null) {
+      System.arraycopy(this.numbers, index + 1, this.numbers, index, moved);
+    }
+
+    this.count--;
+    this.keys[this.count] = null;
+    this.values[this.count] = null;
+    reindex();
+  }
+
+  /** Entry {@link Set} view. */
+  private final class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+
+    @Override
+    public Iterator<Map.Entry<String, Object>> iterator() {
+      return new EntryIterator();
+    }
+
+    @Override
+    public int size() {
+      return CompactJsonMap.this.count;
+    }
+  }
+
+  /** Entry {@link Iterator}, in insertion order. */
+  private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+
+    /** Next entry index. */
+    private int next;
+
+    /** Last returned entry index, -1 if none. */
+    private int last = -1;
+
+    @Override
+    public boolean hasNext() {
+      return this.next < CompactJsonMap.this.count;
+    }
+
+    @Override
+    public Map.Entry<String, Object> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      this.last = this.next++;
+      return new Entry(this.last);
+    }
+
+    @Override
+    public void remove() {
+      if (this.last < 0) {
+        throw new IllegalStateException();
+      }
+
+      removeAt(this.last);
+      this.next = this.last;
+      this.last = -1;
+    }
+  }
+
+  /** {@link Map.Entry} of an entry index. */
+  private final class Entry implements Map.Entry<String, Object> {
+
+    /** Entry index. */
+    private final int index;
+
+    /**
+     * constructor.
+     *
+     * @param entryIndex int
+     */
+    Entry(final int entryIndex) {
+      this.index = entryIndex;
+    }
+
+    @Override
+    public String getKey() {
+      return CompactJsonMap.this.keys[this.index];
+    }
+
+    @Override
+    public Object getValue() {
+      return valueAt(this.index);
+    }
+
+    @Override
+    public Object setValue(final Object value) {
+      Object previous = valueAt(this.index);
+      CompactJsonMap.this.values[this.index] = value;
+      return previous;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      return o instanceof Map.Entry<?, ?> e
+          && getKey().equals(e.getKey())
+          && Objects.equals(getValue(), e.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return getKey().hashCode() ^ Objects.hashCode(getValue());
+    }
+
+    @Override
+    public String toString() {
+      return getKey() + "=" + getValue();
+    }
+  }
+}
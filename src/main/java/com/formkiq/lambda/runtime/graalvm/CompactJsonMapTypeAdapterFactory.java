@@ -0,0 +1,184 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link TypeAdapterFactory} of {@link CompactJsonMap}. Nested objects are read as {@link
+ * CompactJsonMap}, arrays as {@link ArrayList} and numbers as {@link Long} when integral, otherwise
+ * {@link Double}.
+ */
+public class CompactJsonMapTypeAdapterFactory implements TypeAdapterFactory {
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> TypeAdapter<T> create(final Gson gson, final TypeToken<T> type) {
+    return CompactJsonMap.class.equals(type.getRawType())
+        ? (TypeAdapter<T>) new MapAdapter(gson.getAdapter(Object.class))
+        : null;
+  }
+
+  /**
+   * Read a JSON number, as a {@link Long} when integral and in range, otherwise a {@link Double}.
+   *
+   * @param s {@link String}
+   * @return {@link Number}
+   */
+  static Number parseNumber(final String s) {
+    Number number = null;
+
+    if (isIntegral(s)) {
+      try {
+        number = Long.valueOf(s);
+      } catch (NumberFormatException e) {
+        number = null;
+      }
+    }
+
+    return number != null ? number : Double.valueOf(s);
+  }
+
+  /**
+   * Is a JSON number literal integral.
+   *
+   * @param s {@link String}
+   * @return boolean
+   */
+  private static boolean isIntegral(final String s) {
+    return s.indexOf('.') < 0 && s.indexOf('e') < 0 && s.indexOf('E') < 0;
+  }
+
+  /** {@link TypeAdapter} of {@link CompactJsonMap}. */
+  private static final class MapAdapter extends TypeAdapter<CompactJsonMap> {
+
+    /** {@link Object} {@link TypeAdapter}, writes values by their runtime type. */
+    private final TypeAdapter<Object> objectAdapter;
+
+    /**
+     * constructor.
+     *
+     * @param adapter {@link TypeAdapter}
+     */
+    MapAdapter(final TypeAdapter<Object> adapter) {
+      this.objectAdapter = adapter;
+    }
+
+    @Override
+    public CompactJsonMap read(final JsonReader in) throws IOException {
+      CompactJsonMap map = null;
+
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+      } else {
+        map = readMap(in);
+      }
+
+      return map;
+    }
+
+    /**
+     * Read a JSON object.
+     *
+     * @param in {@link JsonReader}
+     * @return {@link CompactJsonMap}
+     * @throws IOException IOException
+     */
+    private CompactJsonMap readMap(final JsonReader in) throws IOException {
+      CompactJsonMap map = new CompactJsonMap();
+
+      in.beginObject();
+      while (in.hasNext()) {
+        String name = StringCanonicalizer.canonicalize(in.nextName());
+
+        if (in.peek() == JsonToken.NUMBER) {
+          Number number = parseNumber(in.nextString());
+          if (number instanceof Long l) {
+            map.putLong(name, l.longValue());
+          } else {
+            map.putDouble(name, number.doubleValue());
+          }
+        } else {
+          map.put(name, readValue(in));
+        }
+      }
+      in.endObject();
+
+      return map;
+    }
+
+    /**
+     * Read a JSON array.
+     *
+     * @param in {@link JsonReader}
+     * @return {@link List}
+     * @throws IOException IOException
+     */
+    private List<Object> readList(final JsonReader in) throws IOException {
+      List<Object> list = new ArrayList<>();
+
+      in.beginArray();
+      while (in.hasNext()) {
+        list.add(readValue(in));
+      }
+      in.endArray();
+
+      return list;
+    }
+
+    /**
+     * Read a JSON value.
+     *
+     * @param in {@link JsonReader}
+     * @return {@link Object}
+     * @throws IOException IOException
+     */
+    private Object readValue(final JsonReader in) throws IOException {
+      return switch (in.peek()) {
+        case BEGIN_OBJECT -> readMap(in);
+        case BEGIN_ARRAY -> readList(in);
+        case NUMBER -> parseNumber(in.nextString());
+        case BOOLEAN -> Boolean.valueOf(in.nextBoolean());
+        case NULL -> {
+          in.nextNull();
+          yield null;
+        }
+        default -> StringCanonicalizer.canonicalize(in.nextString());
+      };
+    }
+
+    @Override
+    public void write(final JsonWriter out, final CompactJsonMap value) throws IOException {
+      if (value == null) {
+        out.nullValue();
+      } else {
+        out.beginObject();
+        for (Map.Entry<String, Object> e : value.entrySet()) {
+          out.name(e.getKey());
+          this.objectAdapter.write(out, e.getValue());
+        }
+        out.endObject();
+      }
+    }
+  }
+}
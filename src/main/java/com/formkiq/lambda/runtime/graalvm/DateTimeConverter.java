@@ -14,20 +14,28 @@ import org.joda.time.format.DateTimeFormatter;
 
 /** {@link JsonSerializer} for {@link DateTime}. */
 public class DateTimeConverter implements JsonSerializer<DateTime>, JsonDeserializer<DateTime> {
-  /** {@link DateTimeFormatter}. */
-  private static final DateTimeFormatter FORMATTER =
-      DateTimeFormat.forPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+
+  /**
+   * Holds the {@link DateTimeFormatter}, initialized at run time in a native image so Joda-Time
+   * resolves the default time zone of the Lambda environment, not of the image build.
+   */
+  private static final class Formatter {
+
+    /** {@link DateTimeFormatter}. */
+    private static final DateTimeFormatter FORMATTER =
+        DateTimeFormat.forPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+  }
 
   @Override
   public JsonElement serialize(
       final DateTime src, final Type typeOfSrc, final JsonSerializationContext context) {
-    return new JsonPrimitive(FORMATTER.print(src));
+    return new JsonPrimitive(Formatter.FORMATTER.print(src));
   }
 
   @Override
   public DateTime deserialize(
       final JsonElement json, final Type typeOfT, final JsonDeserializationContext context)
       throws JsonParseException {
-    return FORMATTER.parseDateTime(json.getAsString());
+    return Formatter.FORMATTER.parseDateTime(json.getAsString());
   }
 }
@@ -0,0 +1,221 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
+import com.amazonaws.services.lambda.runtime.events.DynamodbEvent.DynamodbStreamRecord;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.Identity;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Streaming {@link com.google.gson.TypeAdapter} of {@link DynamodbEvent}. As with the reflective
+ * adapter, the 'ApproximateCreationDateTime' is skipped.
+ */
+class DynamodbEventTypeAdapter extends AwsEventTypeAdapter<DynamodbEvent> {
+
+  /**
+   * constructor.
+   *
+   * @param gson {@link Gson}
+   * @param factory {@link TypeAdapterFactory}
+   */
+  DynamodbEventTypeAdapter(final Gson gson, final TypeAdapterFactory factory) {
+    super(gson, factory, TypeToken.get(DynamodbEvent.class));
+  }
+
+  @Override
+  public DynamodbEvent read(final JsonReader in) throws IOException {
+    return nextObject(in, DynamodbEvent::new, DynamodbEventTypeAdapter::readEventField);
+  }
+
+  /**
+   * Read a {@link DynamodbEvent} field.
+   *
+   * @param in {@link JsonReader}
+   * @param name {@link String}
+   * @param event {@link DynamodbEvent}
+   * @throws IOException IOException
+   */
+  private static void readEventField(
+      final JsonReader in, final String name, final DynamodbEvent event) throws IOException {
+    switch (name) {
+      case "records" -> event.setRecords(nextList(in, DynamodbEventTypeAdapter::nextRecord));
+      default -> in.skipValue();
+    }
+  }
+
+  /**
+   * Read a {@link DynamodbStreamRecord}.
+   *
+   * @param in {@link JsonReader}
+   * @return {@link DynamodbStreamRecord}
+   * @throws IOException IOException
+   */
+  private static DynamodbStreamRecord nextRecord(final JsonReader in) throws IOException {
+    return nextObject(in, DynamodbStreamRecord::new, DynamodbEventTypeAdapter::readRecordField);
+  }
+
+  /**
+   * Read a {@link DynamodbStreamRecord} field.
+   *
+   * @param in {@link JsonReader}
+   * @param name {@link String}
+   * @param record {@link DynamodbStreamRecord}
+   * @throws IOException IOException
+   */
+  private static void readRecordField(
+      final JsonReader in, final String name, final DynamodbStreamRecord record)
+      throws IOException {
+    switch (name) {
+      case "eventid" -> record.setEventID(nextString(in));
+      case "eventname" -> record.setEventName(nextString(in));
+      case "eventversion" -> record.setEventVersion(nextString(in));
+      case "eventsource" -> record.setEventSource(nextString(in));
+      case "awsregion" -> record.setAwsRegion(nextString(in));
+      case "eventsourcearn" -> record.setEventSourceARN(nextString(in));
+      case "dynamodb" -> record.setDynamodb(nextStreamRecord(in));
+      case "useridentity" -> record.setUserIdentity(nextIdentity(in));
+      default -> in.skipValue();
+    }
+  }
+
+  /**
+   * Read a {@link StreamRecord}.
+   *
+   * @param in {@link JsonReader}
+   * @return {@link StreamRecord}
+   * @throws IOException IOException
+   */
+  private static StreamRecord nextStreamRecord(final JsonReader in) throws IOException {
+    return nextObject(in, StreamRecord::new, DynamodbEventTypeAdapter::readStreamRecordField);
+  }
+
+  /**
+   * Read a {@link StreamRecord} field.
+   *
+   * @param in {@link JsonReader}
+   * @param name {@link String}
+   * @param record {@link StreamRecord}
+   * @throws IOException IOException
+   */
+  private static void readStreamRecordField(
+      final JsonReader in, final String name, final StreamRecord record) throws IOException {
+    switch (name) {
+      case "keys" -> record.setKeys(nextItem(in));
+      case "newimage" -> record.setNewImage(nextItem(in));
+      case "oldimage" -> record.setOldImage(nextItem(in));
+      case "sequencenumber" -> record.setSequenceNumber(nextString(in));
+      case "sizebytes" -> record.setSizeBytes(nextLong(in));
+      case "streamviewtype" -> record.setStreamViewType(nextString(in));
+      default -> in.skipValue();
+    }
+  }
+
+  /**
+   * Read a {@link Identity}.
+   *
+   * @param in {@link JsonReader}
+   * @return {@link Identity}
+   * @throws IOException IOException
+   */
+  private static Identity nextIdentity(final JsonReader in) throws IOException {
+    return nextObject(in, Identity::new, DynamodbEventTypeAdapter::readIdentityField);
+  }
+
+  /**
+   * Read a {@link Identity} field.
+   *
+   * @param in {@link JsonReader}
+   * @param name {@link String}
+   * @param identity {@link Identity}
+   * @throws IOException IOException
+   */
+  private static void readIdentityField(
+      final JsonReader in, final String name, final Identity identity) throws IOException {
+    switch (name) {
+      case "principalid" -> identity.setPrincipalId(nextString(in));
+      case "type" -> identity.setType(nextString(in));
+      default -> in.skipValue();
+    }
+  }
+
+  /**
+   * Read a DynamoDB item.
+   *
+   * @param in {@link JsonReader}
+   * @return {@link Map}
+   * @throws IOException IOException
+   */
+  private static Map<String, AttributeValue> nextItem(final JsonReader in)
+      throws IOException {
+    return nextMap(in, DynamodbEventTypeAdapter::nextAttributeValue);
+  }
+
+  /**
+   * Read a {@link AttributeValue}.
+   *
+   * @param in {@link JsonReader}
+   * @return {@link AttributeValue}
+   * @throws IOException IOException
+   */
+  private static AttributeValue nextAttributeValue(final JsonReader in) throws IOException {
+    return nextObject(in, AttributeValue::new, DynamodbEventTypeAdapter::readAttributeField);
+  }
+
+  /**
+   * Read a {@link AttributeValue} field.
+   *
+   * @param in {@link JsonReader}
+   * @param name {@link String}
+   * @param value {@link AttributeValue}
+   * @throws IOException IOException
+   */
+  private static void readAttributeField(
+      final JsonReader in, final String name, final AttributeValue value) throws IOException {
+    switch (name) {
+      case "s" -> value.setS(nextString(in));
+      case "n" -> value.setN(nextString(in));
+      case "b" -> value.setB(nextByteBuffer(in));
+      case "bool" -> value.setBOOL(nextBoolean(in));
+      case "null" -> value.setNULL(nextBoolean(in));
+      case "m" -> value.setM(nextItem(in));
+      case "l" -> value.setL(nextList(in, DynamodbEventTypeAdapter::nextAttributeValue));
+      default -> readAttributeSetField(in, name, value);
+    }
+  }
+
+  /**
+   * Read a {@link AttributeValue} set field.
+   *
+   * @param in {@link JsonReader}
+   * @param name {@link String}
+   * @param value {@link AttributeValue}
+   * @throws IOException IOException
+   */
+  private static void readAttributeSetField(
+      final JsonReader in, final String name, final AttributeValue value) throws IOException {
+    switch (name) {
+      case "ss" -> value.setSS(nextList(in, AwsEventTypeAdapter::nextString));
+      case "ns" -> value.setNS(nextList(in, AwsEventTypeAdapter::nextString));
+      case "bs" -> value.setBS(nextList(in, AwsEventTypeAdapter::nextByteBuffer));
+      default -> in.skipValue();
+    }
+  }
+}
@@ -0,0 +1,235 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+/**
+ * DynamoDB Streams record of a {@link DynamodbStreamEvent}, with the item images decoded into the
+ * item type.
+ *
+ * @param <T> Item type
+ */
+public class DynamodbImageRecord<T> {
+
+  /** Event Id. */
+  private String eventId;
+
+  /** Event Name, 'INSERT', 'MODIFY' or 'REMOVE'. */
+  private String eventName;
+
+  /** Event Source Arn. */
+  private String eventSourceArn;
+
+  /** Aws Region. */
+  private String awsRegion;
+
+  /** Item key attributes. */
+  private T keys;
+
+  /** Item after the change, null for 'REMOVE' or when not in the stream view. */
+  private T newImage;
+
+  /** Item before the change, null for 'INSERT' or when not in the stream view. */
+  private T oldImage;
+
+  /** Sequence Number. */
+  private String sequenceNumber;
+
+  /** Size Bytes. */
+  private Long sizeBytes;
+
+  /** Stream View Type. */
+  private String streamViewType;
+
+  /** constructor. */
+  public DynamodbImageRecord() {}
+
+  /**
+   * Get Event Id.
+   *
+   * @return {@link String}
+   */
+  public String getEventId() {
+    return this.eventId;
+  }
+
+  /**
+   * Set Event Id.
+   *
+   * @param id {@link String}
+   */
+  public void setEventId(final String id) {
+    this.eventId = id;
+  }
+
+  /**
+   * Get Event Name.
+   *
+   * @return {@link String}
+   */
+  public String getEventName() {
+    return this.eventName;
+  }
+
+  /**
+   * Set Event Name.
+   *
+   * @param name {@link String}
+   */
+  public void setEventName(final String name) {
+    this.eventName = name;
+  }
+
+  /**
+   * Get Event Source Arn.
+   *
+   * @return {@link String}
+   */
+  public String getEventSourceArn() {
+    return this.eventSourceArn;
+  }
+
+  /**
+   * Set Event Source Arn.
+   *
+   * @param arn {@link String}
+   */
+  public void setEventSourceArn(final String arn) {
+    this.eventSourceArn = arn;
+  }
+
+  /**
+   * Get Aws Region.
+   *
+   * @return {@link String}
+   */
+  public String getAwsRegion() {
+    return this.awsRegion;
+  }
+
+  /**
+   * Set Aws Region.
+   *
+   * @param region {@link String}
+   */
+  public void setAwsRegion(final String region) {
+    this.awsRegion = region;
+  }
+
+  /**
+   * Get Item key attributes.
+   *
+   * @return T
+   */
+  public T getKeys() {
+    return this.keys;
+  }
+
+  /**
+   * Set Item key attributes.
+   *
+   * @param item T
+   */
+  public void setKeys(final T item) {
+    this.keys = item;
+  }
+
+  /**
+   * Get Item after the change.
+   *
+   * @return T
+   */
+  public T getNewImage() {
+    return this.newImage;
+  }
+
+  /**
+   * Set Item after the change.
+   *
+   * @param item T
+   */
+  public void setNewImage(final T item) {
+    this.newImage = item;
+  }
+
+  /**
+   * Get Item before the change.
+   *
+   * @return T
+   */
+  public T getOldImage() {
+    return this.oldImage;
+  }
+
+  /**
+   * Set Item before the change.
+   *
+   * @param item T
+   */
+  public void setOldImage(final T item) {
+    this.oldImage = item;
+  }
+
+  /**
+   * Get Sequence Number.
+   *
+   * @return {@link String}
+   */
+  public String getSequenceNumber() {
+    return this.sequenceNumber;
+  }
+
+  /**
+   * Set Sequence Number.
+   *
+   * @param number {@link String}
+   */
+  public void setSequenceNumber(final String number) {
+    this.sequenceNumber = number;
+  }
+
+  /**
+   * Get Size Bytes.
+   *
+   * @return {@link Long}
+   */
+  public Long getSizeBytes() {
+    return this.sizeBytes;
+  }
+
+  /**
+   * Set Size Bytes.
+   *
+   * @param bytes {@link Long}
+   */
+  public void setSizeBytes(final Long bytes) {
+    this.sizeBytes = bytes;
+  }
+
+  /**
+   * Get Stream View Type.
+   *
+   * @return {@link String}
+   */
+  public String getStreamViewType() {
+    return this.streamViewType;
+  }
+
+  /**
+   * Set Stream View Type.
+   *
+   * @param type {@link String}
+   */
+  public void setStreamViewType(final String type) {
+    this.streamViewType = type;
+  }
+}
@@ -0,0 +1,233 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * {@link Reader} of a DynamoDB JSON item ('Keys', 'NewImage', 'OldImage') as plain JSON. The
+ * attribute type objects are unwrapped token by token while the item is read, so a Gson {@link
+ * com.google.gson.TypeAdapter} decodes the item straight into its type in one streaming pass,
+ * without an AttributeValue graph.
+ *
+ * <p>'S' and 'B' attributes are written as strings ('B' stays base64, see {@link
+ * ByteBufferTypeAdapter}), 'N' as numbers, 'BOOL' as booleans, 'NULL' as null, 'M' as objects and
+ * 'L', 'SS', 'NS' and 'BS' as arrays.
+ */
+final class DynamodbJsonReader extends Reader {
+
+  /** Map of attributes. */
+  private static final int MAP = 0;
+
+  /** List of attributes. */
+  private static final int LIST = 1;
+
+  /** String or binary set. */
+  private static final int STRING_SET = 2;
+
+  /** Number set. */
+  private static final int NUMBER_SET = 3;
+
+  /** DynamoDB JSON {@link JsonReader}. */
+  private final JsonReader in;
+
+  /** Plain JSON not read yet. */
+  private final PendingChars pending = new PendingChars();
+
+  /** Plain JSON {@link JsonWriter}. */
+  private final JsonWriter out = new JsonWriter(this.pending);
+
+  /** Open containers, the item itself is the first {@link #MAP}. */
+  private final Deque<Integer> stack = new ArrayDeque<>();
+
+  /** Is the whole item read. */
+  private boolean done;
+
+  /**
+   * constructor.
+   *
+   * @param reader {@link JsonReader} positioned at the item object
+   */
+  DynamodbJsonReader(final JsonReader reader) {
+    this.in = reader;
+  }
+
+  @Override
+  public int read(final char[] cbuf, final int off, final int len) throws IOException {
+    while (this.pending.isEmpty() && !this.done) {
+      next();
+    }
+
+    return this.pending.isEmpty() ? -1 : this.pending.drain(cbuf, off, len);
+  }
+
+  /**
+   * Transcode the next token.
+   *
+   * @throws IOException IOException
+   */
+  private void next() throws IOException {
+    Integer container = this.stack.peek();
+
+    if (container == null) {
+      this.in.beginObject();
+      this.out.beginObject();
+      this.stack.push(MAP);
+    } else if (!this.in.hasNext()) {
+      endContainer(container);
+    } else if (container == MAP) {
+      this.out.name(this.in.nextName());
+      nextAttribute();
+    } else if (container == LIST) {
+      nextAttribute();
+    } else if (container == NUMBER_SET) {
+      this.out.jsonValue(this.in.nextString());
+    } else {
+      this.out.value(this.in.nextString());
+    }
+  }
+
+  /**
+   * End a map, list or set, and its attribute type object.
+   *
+   * @param container int
+   * @throws IOException IOException
+   */
+  private void endContainer(final int container) throws IOException {
+    if (container == MAP) {
+      this.in.endObject();
+      this.out.endObject();
+    } else {
+      this.in.endArray();
+      this.out.endArray();
+    }
+
+    this.stack.pop();
+
+    if (this.stack.isEmpty()) {
+      this.out.flush();
+      this.done = true;
+    } else {
+      this.in.endObject();
+    }
+  }
+
+  /**
+   * Transcode an attribute, a primitive is written whole with its attribute type object, a map,
+   * list or set is opened.
+   *
+   * @throws IOException IOException
+   */
+  private void nextAttribute() throws IOException {
+    this.in.beginObject();
+    String type = this.in.nextName();
+
+    boolean primitive = true;
+
+    switch (type) {
+      case "S", "B" -> this.out.value(this.in.nextString());
+      case "N" -> this.out.jsonValue(this.in.nextString());
+      case "BOOL" -> this.out.value(this.in.nextBoolean());
+      case "NULL" -> {
+        this.in.skipValue();
+        this.out.nullValue();
+      }
+      default -> {
+        beginContainer(type);
+        primitive = false;
+      }
+    }
+
+    if (primitive) {
+      this.in.endObject();
+    }
+  }
+
+  /**
+   * Begin a map, list or set attribute.
+   *
+   * @param type {@link String}
+   * @throws IOException IOException
+   */
+  private void beginContainer(final String type) throws IOException {
+    int container =
+        switch (type) {
+          case "M" -> MAP;
+          case "L" -> LIST;
+          case "SS", "BS" -> STRING_SET;
+          case "NS" -> NUMBER_SET;
+          default -> throw new MalformedJsonException(
+              "unknown DynamoDB attribute type '" + type + "' at " + this.in.getPath());
+        };
+
+    if (container == MAP) {
+      this.in.beginObject();
+      this.out.beginObject();
+    } else {
+      this.in.beginArray();
+      this.out.beginArray();
+    }
+
+    this.stack.push(container);
+  }
+
+  @Override
+  public void close() {
+    this.stack.clear();
+    this.done = true;
+  }
+
+  /** Plain JSON chars written by the {@link JsonWriter} and not read yet. */
+  private static final class PendingChars extends CharArrayWriter {
+
+    /** Read position. */
+    private int pos;
+
+    /**
+     * Is every written char read.
+     *
+     * @return boolean
+     */
+    boolean isEmpty() {
+      return this.pos >= this.count;
+    }
+
+    /**
+     * Read written chars.
+     *
+     * @param cbuf char[]
+     * @param off int
+     * @param len int
+     * @return int
+     */
+    int drain(final char[] cbuf, final int off, final int len) {
+      int n = Math.min(len, this.count - this.pos);
+      System.arraycopy(this.buf, this.pos, cbuf, off, n);
+      this.pos += n;
+
+      if (this.pos == this.count) {
+        this.pos = 0;
+        reset();
+      }
+
+      return n;
+    }
+  }
+}
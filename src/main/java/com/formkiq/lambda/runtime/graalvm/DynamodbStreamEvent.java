@@ -0,0 +1,57 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import java.util.List;
+
+/**
+ * DynamoDB Streams event whose record 'Keys', 'NewImage' and 'OldImage' are decoded straight from
+ * DynamoDB JSON into the item type, see {@link DynamodbStreamHandler}.
+ *
+ * @param <T> Item type
+ */
+public class DynamodbStreamEvent<T> {
+
+  /** Records. */
+  private List<DynamodbImageRecord<T>> records;
+
+  /** constructor. */
+  public DynamodbStreamEvent() {}
+
+  /**
+   * constructor.
+   *
+   * @param eventRecords {@link List}
+   */
+  public DynamodbStreamEvent(final List<DynamodbImageRecord<T>> eventRecords) {
+    this.records = eventRecords;
+  }
+
+  /**
+   * Get Records.
+   *
+   * @return {@link List}
+   */
+  public List<DynamodbImageRecord<T>> getRecords() {
+    return this.records;
+  }
+
+  /**
+   * Set Records.
+   *
+   * @param eventRecords {@link List}
+   */
+  public void setRecords(final List<DynamodbImageRecord<T>> eventRecords) {
+    this.records = eventRecords;
+  }
+}
@@ -0,0 +1,231 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link TypeAdapterFactory} of {@link DynamodbStreamEvent}, the item images are read through a
+ * {@link DynamodbJsonReader} by the item type's {@link TypeAdapter}.
+ */
+public class DynamodbStreamEventTypeAdapterFactory implements TypeAdapterFactory {
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> TypeAdapter<T> create(final Gson gson, final TypeToken<T> type) {
+    TypeAdapter<T> adapter = null;
+
+    if (DynamodbStreamEvent.class.equals(type.getRawType())) {
+      Type itemType =
+          type.getType() instanceof ParameterizedType p
+              ? p.getActualTypeArguments()[0]
+              : Object.class;
+      TypeToken<DynamodbStreamEvent<Object>> eventType =
+          (TypeToken<DynamodbStreamEvent<Object>>) type;
+      TypeAdapter<Object> itemAdapter =
+          (TypeAdapter<Object>) gson.getAdapter(TypeToken.get(itemType));
+      adapter = (TypeAdapter<T>) new EventAdapter<>(gson, this, eventType, itemAdapter);
+    }
+
+    return adapter;
+  }
+
+  /**
+   * {@link TypeAdapter} of {@link DynamodbStreamEvent}. Events are written with {@link Gson}'s
+   * reflective {@link TypeAdapter}, so the item images are written as plain JSON.
+   *
+   * @param <T> Item type
+   */
+  private static final class EventAdapter<T> extends TypeAdapter<DynamodbStreamEvent<T>> {
+
+    /** {@link Gson}. */
+    private final Gson gson;
+
+    /** {@link TypeAdapterFactory} that created the adapter. */
+    private final TypeAdapterFactory factory;
+
+    /** Event {@link TypeToken}. */
+    private final TypeToken<DynamodbStreamEvent<T>> type;
+
+    /** Item {@link TypeAdapter}. */
+    private final TypeAdapter<T> itemAdapter;
+
+    /** Reflective {@link TypeAdapter} used to write events, created on first use. */
+    private TypeAdapter<DynamodbStreamEvent<T>> delegate;
+
+    /**
+     * constructor.
+     *
+     * @param gsonProvider {@link Gson}
+     * @param adapterFactory {@link TypeAdapterFactory}
+     * @param eventType {@link TypeToken}
+     * @param adapter {@link TypeAdapter}
+     */
+    EventAdapter(
+        final Gson gsonProvider,
+        final TypeAdapterFactory adapterFactory,
+        final TypeToken<DynamodbStreamEvent<T>> eventType,
+        final TypeAdapter<T> adapter) {
+      this.gson = gsonProvider;
+      this.factory = adapterFactory;
+      this.type = eventType;
+      this.itemAdapter = adapter;
+    }
+
+    @Override
+    public DynamodbStreamEvent<T> read(final JsonReader in) throws IOException {
+      DynamodbStreamEvent<T> event = null;
+
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+      } else {
+        event = new DynamodbStreamEvent<>(new ArrayList<>());
+
+        in.beginObject();
+        while (in.hasNext()) {
+          if ("Records".equals(in.nextName())) {
+            readRecords(in, event.getRecords());
+          } else {
+            in.skipValue();
+          }
+        }
+        in.endObject();
+      }
+
+      return event;
+    }
+
+    /**
+     * Read the 'Records' array.
+     *
+     * @param in {@link JsonReader}
+     * @param records {@link List}
+     * @throws IOException IOException
+     */
+    private void readRecords(final JsonReader in, final List<DynamodbImageRecord<T>> records)
+        throws IOException {
+      in.beginArray();
+      while (in.hasNext()) {
+        DynamodbImageRecord<T> record = new DynamodbImageRecord<>();
+
+        in.beginObject();
+        while (in.hasNext()) {
+          readRecordField(in, in.nextName(), record);
+        }
+        in.endObject();
+
+        records.add(record);
+      }
+      in.endArray();
+    }
+
+    /**
+     * Read a record field.
+     *
+     * @param in {@link JsonReader}
+     * @param name {@link String}
+     * @param record {@link DynamodbImageRecord}
+     * @throws IOException IOException
+     */
+    private void readRecordField(
+        final JsonReader in, final String name, final DynamodbImageRecord<T> record)
+        throws IOException {
+      switch (name) {
+        case "eventID" -> record.setEventId(in.nextString());
+        case "eventName" -> record.setEventName(nextCanonical(in));
+        case "eventSourceARN" -> record.setEventSourceArn(nextCanonical(in));
+        case "awsRegion" -> record.setAwsRegion(nextCanonical(in));
+        case "dynamodb" -> {
+          in.beginObject();
+          while (in.hasNext()) {
+            readStreamRecordField(in, in.nextName(), record);
+          }
+          in.endObject();
+        }
+        default -> in.skipValue();
+      }
+    }
+
+    /**
+     * Read a string that repeats across records, such as the event name or region.
+     *
+     * @param in {@link JsonReader}
+     * @return {@link String}
+     * @throws IOException IOException
+     */
+    private static String nextCanonical(final JsonReader in) throws IOException {
+      return StringCanonicalizer.canonicalize(in.nextString());
+    }
+
+    /**
+     * Read a 'dynamodb' stream record field.
+     *
+     * @param in {@link JsonReader}
+     * @param name {@link String}
+     * @param record {@link DynamodbImageRecord}
+     * @throws IOException IOException
+     */
+    private void readStreamRecordField(
+        final JsonReader in, final String name, final DynamodbImageRecord<T> record)
+        throws IOException {
+      switch (name) {
+        case "Keys" -> record.setKeys(readItem(in));
+        case "NewImage" -> record.setNewImage(readItem(in));
+        case "OldImage" -> record.setOldImage(readItem(in));
+        case "SequenceNumber" -> record.setSequenceNumber(in.nextString());
+        case "SizeBytes" -> record.setSizeBytes(in.nextLong());
+        case "StreamViewType" -> record.setStreamViewType(nextCanonical(in));
+        default -> in.skipValue();
+      }
+    }
+
+    /**
+     * Read a DynamoDB JSON item.
+     *
+     * @param in {@link JsonReader}
+     * @return T
+     * @throws IOException IOException
+     */
+    private T readItem(final JsonReader in) throws IOException {
+      T item = null;
+
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+      } else {
+        item = this.itemAdapter.read(new JsonReader(new DynamodbJsonReader(in)));
+      }
+
+      return item;
+    }
+
+    @Override
+    public void write(final JsonWriter out, final DynamodbStreamEvent<T> value)
+        throws IOException {
+      if (this.delegate == null) {
+        this.delegate = this.gson.getDelegateAdapter(this.factory, this.type);
+      }
+      this.delegate.write(out, value);
+    }
+  }
+}
@@ -0,0 +1,33 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+
+/**
+ * {@link RequestHandler} of DynamoDB Streams events, whose item images are decoded straight from
+ * DynamoDB JSON into the item type in one streaming pass, instead of into {@code
+ * Map<String, AttributeValue>}.
+ *
+ * <pre>
+ * public class MyHandler implements DynamodbStreamHandler&lt;Order, Void&gt; {
+ *   public Void handleRequest(final DynamodbStreamEvent&lt;Order&gt; event, final Context c) {
+ *     ...
+ *   }
+ * }
+ * </pre>
+ *
+ * @param <T> Item type
+ * @param <O> Output type
+ */
+public interface DynamodbStreamHandler<T, O> extends RequestHandler<DynamodbStreamEvent<T>, O> {}
@@ -0,0 +1,190 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Publishes {@link InvocationMetrics} as CloudWatch Embedded Metric Format (EMF) log lines. Each
+ * invocation's line is written through the {@link LambdaLogger} once its last phase, the
+ * housekeeping collection, is measured, and before the next long poll is sent, as the execution
+ * environment may be frozen or shut down while waiting for the next event. With pipelining, the
+ * poll is therefore never written behind the response while metrics are enabled.
+ */
+public class EmfMetricsPublisher {
+
+  /** Nanoseconds per microsecond. */
+  private static final long NANOS_PER_MICRO = 1000L;
+
+  /** Default Metrics Namespace. */
+  private static final String DEFAULT_NAMESPACE = "LambdaRuntimeGraalvm";
+
+  /** EMF line, reused between invocations. */
+  private final StringBuilder line = new StringBuilder();
+
+  /** EMF '_aws' metric directive suffix for warm invocations. */
+  private final String warmDirective;
+
+  /** EMF '_aws' metric directive suffix for cold start invocations. */
+  private final String coldDirective;
+
+  /** Function Name dimension value, null if not set. */
+  private final String functionName;
+
+  /**
+   * constructor.
+   *
+   * @param env {@link Map}
+   */
+  public EmfMetricsPublisher(final Map<String, String> env) {
+    String namespace = env.getOrDefault("LAMBDA_RUNTIME_METRICS_NAMESPACE", DEFAULT_NAMESPACE);
+    this.functionName = env.get("AWS_LAMBDA_FUNCTION_NAME");
+    this.warmDirective = buildDirective(namespace, false);
+    this.coldDirective = buildDirective(namespace, true);
+  }
+
+  /**
+   * Is metrics publishing enabled.
+   *
+   * @param env {@link Map}
+   * @return boolean
+   */
+  public static boolean isEnabled(final Map<String, String> env) {
+    return "true".equals(env.get("LAMBDA_RUNTIME_METRICS"));
+  }
+
+  /**
+   * Build the EMF metric directive, everything in '_aws' after the Timestamp.
+   *
+   * @param namespace {@link String}
+   * @param coldStart boolean
+   * @return {@link String}
+   */
+  private String buildDirective(final String namespace, final boolean coldStart) {
+    StringBuilder sb = new StringBuilder();
+    sb.append(",\"CloudWatchMetrics\":[{\"Namespace\":\"").append(escape(namespace));
+    sb.append("\",\"Dimensions\":[[");
+    if (this.functionName != null) {
+      sb.append("\"FunctionName\"");
+    }
+    sb.append("]],\"Metrics\":[");
+
+    for (InvocationPhase phase : InvocationPhase.values()) {
+      appendDefinition(sb, phase.getMetricName(), "Microseconds").append(',');
+    }
+
+    appendDefinition(sb, "RuntimeOverhead", "Microseconds").append(',');
+    appendDefinition(sb, "RequestBytes", "Bytes").append(',');
+    appendDefinition(sb, "ResponseBytes", "Bytes").append(',');
+    appendDefinition(sb, "AllocatedBytes", "Bytes").append(',');
+    appendDefinition(sb, "ColdStart", "Count");
+
+    if (coldStart) {
+      sb.append(',');
+      appendDefinition(sb, "InitDuration", "Microseconds").append(',');
+      appendDefinition(sb, "ConstructDuration", "Microseconds");
+    }
+
+    sb.append("]}]}");
+    return sb.toString();
+  }
+
+  /**
+   * Append EMF metric definition.
+   *
+   * @param sb {@link StringBuilder}
+   * @param name {@link String}
+   * @param unit {@link String}
+   * @return {@link StringBuilder}
+   */
+  private static StringBuilder appendDefinition(
+      final StringBuilder sb, final String name, final String unit) {
+    sb.append("{\"Name\":\"").append(name);
+    return sb.append("\",\"Unit\":\"").append(unit).append("\"}");
+  }
+
+  /**
+   * Escape JSON string value.
+   *
+   * @param s {@link String}
+   * @return {@link String}
+   */
+  private static String escape(final String s) {
+    return s.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+
+  /**
+   * Write the {@link InvocationMetrics} EMF line.
+   *
+   * @param metrics {@link InvocationMetrics}
+   * @param logger {@link LambdaLogger}
+   */
+  public void publish(final InvocationMetrics metrics, final LambdaLogger logger) {
+    if (metrics.isEnabled()) {
+      this.line.setLength(0);
+      append(metrics);
+      logger.log(this.line.toString().getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * Append EMF line.
+   *
+   * @param metrics {@link InvocationMetrics}
+   */
+  private void append(final InvocationMetrics metrics) {
+    StringBuilder sb = this.line;
+    sb.append("{\"_aws\":{\"Timestamp\":").append(System.currentTimeMillis());
+    sb.append(metrics.isColdStart() ? this.coldDirective : this.warmDirective);
+
+    if (this.functionName != null) {
+      sb.append(",\"FunctionName\":\"").append(escape(this.functionName)).append('"');
+    }
+
+    if (metrics.getRequestId() != null) {
+      sb.append(",\"RequestId\":\"").append(escape(metrics.getRequestId())).append('"');
+    }
+
+    for (InvocationPhase phase : InvocationPhase.values()) {
+      appendValue(sb, phase.getMetricName(), metrics.getDuration(phase) / NANOS_PER_MICRO);
+    }
+
+    appendValue(sb, "RuntimeOverhead", metrics.getRuntimeOverhead() / NANOS_PER_MICRO);
+    appendValue(sb, "RequestBytes", metrics.getRequestBytes());
+    appendValue(sb, "ResponseBytes", metrics.getResponseBytes());
+    if (metrics.getAllocatedBytes() >= 0) {
+      appendValue(sb, "AllocatedBytes", metrics.getAllocatedBytes());
+    }
+    appendValue(sb, "ColdStart", metrics.isColdStart() ? 1 : 0);
+
+    if (metrics.isColdStart()) {
+      appendValue(sb, "InitDuration", metrics.getInitDuration() / NANOS_PER_MICRO);
+      appendValue(sb, "ConstructDuration", metrics.getConstructDuration() / NANOS_PER_MICRO);
+    }
+
+    sb.append("}\n");
+  }
+
+  /**
+   * Append metric value.
+   *
+   * @param sb {@link StringBuilder}
+   * @param name {@link String}
+   * @param value long
+   */
+  private static void appendValue(final StringBuilder sb, final String name, final long value) {
+    sb.append(",\"").append(name).append("\":").append(value);
+  }
+}
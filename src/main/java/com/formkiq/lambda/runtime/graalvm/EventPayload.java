@@ -0,0 +1,59 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Event body read by the runtime, held on heap in a {@link PooledBuffer} or off heap in an {@link
+ * OffHeapBuffer}. Views are only valid until the next event is read.
+ */
+public interface EventPayload {
+
+  /**
+   * Get the body size in bytes.
+   *
+   * @return int
+   */
+  int size();
+
+  /**
+   * Get an {@link InputStream} view of the body.
+   *
+   * @return {@link InputStream}
+   */
+  InputStream inputStream();
+
+  /**
+   * Get a {@link ByteBuffer} view of the body, from position 0 to the body size.
+   *
+   * @return {@link ByteBuffer}
+   */
+  ByteBuffer byteBuffer();
+
+  /**
+   * Copy the body to a heap byte[].
+   *
+   * @return byte[]
+   */
+  byte[] toByteArray();
+
+  /**
+   * Decode the body as UTF-8 with line breaks removed, the same as joining the lines read by a
+   * {@link java.io.BufferedReader}.
+   *
+   * @return {@link String}
+   */
+  String toLineString();
+}
@@ -0,0 +1,42 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+/**
+ * Handler result posted as a base64 gzip JSON string ("H4sI...") when its serialized response is
+ * at least 'LAMBDA_RUNTIME_GZIP_RESPONSE_MIN_BYTES', smaller results are posted as is. Only return
+ * it to callers that decompress the response, compression is never applied to other results.
+ */
+public final class GzipResponse {
+
+  /** Handler result. */
+  private final Object value;
+
+  /**
+   * constructor.
+   *
+   * @param result {@link Object} handler result, serialized like a result that is not compressed
+   */
+  public GzipResponse(final Object result) {
+    this.value = result;
+  }
+
+  /**
+   * Get the handler result.
+   *
+   * @return {@link Object}
+   */
+  public Object getValue() {
+    return this.value;
+  }
+}
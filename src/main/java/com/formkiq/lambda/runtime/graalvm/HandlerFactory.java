@@ -0,0 +1,44 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import java.util.Map;
+
+/**
+ * Handler Factory, loaded with {@link java.util.ServiceLoader} from
+ * 'META-INF/services/com.formkiq.lambda.runtime.graalvm.HandlerFactory' and called once during
+ * the init phase, so shared resources (SDK / HTTP clients, configuration) are built before the
+ * first event instead of lazily on the first invocation.
+ *
+ * <pre>
+ * public class MyHandlerFactory implements HandlerFactory {
+ *   private final S3Client s3 = S3Client.create();
+ *
+ *   public Object newInstance(final Class&lt;?&gt; clazz, final Map&lt;String, String&gt; env) {
+ *     return MyHandler.class.equals(clazz) ? new MyHandler(this.s3) : null;
+ *   }
+ * }
+ * </pre>
+ */
+public interface HandlerFactory {
+
+  /**
+   * Create a new instance of the Handler.
+   *
+   * @param handlerClass {@link Class}
+   * @param env {@link Map}
+   * @return {@link Object}, null if this factory does not create the Handler {@link Class}
+   * @throws Exception Exception
+   */
+  Object newInstance(Class<?> handlerClass, Map<String, String> env) throws Exception;
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Map;
+
+/**
+ * Collects garbage and trims the runtime's buffers between invocations, after the response is
+ * posted, once the heap grew by a percentage of the function memory size since the last
+ * collection. Whether a collection is due is decided before the response is posted, so the next
+ * long poll is not pipelined behind it and the execution environment is not frozen mid collection.
+ *
+ * <p>{@link System#gc()} is a full collection, not a young one, both on HotSpot and with the serial
+ * collector native images use. It is only cheap while the live heap is small.
+ */
+final class HousekeepingScheduler {
+
+  /** Per thread {@link HousekeepingScheduler}. */
+  private static final ThreadLocal<HousekeepingScheduler> SCHEDULER = new ThreadLocal<>();
+
+  /** Default heap growth that triggers a collection, in percent of the function memory size. */
+  private static final String DEFAULT_HEAP_PERCENT = "5";
+
+  /** Heap used, in percent of the function memory size, above which pooled inputs are dropped. */
+  private static final long NEAR_LIMIT_PERCENT = 90;
+
+  /** Percent. */
+  private static final long PERCENT = 100;
+
+  /** Bytes in a megabyte. */
+  private static final long BYTES_PER_MB = 1024 * 1024;
+
+  /** Heap {@link MemoryMXBean}, null when disabled. */
+  private final MemoryMXBean memory;
+
+  /** Heap growth since the last collection that triggers the next one, in bytes. */
+  private final long threshold;
+
+  /** Heap used bytes above which the {@link InputRecycler} pools are dropped. */
+  private final long nearLimit;
+
+  /** Heap used bytes that trigger the next collection. */
+  private long nextCollection;
+
+  /** Has the current invocation checked whether a collection is due. */
+  private boolean checked;
+
+  /** Is a collection due after the current invocation. */
+  private boolean due;
+
+  /**
+   * constructor.
+   *
+   * @param env {@link Map}
+   */
+  HousekeepingScheduler(final Map<String, String> env) {
+    this.memory = isEnabled(env) ? ManagementFactory.getMemoryMXBean() : null;
+
+    long memoryBytes = this.memory != null ? getMemoryBytes(env, this.memory) : -1;
+    long percent =
+        Long.parseLong(
+            env.getOrDefault("LAMBDA_RUNTIME_HOUSEKEEPING_HEAP_PERCENT", DEFAULT_HEAP_PERCENT));
+
+    this.threshold = memoryBytes * percent / PERCENT;
+    this.nearLimit = memoryBytes > 0 ? memoryBytes * NEAR_LIMIT_PERCENT / PERCENT : Long.MAX_VALUE;
+    this.nextCollection = memoryBytes > 0 ? heapUsed() + this.threshold : Long.MAX_VALUE;
+  }
+
+  /**
+   * Install the {@link HousekeepingScheduler} of the current thread.
+   *
+   * @param env {@link Map}
+   */
+  static void install(final Map<String, String> env) {
+    SCHEDULER.set(new HousekeepingScheduler(env));
+  }
+
+  /**
+   * Get the {@link HousekeepingScheduler} of the current thread.
+   *
+   * @return {@link HousekeepingScheduler}, null if not installed
+   */
+  static HousekeepingScheduler get() {
+    return SCHEDULER.get();
+  }
+
+  /**
+   * Is a collection due after the current invocation on this thread.
+   *
+   * @return boolean
+   */
+  static boolean isPending() {
+    HousekeepingScheduler scheduler = SCHEDULER.get();
+    return scheduler != null && scheduler.isDue();
+  }
+
+  /**
+   * Is housekeeping enabled.
+   *
+   * @param env {@link Map}
+   * @return boolean
+   */
+  static boolean isEnabled(final Map<String, String> env) {
+    return "true".equals(env.get("LAMBDA_RUNTIME_HOUSEKEEPING"));
+  }
+
+  /**
+   * Get the memory the heap can use, the function memory size capped by the max heap size.
+   *
+   * @param env {@link Map}
+   * @param memoryBean {@link MemoryMXBean}
+   * @return long bytes, -1 if not known
+   */
+  private static long getMemoryBytes(
+      final Map<String, String> env, final MemoryMXBean memoryBean) {
+    String size = env.get("AWS_LAMBDA_FUNCTION_MEMORY_SIZE");
+    long maxHeap = memoryBean.getHeapMemoryUsage().getMax();
+    long functionMemory = size != null ? Long.parseLong(size) * BYTES_PER_MB : maxHeap;
+    return maxHeap > 0 ? Math.min(functionMemory, maxHeap) : functionMemory;
+  }
+
+  /**
+   * Get the heap used bytes that trigger the next collection.
+   *
+   * @return long, {@link Long#MAX_VALUE} when disabled
+   */
+  long getNextCollection() {
+    return this.nextCollection;
+  }
+
+  /**
+   * Is a collection due after the current invocation. The answer is kept until {@link
+   * #run(InvocationMetrics)}, so a response posted without pipelining the next long poll is always
+   * followed by the collection, and no collection runs behind a pipelined long poll.
+   *
+   * @return boolean
+   */
+  boolean isDue() {
+    if (!this.checked) {
+      this.due = this.memory != null && heapUsed() >= this.nextCollection;
+      this.checked = true;
+    }
+    return this.due;
+  }
+
+  /**
+   * Collect garbage and trim the buffers when {@link #isDue()}, marking {@link
+   * InvocationPhase#HOUSEKEEPING}. The {@link InputRecycler} pools are only dropped when the heap
+   * is near the function memory size, as they are otherwise reused by the next invocation.
+   *
+   * @param metrics {@link InvocationMetrics}
+   */
+  void run(final InvocationMetrics metrics) {
+    if (isDue()) {
+      BufferPool.get().trim();
+
+      InputRecycler recycler = InputRecycler.get();
+      if (recycler != null && heapUsed() >= this.nearLimit) {
+        recycler.trim();
+      }
+
+      System.gc();
+      this.nextCollection = heapUsed() + this.threshold;
+      metrics.mark(InvocationPhase.HOUSEKEEPING);
+    }
+
+    this.checked = false;
+  }
+
+  /**
+   * Get the heap used bytes.
+   *
+   * @return long
+   */
+  private long heapUsed() {
+    return this.memory.getHeapMemoryUsage().getUsed();
+  }
+}
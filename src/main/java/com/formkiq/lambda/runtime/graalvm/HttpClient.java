@@ -14,8 +14,9 @@ package com.formkiq.lambda.runtime.graalvm;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
@@ -23,6 +24,9 @@ import java.nio.charset.StandardCharsets;
 /** Http Service using the build in Java {@link HttpURLConnection} library. */
 public class HttpClient {
 
+  /** Body length above which the POST body is streamed with a fixed Content-Length, 1 MB. */
+  private static final long FIXED_LENGTH_THRESHOLD = 1024 * 1024;
+
   /**
    * Send 'Get' request.
    *
@@ -35,19 +39,67 @@ public class HttpClient {
     HttpURLConnection conn = (HttpURLConnection) u.openConnection();
     conn.setRequestMethod("GET");
 
-    return buildResponse(conn);
+    return buildResponse(conn, true);
+  }
+
+  /**
+   * Send 'Get' request without reading the body, the body is available from {@link
+   * HttpResponse#getBodyStream()} and must be closed by the caller.
+   *
+   * @param url {@link String}
+   * @return {@link HttpResponse}
+   * @throws IOException IOException
+   */
+  public static HttpResponse open(final String url) throws IOException {
+    URL u = new URL(url);
+    HttpURLConnection conn = (HttpURLConnection) u.openConnection();
+    conn.setRequestMethod("GET");
+
+    return buildResponse(conn, false);
+  }
+
+  /**
+   * Open the connection of a 'Get' request, without sending the request.
+   *
+   * @param url {@link String}
+   * @return {@link HttpURLConnection}
+   * @throws IOException IOException
+   */
+  static HttpURLConnection connect(final String url) throws IOException {
+    URL u = new URL(url);
+    HttpURLConnection conn = (HttpURLConnection) u.openConnection();
+    conn.setRequestMethod("GET");
+    conn.connect();
+
+    return conn;
+  }
+
+  /**
+   * Send the 'Get' request of a connection opened by {@link #connect(String)} without reading the
+   * body, the body is available from {@link HttpResponse#getBodyStream()} and must be closed by the
+   * caller.
+   *
+   * @param conn {@link HttpURLConnection}
+   * @return {@link HttpResponse}
+   * @throws IOException IOException
+   */
+  static HttpResponse open(final HttpURLConnection conn) throws IOException {
+    return buildResponse(conn, false);
   }
 
   /**
    * Build {@link HttpResponse} from {@link HttpURLConnection}.
    *
    * @param conn {@link HttpURLConnection}
+   * @param readBody whether to read the body into a {@link String}
    * @return {@link HttpResponse}
    * @throws IOException IOException
    */
-  private static HttpResponse buildResponse(final HttpURLConnection conn) throws IOException {
+  private static HttpResponse buildResponse(final HttpURLConnection conn, final boolean readBody)
+      throws IOException {
 
     HttpResponse response = new HttpResponse(conn.getResponseCode());
+    response.setHeadersReceivedNanos(System.nanoTime());
 
     conn.getHeaderFields()
         .entrySet()
@@ -58,9 +110,25 @@ public class HttpClient {
               }
             });
 
+    if (readBody) {
+      response.setBody(readString(conn.getInputStream()));
+    } else {
+      response.setBodyStream(conn.getInputStream());
+    }
+
+    return response;
+  }
+
+  /**
+   * Read {@link InputStream} lines into a {@link String}.
+   *
+   * @param is {@link InputStream}
+   * @return {@link String}
+   * @throws IOException IOException
+   */
+  static String readString(final InputStream is) throws IOException {
     StringBuilder sb = new StringBuilder();
-    BufferedReader br =
-        new BufferedReader(new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8));
+    BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
 
     String line = null;
     while ((line = br.readLine()) != null) {
@@ -69,9 +137,7 @@ public class HttpClient {
 
     br.close();
 
-    response.setBody(sb.toString());
-
-    return response;
+    return sb.toString();
   }
 
   /**
@@ -83,6 +149,28 @@ public class HttpClient {
    * @throws IOException IOException
    */
   public static HttpResponse post(final String url, final String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    return post(url, out -> out.write(bytes), bytes.length);
+  }
+
+  /**
+   * Send Http POST, writing the body from a {@link ResponseBodyWriter}.
+   *
+   * <p>Bodies are buffered by the connection and sent with the request headers in a single write,
+   * streaming the body separately leaves a small trailing segment that Nagle's algorithm delays
+   * until the headers are acknowledged (over 1ms per invocation). Only bodies of a known length
+   * above {@link #FIXED_LENGTH_THRESHOLD} are streamed with a fixed Content-Length, where the
+   * delay is small next to the cost of buffering a second copy. Chunked mode is never used.
+   *
+   * @param url {@link String}
+   * @param writer {@link ResponseBodyWriter}
+   * @param contentLength long body length, -1 if unknown
+   * @return {@link HttpResponse}
+   * @throws IOException IOException
+   */
+  public static HttpResponse post(
+      final String url, final ResponseBodyWriter writer, final long contentLength)
+      throws IOException {
 
     URL u = new URL(url);
 
@@ -90,13 +178,13 @@ public class HttpClient {
     conn.setDoOutput(true);
     conn.setRequestMethod("POST");
 
-    OutputStreamWriter response =
-        new OutputStreamWriter(conn.getOutputStream(), StandardCharsets.UTF_8);
+    if (contentLength > FIXED_LENGTH_THRESHOLD) {
+      conn.setFixedLengthStreamingMode(contentLength);
+    }
 
-    response.write(body);
-    response.flush();
-    response.close();
-    conn.connect();
+    try (OutputStream out = conn.getOutputStream()) {
+      writer.writeTo(out);
+    }
 
     return new HttpResponse(conn.getResponseCode());
   }
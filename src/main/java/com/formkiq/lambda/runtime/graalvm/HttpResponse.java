@@ -12,6 +12,8 @@
  */
 package com.formkiq.lambda.runtime.graalvm;
 
+import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -28,9 +30,15 @@ public class HttpResponse {
   /** HTTP Body. */
   private String body;
 
+  /** HTTP Body {@link InputStream}, when the body is not read into a {@link String}. */
+  private InputStream bodyStream;
+
   /** HTTP Headers. */
   private Map<String, List<String>> headers;
 
+  /** {@link System#nanoTime()} the response headers were received. */
+  private long headersReceivedNanos;
+
   /** constructor. */
   public HttpResponse() {
     this.headers = new HashMap<>();
@@ -64,6 +72,16 @@ public class HttpResponse {
     this.statusCode = status;
   }
 
+  /**
+   * Is the HTTP Status Code a 2xx success.
+   *
+   * @return boolean
+   */
+  public boolean isSuccess() {
+    return this.statusCode >= HttpURLConnection.HTTP_OK
+        && this.statusCode < HttpURLConnection.HTTP_MULT_CHOICE;
+  }
+
   /**
    * Get HTTP Headers.
    *
@@ -110,6 +128,42 @@ public class HttpResponse {
     this.body = httpbody;
   }
 
+  /**
+   * Get HTTP Body {@link InputStream}.
+   *
+   * @return {@link InputStream}
+   */
+  public InputStream getBodyStream() {
+    return this.bodyStream;
+  }
+
+  /**
+   * Set HTTP Body {@link InputStream}.
+   *
+   * @param stream {@link InputStream}
+   */
+  public void setBodyStream(final InputStream stream) {
+    this.bodyStream = stream;
+  }
+
+  /**
+   * Get the {@link System#nanoTime()} the response headers were received.
+   *
+   * @return long
+   */
+  public long getHeadersReceivedNanos() {
+    return this.headersReceivedNanos;
+  }
+
+  /**
+   * Set the {@link System#nanoTime()} the response headers were received.
+   *
+   * @param nanoTime long
+   */
+  public void setHeadersReceivedNanos(final long nanoTime) {
+    this.headersReceivedNanos = nanoTime;
+  }
+
   /**
    * Get Header Values.
    *
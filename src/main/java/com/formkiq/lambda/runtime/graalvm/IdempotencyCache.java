@@ -0,0 +1,221 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Response cache keyed by a value extracted from the event with a {@link JsonPath}, such as the SQS
+ * message id, so duplicate deliveries are answered with the cached response bytes without invoking
+ * the handler. The key path is required, as redelivered events are rarely byte for byte identical
+ * (SQS receive counts, API Gateway request ids and times differ), so a hash of the whole event
+ * would not match them. Entries are kept in a bounded LRU with a TTL for the life of the execution
+ * environment, and optionally spilled to a {@link MappedSpillFile} when evicted.
+ *
+ * <p>Only used by the runtime thread, so it is not thread safe.
+ */
+public class IdempotencyCache {
+
+  /** Milliseconds per second. */
+  private static final long MILLIS_PER_SECOND = 1000L;
+
+  /** Default TTL, in seconds. */
+  private static final String DEFAULT_TTL = "300";
+
+  /** Default max number of entries. */
+  private static final String DEFAULT_MAX_ENTRIES = "1000";
+
+  /** Default max bytes of all entries. */
+  private static final String DEFAULT_MAX_BYTES = String.valueOf(16 * 1024 * 1024);
+
+  /** Default spill file size. */
+  private static final String DEFAULT_SPILL_SIZE = String.valueOf(64 * 1024 * 1024);
+
+  /** Entries initial capacity. */
+  private static final int INITIAL_CAPACITY = 16;
+
+  /** Entries load factor. */
+  private static final float LOAD_FACTOR = 0.75f;
+
+  /** Entries, in access order. */
+  private final LinkedHashMap<String, Entry> entries =
+      new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+
+  /** Key {@link JsonPath}. */
+  private final JsonPath keyPath;
+
+  /** TTL in milliseconds. */
+  private final long ttl;
+
+  /** Max number of entries. */
+  private final int maxEntries;
+
+  /** Max bytes of all entries. */
+  private final long maxBytes;
+
+  /** {@link MappedSpillFile}, null if not spilling. */
+  private final MappedSpillFile spill;
+
+  /** Bytes of all entries. */
+  private long bytes;
+
+  /**
+   * constructor.
+   *
+   * @param env {@link Map}
+   * @throws IOException if the spill file cannot be opened
+   * @throws IllegalArgumentException if the key path is not set or invalid
+   */
+  public IdempotencyCache(final Map<String, String> env) throws IOException {
+    String path = env.get("LAMBDA_RUNTIME_IDEMPOTENCY_KEY");
+    if (path == null || path.isBlank()) {
+      throw new IllegalArgumentException(
+          "LAMBDA_RUNTIME_IDEMPOTENCY_KEY is required with LAMBDA_RUNTIME_IDEMPOTENCY");
+    }
+
+    this.keyPath = JsonPath.compile(path);
+    this.ttl =
+        Long.parseLong(env.getOrDefault("LAMBDA_RUNTIME_IDEMPOTENCY_TTL", DEFAULT_TTL))
+            * MILLIS_PER_SECOND;
+    this.maxEntries =
+        Integer.parseInt(
+            env.getOrDefault("LAMBDA_RUNTIME_IDEMPOTENCY_MAX_ENTRIES", DEFAULT_MAX_ENTRIES));
+    this.maxBytes =
+        Long.parseLong(env.getOrDefault("LAMBDA_RUNTIME_IDEMPOTENCY_MAX_BYTES", DEFAULT_MAX_BYTES));
+
+    String spillFile = env.get("LAMBDA_RUNTIME_IDEMPOTENCY_SPILL_FILE");
+    int spillSize =
+        Integer.parseInt(
+            env.getOrDefault("LAMBDA_RUNTIME_IDEMPOTENCY_SPILL_SIZE", DEFAULT_SPILL_SIZE));
+    this.spill = spillFile != null ? new MappedSpillFile(Path.of(spillFile), spillSize) : null;
+  }
+
+  /**
+   * Is the idempotency cache enabled.
+   *
+   * @param env {@link Map}
+   * @return boolean
+   */
+  public static boolean isEnabled(final Map<String, String> env) {
+    return "true".equals(env.get("LAMBDA_RUNTIME_IDEMPOTENCY"));
+  }
+
+  /**
+   * Get the cache key of an event.
+   *
+   * @param event byte[]
+   * @return {@link String}, null if the event has no key and must not be cached
+   * @throws IOException IOException
+   */
+  public String getKey(final byte[] event) throws IOException {
+    return this.keyPath.extract(event);
+  }
+
+  /**
+   * Get the cache key of an {@link EventPayload}, without copying it to the heap.
+   *
+   * @param event {@link EventPayload}
+   * @return {@link String}, null if the event has no key and must not be cached
+   * @throws IOException IOException
+   */
+  public String getKey(final EventPayload event) throws IOException {
+    return this.keyPath.extract(BufferPool.get().open(event));
+  }
+
+  /**
+   * Get cached response.
+   *
+   * @param key {@link String}
+   * @return byte[], null if not cached
+   */
+  public byte[] get(final String key) {
+    long now = System.currentTimeMillis();
+    byte[] value = null;
+    Entry entry = this.entries.get(key);
+
+    if (entry != null && entry.expiresAt > now) {
+      value = entry.value;
+    } else if (entry != null) {
+      remove(key);
+    } else if (this.spill != null) {
+      value = this.spill.get(key, now);
+    }
+
+    return value;
+  }
+
+  /**
+   * Cache response.
+   *
+   * @param key {@link String}
+   * @param value byte[]
+   */
+  public void put(final String key, final byte[] value) {
+    if (value.length <= this.maxBytes) {
+      remove(key);
+      this.entries.put(key, new Entry(value, System.currentTimeMillis() + this.ttl));
+      this.bytes += value.length;
+      evict();
+    }
+  }
+
+  /**
+   * Remove entry.
+   *
+   * @param key {@link String}
+   */
+  private void remove(final String key) {
+    Entry entry = this.entries.remove(key);
+    if (entry != null) {
+      this.bytes -= entry.value.length;
+    }
+  }
+
+  /** Evict the least recently used entries over the limits, spilling them if enabled. */
+  private void evict() {
+    Iterator<Map.Entry<String, Entry>> itr = this.entries.entrySet().iterator();
+    long now = System.currentTimeMillis();
+
+    while (itr.hasNext() && (this.entries.size() > this.maxEntries || this.bytes > this.maxBytes)) {
+      Map.Entry<String, Entry> e = itr.next();
+      Entry entry = e.getValue();
+      itr.remove();
+      this.bytes -= entry.value.length;
+
+      if (this.spill != null && entry.expiresAt > now) {
+        this.spill.put(e.getKey(), entry.value, entry.expiresAt);
+      }
+    }
+  }
+
+  /**
+   * Get number of in memory entries.
+   *
+   * @return int
+   */
+  public int size() {
+    return this.entries.size();
+  }
+
+  /**
+   * Cached response.
+   *
+   * @param value byte[]
+   * @param expiresAt long
+   */
+  private record Entry(byte[] value, long expiresAt) {}
+}
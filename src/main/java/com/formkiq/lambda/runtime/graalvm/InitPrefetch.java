@@ -0,0 +1,109 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Connection of the first '/invocation/next' long poll, opened on a separate thread so the
+ * connection setup overlaps the handler construction during init. The poll itself is only sent once
+ * init succeeded, as calling '/invocation/next' ends the init phase for the Runtime API, so an init
+ * error is still posted to '/init/error'.
+ *
+ * <p>With provisioned concurrency, init runs before any request arrives, so the overlap does not
+ * reduce latency.
+ */
+final class InitPrefetch {
+
+  /** Provisioned concurrency 'AWS_LAMBDA_INITIALIZATION_TYPE'. */
+  private static final String PROVISIONED_CONCURRENCY = "provisioned-concurrency";
+
+  /** Connect {@link FutureTask}. */
+  private final FutureTask<HttpURLConnection> task;
+
+  /**
+   * constructor.
+   *
+   * @param runtimeUrl {@link String}
+   */
+  private InitPrefetch(final String runtimeUrl) {
+    this.task = new FutureTask<>(() -> HttpClient.connect(runtimeUrl));
+  }
+
+  /**
+   * Is parallel init enabled.
+   *
+   * @param env {@link Map}
+   * @return boolean
+   */
+  static boolean isEnabled(final Map<String, String> env) {
+    return "true".equals(env.get("LAMBDA_RUNTIME_PARALLEL_INIT"))
+        && env.get("AWS_LAMBDA_RUNTIME_API") != null;
+  }
+
+  /**
+   * Start opening the first long poll connection, warning when the environment is initialized for
+   * provisioned concurrency.
+   *
+   * @param env {@link Map}
+   * @param runtimeUrl {@link String} '/invocation/next' url
+   * @return {@link InitPrefetch}
+   */
+  static InitPrefetch start(final Map<String, String> env, final String runtimeUrl) {
+    if (PROVISIONED_CONCURRENCY.equals(env.get("AWS_LAMBDA_INITIALIZATION_TYPE"))) {
+      new LambdaLoggerSystemOut()
+          .log("LAMBDA_RUNTIME_PARALLEL_INIT does not reduce latency with provisioned concurrency");
+    }
+
+    InitPrefetch prefetch = new InitPrefetch(runtimeUrl);
+    Thread thread = new Thread(prefetch.task, "lambda-runtime-init-connect");
+    thread.setDaemon(true);
+    thread.start();
+    return prefetch;
+  }
+
+  /**
+   * Wait for the connection and send the first long poll on it.
+   *
+   * @return {@link HttpResponse}
+   * @throws IOException IOException
+   */
+  HttpResponse join() throws IOException {
+    try {
+      return HttpClient.open(this.task.get());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted waiting for the first connection");
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+    }
+  }
+
+  /** Close the connection after an init error, without sending the long poll. */
+  void close() {
+    if (!this.task.cancel(true)) {
+      try {
+        this.task.get().disconnect();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+        // the connection was not opened
+      }
+    }
+  }
+}
@@ -0,0 +1,366 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.InstanceCreator;
+import com.google.gson.JsonIOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Reuses the handler input object graph between invocations. The objects, {@link List}s and
+ * {@link Map}s created while the input is deserialized are kept, and {@link Gson} fills the same
+ * instances on the next invocation through {@link InstanceCreator}s, so steady state invocations
+ * do not allocate the input objects.
+ *
+ * <p>The previous input is overwritten by the next invocation, so it is only enabled for {@link
+ * ReusableInputHandler}s, which do not keep a reference to their input. The pooled objects are
+ * dropped when handler code times out and may still hold them. Only used by the runtime thread, so
+ * it is not thread safe.
+ *
+ * <p>Its {@link Gson} reads events through reflection, as the {@link AwsEventsTypeAdapterFactory}
+ * adapters do not create objects through {@link InstanceCreator}s.
+ */
+final class InputRecycler {
+
+  /** Max objects of a type kept between invocations, the SQS max batch size. */
+  private static final int MAX_POOLED = 10000;
+
+  /** Package prefixes of types that are not pooled. */
+  private static final List<String> SKIP_PACKAGES =
+      List.of("java.", "javax.", "org.joda.", "com.google.gson.");
+
+  /** Runtime thread's {@link InputRecycler}, null if not enabled. */
+  private static final ThreadLocal<InputRecycler> RECYCLERS = new ThreadLocal<>();
+
+  /** {@link Gson} creating objects from the pools. */
+  private final Gson gson;
+
+  /** {@link Pool}s. */
+  private final List<Pool<?>> pools = new ArrayList<>();
+
+  /**
+   * constructor.
+   *
+   * @param builder {@link GsonBuilder}
+   * @param type {@link Type} of the input
+   */
+  InputRecycler(final GsonBuilder builder, final Type type) {
+    register(builder, List.class, new Pool<List<?>>(ArrayList::new, List::clear));
+    register(builder, Collection.class, new Pool<List<?>>(ArrayList::new, List::clear));
+    register(builder, Map.class, new Pool<Map<?, ?>>(LinkedHashMap::new, Map::clear));
+
+    Set<Class<?>> classes = new HashSet<>();
+    collect(type, classes);
+    for (Class<?> clazz : classes) {
+      register(builder, clazz, newObjectPool(clazz));
+    }
+
+    this.gson = builder.create();
+  }
+
+  /**
+   * Is reuse of the input objects enabled.
+   *
+   * @param env {@link Map}
+   * @return boolean
+   */
+  static boolean isEnabled(final Map<String, String> env) {
+    return "true".equals(env.get("LAMBDA_RUNTIME_REUSE_INPUT"));
+  }
+
+  /**
+   * Install the runtime thread's {@link InputRecycler} for a handler, null unless enabled and the
+   * handler input is reusable.
+   *
+   * @param env {@link Map}
+   * @param plan {@link LambdaHandlerPlan}
+   */
+  static void install(final Map<String, String> env, final LambdaHandlerPlan plan) {
+    RECYCLERS.set(
+        isEnabled(env) && plan.isReusableInput()
+            ? new InputRecycler(LambdaRuntime.jsonProviderBuilder(), plan.getJsonType())
+            : null);
+  }
+
+  /**
+   * Get the thread's {@link InputRecycler}.
+   *
+   * @return {@link InputRecycler}, null if not installed
+   */
+  static InputRecycler get() {
+    return RECYCLERS.get();
+  }
+
+  /**
+   * Drop the thread's pooled objects, if any, as handler code that timed out may still hold the
+   * input.
+   */
+  static void discard() {
+    InputRecycler recycler = RECYCLERS.get();
+    if (recycler != null) {
+      recycler.trim();
+    }
+  }
+
+  /**
+   * Release the objects of the previous input for reuse.
+   *
+   * @return {@link Gson} to deserialize the next input with
+   */
+  Gson recycle() {
+    for (Pool<?> pool : this.pools) {
+      pool.recycle();
+    }
+    return this.gson;
+  }
+
+  /** Drop the pooled objects, so they can be garbage collected. */
+  void trim() {
+    for (Pool<?> pool : this.pools) {
+      pool.trim();
+    }
+  }
+
+  /**
+   * Collect the pooled classes reachable from a type.
+   *
+   * @param type {@link Type}
+   * @param classes {@link Set}
+   */
+  private static void collect(final Type type, final Set<Class<?>> classes) {
+    if (type instanceof ParameterizedType parameterized) {
+      collect(parameterized.getRawType(), classes);
+      for (Type argument : parameterized.getActualTypeArguments()) {
+        collect(argument, classes);
+      }
+    } else if (type instanceof Class<?> clazz && isPooled(clazz) && classes.add(clazz)) {
+      for (Field field : getFields(clazz)) {
+        collect(field.getGenericType(), classes);
+      }
+    }
+  }
+
+  /**
+   * Is a class a POJO that can be pooled.
+   *
+   * @param clazz {@link Class}
+   * @return boolean
+   */
+  private static boolean isPooled(final Class<?> clazz) {
+    boolean pooled =
+        !clazz.isPrimitive()
+            && !clazz.isArray()
+            && !clazz.isEnum()
+            && !Modifier.isAbstract(clazz.getModifiers());
+
+    if (pooled) {
+      pooled =
+          !isSkipped(clazz)
+              && !Collection.class.isAssignableFrom(clazz)
+              && !Map.class.isAssignableFrom(clazz)
+              && hasNoArgConstructor(clazz);
+    }
+
+    return pooled;
+  }
+
+  /**
+   * Is a class in a package whose types are not pooled.
+   *
+   * @param clazz {@link Class}
+   * @return boolean
+   */
+  private static boolean isSkipped(final Class<?> clazz) {
+    String name = clazz.getName();
+    return SKIP_PACKAGES.stream().anyMatch(name::startsWith);
+  }
+
+  /**
+   * Does a class declare a no-arg constructor.
+   *
+   * @param clazz {@link Class}
+   * @return boolean
+   */
+  private static boolean hasNoArgConstructor(final Class<?> clazz) {
+    boolean found = false;
+    for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
+      found |= constructor.getParameterCount() == 0;
+    }
+    return found;
+  }
+
+  /**
+   * Get the instance fields of a class and its superclasses, up to the first JDK class.
+   *
+   * @param clazz {@link Class}
+   * @return {@link List} {@link Field}
+   */
+  private static List<Field> getFields(final Class<?> clazz) {
+    List<Field> fields = new ArrayList<>();
+    for (Class<?> c = clazz; c != null && !isSkipped(c); c = c.getSuperclass()) {
+      for (Field field : c.getDeclaredFields()) {
+        if (!Modifier.isStatic(field.getModifiers())) {
+          fields.add(field);
+        }
+      }
+    }
+    return fields;
+  }
+
+  /**
+   * Create the {@link Pool} of a POJO class, resetting reused objects' fields to their defaults.
+   *
+   * @param clazz {@link Class}
+   * @return {@link Pool}
+   */
+  private static Pool<Object> newObjectPool(final Class<?> clazz) {
+    try {
+      Constructor<?> constructor = clazz.getDeclaredConstructor();
+      constructor.setAccessible(true);
+
+      List<Field> fields = getFields(clazz);
+      for (Field field : fields) {
+        field.setAccessible(true);
+      }
+
+      return new Pool<>(() -> newInstance(constructor), o -> reset(o, fields));
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      throw new JsonIOException("Unable to reuse " + clazz.getName(), e);
+    }
+  }
+
+  /**
+   * Create a new instance.
+   *
+   * @param constructor {@link Constructor}
+   * @return {@link Object}
+   */
+  private static Object newInstance(final Constructor<?> constructor) {
+    try {
+      return constructor.newInstance();
+    } catch (ReflectiveOperationException e) {
+      throw new JsonIOException("Unable to create " + constructor.getName(), e);
+    }
+  }
+
+  /**
+   * Reset the fields of a reused object to their defaults.
+   *
+   * @param object {@link Object}
+   * @param fields {@link List} {@link Field}
+   */
+  private static void reset(final Object object, final List<Field> fields) {
+    try {
+      for (Field field : fields) {
+        Class<?> type = field.getType();
+        if (boolean.class.equals(type)) {
+          field.setBoolean(object, false);
+        } else if (char.class.equals(type)) {
+          field.setChar(object, Character.MIN_VALUE);
+        } else if (type.isPrimitive()) {
+          field.setByte(object, (byte) 0);
+        } else {
+          field.set(object, null);
+        }
+      }
+    } catch (IllegalAccessException e) {
+      throw new JsonIOException("Unable to reset " + object.getClass().getName(), e);
+    }
+  }
+
+  /**
+   * Register a {@link Pool} as the {@link InstanceCreator} of a type.
+   *
+   * @param builder {@link GsonBuilder}
+   * @param type {@link Type}
+   * @param pool {@link Pool}
+   */
+  private void register(final GsonBuilder builder, final Type type, final Pool<?> pool) {
+    builder.registerTypeAdapter(type, pool);
+    this.pools.add(pool);
+  }
+
+  /**
+   * Objects of a type, created by {@link Gson} for the current input or free for reuse.
+   *
+   * @param <T> Type of objects
+   */
+  private static final class Pool<T> implements InstanceCreator<T> {
+
+    /** Creates new objects. */
+    private final Supplier<T> factory;
+
+    /** Resets reused objects. */
+    private final Consumer<T> reset;
+
+    /** Objects free for reuse. */
+    private final ArrayDeque<T> free = new ArrayDeque<>();
+
+    /** Objects of the current input. */
+    private final List<T> used = new ArrayList<>();
+
+    /**
+     * constructor.
+     *
+     * @param objectFactory {@link Supplier}
+     * @param objectReset {@link Consumer}
+     */
+    Pool(final Supplier<T> objectFactory, final Consumer<T> objectReset) {
+      this.factory = objectFactory;
+      this.reset = objectReset;
+    }
+
+    @Override
+    public T createInstance(final Type type) {
+      T object = this.free.pollFirst();
+      if (object != null) {
+        this.reset.accept(object);
+      } else {
+        object = this.factory.get();
+      }
+
+      if (this.used.size() < MAX_POOLED) {
+        this.used.add(object);
+      }
+      return object;
+    }
+
+    /** Release the objects of the current input for reuse. */
+    void recycle() {
+      this.free.addAll(this.used);
+      this.used.clear();
+    }
+
+    /** Drop the free objects and the objects of the previous input. */
+    void trim() {
+      this.free.clear();
+      this.used.clear();
+    }
+  }
+}
@@ -0,0 +1,304 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Reusable per-invocation metrics record. Each {@link InvocationPhase} end is stamped with {@link
+ * System#nanoTime()}, when disabled every mark is a no-op.
+ */
+public class InvocationMetrics {
+
+  /** Unmarked phase stamp, {@link System#nanoTime()} may be zero or negative. */
+  private static final long UNMARKED = Long.MIN_VALUE;
+
+  /** Is metrics enabled. */
+  private final boolean enabled;
+
+  /** Thread {@link com.sun.management.ThreadMXBean}, null if allocation counting unsupported. */
+  private final com.sun.management.ThreadMXBean threads;
+
+  /** Invocation start. */
+  private long start;
+
+  /** Phase end stamps, indexed by {@link InvocationPhase#ordinal()}. */
+  private final long[] stamps = new long[InvocationPhase.values().length];
+
+  /** Thread allocated bytes at invocation start. */
+  private long allocatedStart;
+
+  /** Bytes allocated during the invocation. */
+  private long allocatedBytes;
+
+  /** Event bytes. */
+  private long requestBytes;
+
+  /** Response bytes. */
+  private long responseBytes;
+
+  /** Number of invocations. */
+  private long invocations;
+
+  /** Is a cold start invocation. */
+  private boolean coldStart;
+
+  /** Init duration, in nanoseconds. */
+  private long initNanos;
+
+  /** Handler construction duration, in nanoseconds. */
+  private long constructNanos;
+
+  /** Lambda Request Id. */
+  private String requestId;
+
+  /**
+   * constructor.
+   *
+   * @param isEnabled boolean
+   */
+  public InvocationMetrics(final boolean isEnabled) {
+    this.enabled = isEnabled;
+    this.threads = isEnabled ? allocationCounter() : null;
+  }
+
+  /**
+   * Get the {@link com.sun.management.ThreadMXBean} if it supports allocation counting.
+   *
+   * @return {@link com.sun.management.ThreadMXBean}
+   */
+  private static com.sun.management.ThreadMXBean allocationCounter() {
+    com.sun.management.ThreadMXBean bean = null;
+
+    try {
+      if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean t
+          && t.isThreadAllocatedMemorySupported()
+          && t.isThreadAllocatedMemoryEnabled()) {
+        bean = t;
+      }
+    } catch (UnsupportedOperationException | LinkageError e) {
+      bean = null;
+    }
+
+    return bean;
+  }
+
+  /**
+   * Is metrics enabled.
+   *
+   * @return boolean
+   */
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  /**
+   * Start a new invocation, resetting the previous invocation values.
+   *
+   * @param initDurationNanos long init duration, only used on the cold start invocation
+   */
+  public void start(final long initDurationNanos) {
+    if (this.enabled) {
+      this.coldStart = this.invocations++ == 0;
+      this.initNanos = initDurationNanos;
+      this.requestId = null;
+      this.requestBytes = 0;
+      this.responseBytes = 0;
+      this.allocatedBytes = -1;
+      Arrays.fill(this.stamps, UNMARKED);
+      this.allocatedStart =
+          this.threads != null ? this.threads.getCurrentThreadAllocatedBytes() : 0;
+      this.start = System.nanoTime();
+    }
+  }
+
+  /**
+   * Mark the end of a {@link InvocationPhase}.
+   *
+   * @param phase {@link InvocationPhase}
+   */
+  public void mark(final InvocationPhase phase) {
+    if (this.enabled) {
+      this.stamps[phase.ordinal()] = System.nanoTime();
+    }
+  }
+
+  /**
+   * Mark the end of a {@link InvocationPhase} at a specific time.
+   *
+   * @param phase {@link InvocationPhase}
+   * @param nanoTime long
+   */
+  public void mark(final InvocationPhase phase, final long nanoTime) {
+    if (this.enabled) {
+      this.stamps[phase.ordinal()] = nanoTime;
+    }
+  }
+
+  /** Finish the invocation, recording the allocated bytes. */
+  public void finish() {
+    if (this.enabled && this.threads != null) {
+      this.allocatedBytes = this.threads.getCurrentThreadAllocatedBytes() - this.allocatedStart;
+    }
+  }
+
+  /**
+   * Get the duration of a {@link InvocationPhase}, phases that were not marked have a 0 duration.
+   *
+   * @param phase {@link InvocationPhase}
+   * @return long nanoseconds
+   */
+  public long getDuration(final InvocationPhase phase) {
+    int index = phase.ordinal();
+    long end = this.stamps[index];
+    long begin = previousStamp(index);
+    return end != UNMARKED ? Math.max(0, end - begin) : 0;
+  }
+
+  /**
+   * Get the latest stamp before a phase.
+   *
+   * @param index int
+   * @return long
+   */
+  private long previousStamp(final int index) {
+    long stamp = this.start;
+    for (int i = index - 1; i >= 0; i--) {
+      if (this.stamps[i] != UNMARKED) {
+        stamp = this.stamps[i];
+        break;
+      }
+    }
+    return stamp;
+  }
+
+  /**
+   * Get the runtime overhead, all phases except the long poll, the handler and its after response
+   * tasks.
+   *
+   * @return long nanoseconds
+   */
+  public long getRuntimeOverhead() {
+    long overhead = 0;
+    for (InvocationPhase phase : InvocationPhase.values()) {
+      if (phase != InvocationPhase.POLL
+          && phase != InvocationPhase.HANDLER
+          && phase != InvocationPhase.AFTER_RESPONSE) {
+        overhead += getDuration(phase);
+      }
+    }
+    return overhead;
+  }
+
+  /**
+   * Get bytes allocated by the runtime thread during the invocation.
+   *
+   * @return long, -1 if not supported
+   */
+  public long getAllocatedBytes() {
+    return this.allocatedBytes;
+  }
+
+  /**
+   * Get Event bytes.
+   *
+   * @return long
+   */
+  public long getRequestBytes() {
+    return this.requestBytes;
+  }
+
+  /**
+   * Set Event bytes.
+   *
+   * @param bytes long
+   */
+  public void setRequestBytes(final long bytes) {
+    this.requestBytes = bytes;
+  }
+
+  /**
+   * Get Response bytes.
+   *
+   * @return long
+   */
+  public long getResponseBytes() {
+    return this.responseBytes;
+  }
+
+  /**
+   * Set Response bytes.
+   *
+   * @param bytes long
+   */
+  public void setResponseBytes(final long bytes) {
+    this.responseBytes = bytes;
+  }
+
+  /**
+   * Is this the cold start invocation.
+   *
+   * @return boolean
+   */
+  public boolean isColdStart() {
+    return this.coldStart;
+  }
+
+  /**
+   * Get Init duration.
+   *
+   * @return long nanoseconds
+   */
+  public long getInitDuration() {
+    return this.initNanos;
+  }
+
+  /**
+   * Get Handler construction duration, measured during init.
+   *
+   * @return long nanoseconds
+   */
+  public long getConstructDuration() {
+    return this.constructNanos;
+  }
+
+  /**
+   * Set Handler construction duration.
+   *
+   * @param nanos long
+   */
+  public void setConstructDuration(final long nanos) {
+    this.constructNanos = nanos;
+  }
+
+  /**
+   * Get Lambda Request Id.
+   *
+   * @return {@link String}
+   */
+  public String getRequestId() {
+    return this.requestId;
+  }
+
+  /**
+   * Set Lambda Request Id.
+   *
+   * @param id {@link String}
+   */
+  public void setRequestId(final String id) {
+    if (this.enabled) {
+      this.requestId = id;
+    }
+  }
+}
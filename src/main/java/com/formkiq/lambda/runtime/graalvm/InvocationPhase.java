@@ -0,0 +1,54 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+/** Phases of a Lambda invocation, in order, each ending with a {@link InvocationMetrics} mark. */
+public enum InvocationPhase {
+  /** Long poll for the next event, until the response headers are received. */
+  POLL("Poll"),
+  /** Reading the event body. */
+  READ("Read"),
+  /** Deserializing the event into the handler input. */
+  DESERIALIZE("Deserialize"),
+  /** Handler execution. */
+  HANDLER("Handler"),
+  /** Serializing the handler result. */
+  SERIALIZE("Serialize"),
+  /** Posting the response to the Runtime Api. */
+  POST("Post"),
+  /** Tasks registered with {@link LambdaContext#afterResponse(Runnable)}. */
+  AFTER_RESPONSE("AfterResponse"),
+  /** Garbage collection and buffer trimming by the {@link HousekeepingScheduler}. */
+  HOUSEKEEPING("Housekeeping");
+
+  /** Metric Name. */
+  private final String metricName;
+
+  /**
+   * constructor.
+   *
+   * @param name {@link String}
+   */
+  InvocationPhase(final String name) {
+    this.metricName = name;
+  }
+
+  /**
+   * Get Metric Name.
+   *
+   * @return {@link String}
+   */
+  public String getMetricName() {
+    return this.metricName;
+  }
+}
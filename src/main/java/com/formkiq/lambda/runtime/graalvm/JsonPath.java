@@ -0,0 +1,197 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Simple JSON path of object field names and array indexes, for example {@code
+ * $.Records[0].messageId}, evaluated by streaming over the raw JSON without building a tree.
+ */
+public final class JsonPath {
+
+  /** Path segments, {@link String} field names or {@link Integer} array indexes. */
+  private final List<Object> segments;
+
+  /** Path. */
+  private final String path;
+
+  /**
+   * constructor.
+   *
+   * @param value {@link String}
+   * @param pathSegments {@link List}
+   */
+  private JsonPath(final String value, final List<Object> pathSegments) {
+    this.path = value;
+    this.segments = pathSegments;
+  }
+
+  /**
+   * Compile {@link JsonPath}.
+   *
+   * @param path {@link String}
+   * @return {@link JsonPath}
+   * @throws IllegalArgumentException if the path is invalid
+   */
+  public static JsonPath compile(final String path) {
+    List<Object> segments = new ArrayList<>();
+    String s = path.startsWith("$") ? path.substring(1) : path;
+
+    for (String part : s.split("\\.")) {
+      int bracket = part.indexOf('[');
+      String name = bracket >= 0 ? part.substring(0, bracket) : part;
+
+      if (!name.isEmpty()) {
+        segments.add(name);
+      }
+
+      while (bracket >= 0) {
+        int end = part.indexOf(']', bracket);
+        if (end < 0) {
+          throw new IllegalArgumentException("Invalid JSON path " + path);
+        }
+        segments.add(Integer.valueOf(part.substring(bracket + 1, end)));
+        bracket = part.indexOf('[', end);
+      }
+    }
+
+    return new JsonPath(path, segments);
+  }
+
+  /**
+   * Extract the value at the path, objects and arrays are returned as JSON.
+   *
+   * @param json byte[] UTF-8 JSON
+   * @return {@link String}, null if the path does not exist or is null
+   * @throws IOException IOException
+   */
+  public String extract(final byte[] json) throws IOException {
+    return extract(new ByteArrayInputStream(json));
+  }
+
+  /**
+   * Extract the value at the path, objects and arrays are returned as JSON.
+   *
+   * @param json {@link InputStream} UTF-8 JSON
+   * @return {@link String}, null if the path does not exist or is null
+   * @throws IOException IOException
+   */
+  public String extract(final InputStream json) throws IOException {
+    String value = null;
+
+    try (JsonReader reader = new JsonReader(new InputStreamReader(json, StandardCharsets.UTF_8))) {
+
+      boolean found = true;
+      for (int i = 0; i < this.segments.size() && found; i++) {
+        Object segment = this.segments.get(i);
+        found =
+            segment instanceof Integer index
+                ? moveToIndex(reader, index.intValue())
+                : moveToField(reader, (String) segment);
+      }
+
+      if (found) {
+        value = readValue(reader);
+      }
+    }
+
+    return value;
+  }
+
+  /**
+   * Move the {@link JsonReader} to an object field value.
+   *
+   * @param reader {@link JsonReader}
+   * @param name {@link String}
+   * @return boolean found
+   * @throws IOException IOException
+   */
+  private static boolean moveToField(final JsonReader reader, final String name)
+      throws IOException {
+    boolean found = false;
+
+    if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+      reader.beginObject();
+      while (!found && reader.hasNext()) {
+        if (name.equals(reader.nextName())) {
+          found = true;
+        } else {
+          reader.skipValue();
+        }
+      }
+    }
+
+    return found;
+  }
+
+  /**
+   * Move the {@link JsonReader} to an array element.
+   *
+   * @param reader {@link JsonReader}
+   * @param index int
+   * @return boolean found
+   * @throws IOException IOException
+   */
+  private static boolean moveToIndex(final JsonReader reader, final int index) throws IOException {
+    boolean found = false;
+
+    if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+      reader.beginArray();
+      int i = 0;
+      while (i < index && reader.hasNext()) {
+        reader.skipValue();
+        i++;
+      }
+      found = i == index && reader.hasNext();
+    }
+
+    return found;
+  }
+
+  /**
+   * Read the current value.
+   *
+   * @param reader {@link JsonReader}
+   * @return {@link String}
+   * @throws IOException IOException
+   */
+  private static String readValue(final JsonReader reader) throws IOException {
+    String value = null;
+    JsonToken token = reader.peek();
+
+    if (token == JsonToken.BEGIN_OBJECT || token == JsonToken.BEGIN_ARRAY) {
+      value = JsonParser.parseReader(reader).toString();
+    } else if (token == JsonToken.BOOLEAN) {
+      value = String.valueOf(reader.nextBoolean());
+    } else if (token != JsonToken.NULL) {
+      value = reader.nextString();
+    }
+
+    return value;
+  }
+
+  @Override
+  public String toString() {
+    return this.path;
+  }
+}
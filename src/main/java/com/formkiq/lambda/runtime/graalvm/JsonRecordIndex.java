@@ -0,0 +1,315 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.google.gson.JsonSyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Byte offsets of each element of the top level "Records" array of a UTF-8 JSON event, found in a
+ * single scan without decoding any value.
+ */
+public final class JsonRecordIndex {
+
+  /** Records key. */
+  private static final byte[] RECORDS_KEY = "Records".getBytes(StandardCharsets.US_ASCII);
+
+  /** Initial number of records. */
+  private static final int INITIAL_CAPACITY = 16;
+
+  /** Empty {@link JsonRecordIndex}. */
+  private static final JsonRecordIndex EMPTY = new JsonRecordIndex(new int[0], 0);
+
+  /** Record start / end offset pairs. */
+  private final int[] offsets;
+
+  /** Number of records. */
+  private final int count;
+
+  /**
+   * constructor.
+   *
+   * @param recordOffsets int[]
+   * @param recordCount int
+   */
+  private JsonRecordIndex(final int[] recordOffsets, final int recordCount) {
+    this.offsets = recordOffsets;
+    this.count = recordCount;
+  }
+
+  /**
+   * Index the "Records" array of a JSON object.
+   *
+   * @param buf byte[]
+   * @param length int
+   * @return {@link JsonRecordIndex}
+   * @throws JsonSyntaxException if the JSON is malformed
+   */
+  public static JsonRecordIndex build(final byte[] buf, final int length) {
+    int pos = skipWhitespace(buf, 0, length);
+    int arrayStart = pos < length ? findRecords(buf, pos, length) : -1;
+    return arrayStart >= 0 && buf[arrayStart] == '['
+        ? indexArray(buf, arrayStart, length)
+        : EMPTY;
+  }
+
+  /**
+   * Find the start of the top level "Records" value.
+   *
+   * @param buf byte[]
+   * @param start int
+   * @param length int
+   * @return int offset, -1 if not found
+   */
+  private static int findRecords(final byte[] buf, final int start, final int length) {
+    expect(buf, start, length, '{');
+
+    int found = -1;
+    int pos = skipWhitespace(buf, start + 1, length);
+
+    while (found < 0 && pos < length && buf[pos] != '}') {
+
+      if (buf[pos] == ',') {
+        pos = skipWhitespace(buf, pos + 1, length);
+        continue;
+      }
+
+      expect(buf, pos, length, '"');
+      int keyEnd = skipString(buf, pos, length);
+      boolean isRecords = matches(buf, pos + 1, keyEnd - 1, RECORDS_KEY);
+
+      pos = skipWhitespace(buf, keyEnd, length);
+      expect(buf, pos, length, ':');
+      pos = skipWhitespace(buf, pos + 1, length);
+
+      if (isRecords) {
+        found = pos;
+      } else {
+        pos = skipWhitespace(buf, skipValue(buf, pos, length), length);
+      }
+    }
+
+    return found;
+  }
+
+  /**
+   * Index the elements of a JSON array.
+   *
+   * @param buf byte[]
+   * @param start int
+   * @param length int
+   * @return {@link JsonRecordIndex}
+   */
+  private static JsonRecordIndex indexArray(final byte[] buf, final int start, final int length) {
+    int[] offsets = new int[INITIAL_CAPACITY * 2];
+    int count = 0;
+    int pos = skipWhitespace(buf, start + 1, length);
+
+    while (pos < length && buf[pos] != ']') {
+
+      if (buf[pos] == ',') {
+        pos = skipWhitespace(buf, pos + 1, length);
+        continue;
+      }
+
+      int end = skipValue(buf, pos, length);
+
+      if (count * 2 == offsets.length) {
+        offsets = Arrays.copyOf(offsets, offsets.length * 2);
+      }
+
+      offsets[count * 2] = pos;
+      offsets[count * 2 + 1] = end;
+      count++;
+
+      pos = skipWhitespace(buf, end, length);
+    }
+
+    expect(buf, pos, length, ']');
+    return new JsonRecordIndex(offsets, count);
+  }
+
+  /**
+   * Skip a JSON value.
+   *
+   * @param buf byte[]
+   * @param start int
+   * @param length int
+   * @return int offset after the value
+   */
+  private static int skipValue(final byte[] buf, final int start, final int length) {
+    if (start >= length) {
+      throw new JsonSyntaxException("Expected JSON value at offset " + start + " of the event");
+    }
+
+    int end;
+    byte b = buf[start];
+
+    if (b == '"') {
+      end = skipString(buf, start, length);
+    } else if (b == '{' || b == '[') {
+      end = skipContainer(buf, start, length);
+    } else {
+      end = start;
+      while (end < length && !isDelimiter(buf[end])) {
+        end++;
+      }
+    }
+
+    return end;
+  }
+
+  /**
+   * Skip a JSON object or array.
+   *
+   * @param buf byte[]
+   * @param start int
+   * @param length int
+   * @return int offset after the closing bracket
+   */
+  private static int skipContainer(final byte[] buf, final int start, final int length) {
+    int depth = 0;
+    int pos = start;
+
+    while (pos < length) {
+      byte b = buf[pos];
+
+      if (b == '"') {
+        pos = skipString(buf, pos, length);
+        continue;
+      }
+
+      if (b == '{' || b == '[') {
+        depth++;
+      } else if ((b == '}' || b == ']') && --depth == 0) {
+        return pos + 1;
+      }
+
+      pos++;
+    }
+
+    throw new JsonSyntaxException("Unterminated JSON value at offset " + start);
+  }
+
+  /**
+   * Skip a JSON string.
+   *
+   * @param buf byte[]
+   * @param start int offset of the opening quote
+   * @param length int
+   * @return int offset after the closing quote
+   */
+  private static int skipString(final byte[] buf, final int start, final int length) {
+    int pos = start + 1;
+
+    while (pos < length) {
+      byte b = buf[pos];
+      if (b == '\\') {
+        pos += 2;
+      } else if (b == '"') {
+        return pos + 1;
+      } else {
+        pos++;
+      }
+    }
+
+    throw new JsonSyntaxException("Unterminated JSON string at offset " + start);
+  }
+
+  /**
+   * Skip whitespace.
+   *
+   * @param buf byte[]
+   * @param start int
+   * @param length int
+   * @return int
+   */
+  private static int skipWhitespace(final byte[] buf, final int start, final int length) {
+    int pos = start;
+    while (pos < length
+        && (buf[pos] == ' ' || buf[pos] == '\n' || buf[pos] == '\r' || buf[pos] == '\t')) {
+      pos++;
+    }
+    return pos;
+  }
+
+  /**
+   * Is byte the end of a JSON literal.
+   *
+   * @param b byte
+   * @return boolean
+   */
+  private static boolean isDelimiter(final byte b) {
+    return b == ',' || b == ']' || b == '}' || b == ' ' || b == '\n' || b == '\r' || b == '\t';
+  }
+
+  /**
+   * Check the byte at an offset.
+   *
+   * @param buf byte[]
+   * @param pos int
+   * @param length int
+   * @param expected byte
+   */
+  private static void expect(
+      final byte[] buf, final int pos, final int length, final int expected) {
+    if (pos >= length || buf[pos] != expected) {
+      throw new JsonSyntaxException(
+          "Expected '" + (char) expected + "' at offset " + pos + " of the event");
+    }
+  }
+
+  /**
+   * Do the bytes between two offsets match.
+   *
+   * @param buf byte[]
+   * @param start int
+   * @param end int
+   * @param value byte[]
+   * @return boolean
+   */
+  private static boolean matches(
+      final byte[] buf, final int start, final int end, final byte[] value) {
+    return Arrays.equals(buf, start, end, value, 0, value.length);
+  }
+
+  /**
+   * Get the number of records.
+   *
+   * @return int
+   */
+  public int size() {
+    return this.count;
+  }
+
+  /**
+   * Get record start offset.
+   *
+   * @param index int
+   * @return int
+   */
+  public int getStart(final int index) {
+    return this.offsets[index * 2];
+  }
+
+  /**
+   * Get record end offset, exclusive.
+   *
+   * @param index int
+   * @return int
+   */
+  public int getEnd(final int index) {
+    return this.offsets[index * 2 + 1];
+  }
+}
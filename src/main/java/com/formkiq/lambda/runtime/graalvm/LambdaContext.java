@@ -16,6 +16,8 @@ import com.amazonaws.services.lambda.runtime.ClientContext;
 import com.amazonaws.services.lambda.runtime.CognitoIdentity;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import java.util.ArrayList;
+import java.util.List;
 
 /** Implementation of {@link Context}. */
 public class LambdaContext implements Context {
@@ -23,16 +25,33 @@ public class LambdaContext implements Context {
   /** AWS Request Id. */
   private String awsRequestId;
 
+  /** Invocation deadline, in epoch milliseconds, 0 if not known. */
+  private long deadlineMs;
+
   /** {@link LambdaLogger}. */
   private LambdaLogger logger = new LambdaLoggerSystemOut();
 
+  /** Tasks run after the response is posted, null if none registered. */
+  private List<Runnable> afterResponseTasks;
+
   /**
    * constructor.
    *
    * @param requestId {@link String}
    */
   public LambdaContext(final String requestId) {
+    this(requestId, 0);
+  }
+
+  /**
+   * constructor.
+   *
+   * @param requestId {@link String}
+   * @param deadline long invocation deadline, in epoch milliseconds, 0 if not known
+   */
+  public LambdaContext(final String requestId, final long deadline) {
     this.awsRequestId = requestId;
+    this.deadlineMs = deadline;
   }
 
   @Override
@@ -75,9 +94,21 @@ public class LambdaContext implements Context {
     throw new UnsupportedOperationException();
   }
 
+  /**
+   * Get the invocation deadline.
+   *
+   * @return long epoch milliseconds, 0 if not known
+   */
+  public long getDeadlineMs() {
+    return this.deadlineMs;
+  }
+
   @Override
   public int getRemainingTimeInMillis() {
-    throw new UnsupportedOperationException();
+    if (this.deadlineMs <= 0) {
+      throw new UnsupportedOperationException();
+    }
+    return (int) Math.max(0, this.deadlineMs - System.currentTimeMillis());
   }
 
   @Override
@@ -89,4 +120,39 @@ public class LambdaContext implements Context {
   public LambdaLogger getLogger() {
     return this.logger;
   }
+
+  /**
+   * Register a task run after the response is posted and before the next event is polled, such as
+   * flushing metrics or an asynchronous write that the caller does not wait for. Tasks run in
+   * registration order, only after a successful response, and are stopped when they exceed the
+   * after response timeout or the invocation deadline.
+   *
+   * @param task {@link Runnable}
+   */
+  public synchronized void afterResponse(final Runnable task) {
+    if (this.afterResponseTasks == null) {
+      this.afterResponseTasks = new ArrayList<>();
+    }
+    this.afterResponseTasks.add(task);
+  }
+
+  /**
+   * Has after response tasks been registered.
+   *
+   * @return boolean
+   */
+  synchronized boolean hasAfterResponseTasks() {
+    return this.afterResponseTasks != null;
+  }
+
+  /**
+   * Remove the registered after response tasks.
+   *
+   * @return {@link List} of {@link Runnable}, empty if none registered
+   */
+  synchronized List<Runnable> takeAfterResponseTasks() {
+    List<Runnable> tasks = this.afterResponseTasks != null ? this.afterResponseTasks : List.of();
+    this.afterResponseTasks = null;
+    return tasks;
+  }
 }
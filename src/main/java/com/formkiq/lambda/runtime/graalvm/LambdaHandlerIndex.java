@@ -0,0 +1,36 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+/**
+ * Index of the handlers in a binary, loaded with {@link java.util.ServiceLoader} from
+ * 'META-INF/services/com.formkiq.lambda.runtime.graalvm.LambdaHandlerIndex'.
+ *
+ * <pre>
+ * public class MyHandlers implements LambdaHandlerIndex {
+ *   public void register(final LambdaHandlerRegistry registry) {
+ *     registry.register("orders", OrdersHandler.class, OrdersHandler::new);
+ *     registry.register("invoices", InvoicesHandler.class, InvoicesHandler::new);
+ *   }
+ * }
+ * </pre>
+ */
+public interface LambdaHandlerIndex {
+
+  /**
+   * Register handlers.
+   *
+   * @param registry {@link LambdaHandlerRegistry}
+   */
+  void register(LambdaHandlerRegistry registry);
+}
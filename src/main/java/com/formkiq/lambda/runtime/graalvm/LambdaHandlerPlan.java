@@ -0,0 +1,481 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.google.gson.reflect.TypeToken;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+/**
+ * Lambda Handler invocation plan, the resolved handler {@link Class}, {@link Method} and input
+ * type of a '_HANDLER'.
+ *
+ * <p>When the native-image is built with '-D_HANDLER=...', the plan is resolved during image build
+ * and stored in the image heap, so no class lookup or reflection scanning happens at startup.
+ * Handlers registered in the {@link LambdaHandlerRegistry} are resolved the same way.
+ */
+public final class LambdaHandlerPlan {
+
+  /** {@link RequestHandler} method name. */
+  private static final String HANDLE_REQUEST = "handleRequest";
+
+  /** {@link BatchRecordHandler} method name. */
+  private static final String HANDLE_RECORD = "handleRecord";
+
+  /** {@link LambdaHandlerPlan} resolved at class initialization (image build time). */
+  private static final LambdaHandlerPlan BUILD_TIME_PLAN =
+      resolveBuildTimePlan(System.getProperty("_HANDLER"));
+
+  /** '_HANDLER' value. */
+  private final String handler;
+
+  /** Handler {@link Class}. */
+  private final Class<?> handlerClass;
+
+  /** Handler Method Name, null if not specified in '_HANDLER'. */
+  private final String methodName;
+
+  /** Handler {@link Method}, null for stream handlers. */
+  private final Method method;
+
+  /** Handler input parameter type. */
+  private final Class<?> parameterType;
+
+  /**
+   * {@link LazyBatchEvent} record or {@link DynamodbStreamEvent} item type, null for other inputs.
+   */
+  private final Class<?> recordType;
+
+  /** Handler input {@link Type} deserialized by Gson. */
+  private final Type jsonType;
+
+  /** Handler factory, null to use the public no-arg constructor. */
+  private final Supplier<?> factory;
+
+  /**
+   * constructor.
+   *
+   * @param handlerValue {@link String}
+   * @param clazz {@link Class}
+   * @param name {@link String}
+   * @param handlerMethod {@link Method}
+   * @param type {@link Class}
+   * @param records {@link Class}
+   * @param handlerFactory {@link Supplier}
+   */
+  private LambdaHandlerPlan(
+      final String handlerValue,
+      final Class<?> clazz,
+      final String name,
+      final Method handlerMethod,
+      final Class<?> type,
+      final Class<?> records,
+      final Supplier<?> handlerFactory) {
+    this.handler = handlerValue;
+    this.handlerClass = clazz;
+    this.methodName = name;
+    this.method = handlerMethod;
+    this.parameterType = type;
+    this.recordType = records;
+    this.factory = handlerFactory;
+    this.jsonType = toJsonType(type, records);
+  }
+
+  /**
+   * Get the {@link Type} Gson deserializes the handler input as, {@link Map} inputs are read as a
+   * {@link CompactJsonMap}.
+   *
+   * @param type {@link Class}
+   * @param records {@link Class}
+   * @return {@link Type}
+   */
+  private static Type toJsonType(final Class<?> type, final Class<?> records) {
+    Type jsonType = type;
+
+    if (DynamodbStreamEvent.class.equals(type)) {
+      jsonType = TypeToken.getParameterized(type, records).getType();
+    } else if (Map.class.equals(type)) {
+      jsonType = CompactJsonMap.class;
+    }
+
+    return jsonType;
+  }
+
+  /**
+   * Resolve {@link LambdaHandlerPlan} from the '_HANDLER' value, using the build time plan if it
+   * matches.
+   *
+   * @param handlerValue {@link String}
+   * @return {@link LambdaHandlerPlan}
+   * @throws ClassNotFoundException ClassNotFoundException
+   * @throws NoSuchMethodException NoSuchMethodException
+   */
+  public static LambdaHandlerPlan resolve(final String handlerValue)
+      throws ClassNotFoundException, NoSuchMethodException {
+
+    LambdaHandlerPlan plan = BUILD_TIME_PLAN;
+    if (plan == null || !plan.handler.equals(handlerValue)) {
+      plan = LambdaHandlerRegistry.find(handlerValue);
+    }
+
+    if (plan == null) {
+      plan = build(handlerValue);
+    }
+
+    return plan;
+  }
+
+  /**
+   * Resolve the build time {@link LambdaHandlerPlan}, registered or by class name, and warm its
+   * input type adapter. A handler that fails to resolve is left to fail the init at runtime.
+   *
+   * @param handlerValue {@link String}
+   * @return {@link LambdaHandlerPlan}
+   */
+  private static LambdaHandlerPlan resolveBuildTimePlan(final String handlerValue) {
+    LambdaHandlerPlan plan = null;
+
+    if (handlerValue != null) {
+      try {
+        plan = LambdaHandlerRegistry.find(handlerValue);
+        plan = (plan != null ? plan : build(handlerValue)).warmJsonAdapter();
+      } catch (ClassNotFoundException | NoSuchMethodException | RuntimeException | LinkageError e) {
+        plan = null;
+      }
+    }
+
+    return plan;
+  }
+
+  /**
+   * Warm the Gson TypeAdapter cache for the input type, so it is stored with the plan in the image
+   * heap.
+   *
+   * @return {@link LambdaHandlerPlan}
+   */
+  LambdaHandlerPlan warmJsonAdapter() {
+    Type type = LazyBatchEvent.class.equals(this.parameterType) ? this.recordType : this.jsonType;
+    if (type != null && !ByteBuffer.class.equals(type) && !InputStream.class.equals(type)) {
+      LambdaRuntime.getJsonProvider().getAdapter(TypeToken.get(type));
+    }
+    return this;
+  }
+
+  /**
+   * Build {@link LambdaHandlerPlan}.
+   *
+   * @param handlerValue {@link String}
+   * @return {@link LambdaHandlerPlan}
+   * @throws ClassNotFoundException ClassNotFoundException
+   * @throws NoSuchMethodException NoSuchMethodException
+   */
+  private static LambdaHandlerPlan build(final String handlerValue)
+      throws ClassNotFoundException, NoSuchMethodException {
+
+    String className = handlerValue;
+    String name = null;
+
+    int pos = handlerValue.indexOf("::");
+    if (pos > 0) {
+      name = handlerValue.substring(pos + 2);
+      className = handlerValue.substring(0, pos);
+    }
+
+    Class<?> clazz = Class.forName(className, false, LambdaHandlerPlan.class.getClassLoader());
+    return build(handlerValue, clazz, name, null);
+  }
+
+  /**
+   * Build {@link LambdaHandlerPlan} of a handler {@link Class}.
+   *
+   * @param handlerValue {@link String}
+   * @param clazz {@link Class}
+   * @param name {@link String}, null for the default handler method
+   * @param handlerFactory {@link Supplier}, null to use the public no-arg constructor
+   * @return {@link LambdaHandlerPlan}
+   * @throws NoSuchMethodException NoSuchMethodException
+   */
+  static LambdaHandlerPlan build(
+      final String handlerValue,
+      final Class<?> clazz,
+      final String name,
+      final Supplier<?> handlerFactory)
+      throws NoSuchMethodException {
+
+    if (name == null && BatchRecordHandler.class.isAssignableFrom(clazz)) {
+      return buildBatchRecordPlan(handlerValue, clazz, handlerFactory);
+    }
+
+    Method handlerMethod = null;
+    Class<?> type = null;
+    Class<?> records = null;
+
+    if (name != null || RequestHandler.class.isAssignableFrom(clazz)) {
+      handlerMethod = findRequestHandlerMethod(clazz, name != null ? name : HANDLE_REQUEST);
+      if (handlerMethod == null) {
+        throw new NoSuchMethodException(handlerValue);
+      }
+
+      Type inputType = getInputType(clazz, handlerMethod);
+      type = toClass(inputType);
+
+      if (LazyBatchEvent.class.equals(type) || DynamodbStreamEvent.class.equals(type)) {
+        records =
+            inputType instanceof ParameterizedType p
+                ? toClass(p.getActualTypeArguments()[0])
+                : Object.class;
+      }
+    }
+
+    return new LambdaHandlerPlan(
+        handlerValue, clazz, name, handlerMethod, type, records, handlerFactory);
+  }
+
+  /**
+   * Build {@link LambdaHandlerPlan} for a {@link BatchRecordHandler}, the event is read as a {@link
+   * LazyBatchEvent} of the handler's record type.
+   *
+   * @param handlerValue {@link String}
+   * @param clazz {@link Class}
+   * @param handlerFactory {@link Supplier}
+   * @return {@link LambdaHandlerPlan}
+   * @throws NoSuchMethodException NoSuchMethodException
+   */
+  private static LambdaHandlerPlan buildBatchRecordPlan(
+      final String handlerValue, final Class<?> clazz, final Supplier<?> handlerFactory)
+      throws NoSuchMethodException {
+
+    Method handlerMethod = findRequestHandlerMethod(clazz, HANDLE_RECORD);
+    if (handlerMethod == null) {
+      throw new NoSuchMethodException(handlerValue);
+    }
+
+    Class<?> records = toClass(handlerMethod.getGenericParameterTypes()[0]);
+
+    for (Type type : clazz.getGenericInterfaces()) {
+      if (type instanceof ParameterizedType p
+          && BatchRecordHandler.class.equals(p.getRawType())) {
+        records = toClass(p.getActualTypeArguments()[0]);
+      }
+    }
+
+    return new LambdaHandlerPlan(
+        handlerValue, clazz, null, handlerMethod, LazyBatchEvent.class, records, handlerFactory);
+  }
+
+  /**
+   * Find {@link RequestHandler} "handleRequest", preferring the declared method over a compiler
+   * generated bridge method, whose parameter is erased.
+   *
+   * @param clazz {@link Class}
+   * @param name {@link String}
+   * @return {@link Method}
+   */
+  private static Method findRequestHandlerMethod(final Class<?> clazz, final String name) {
+    Method m = null;
+
+    for (Method cm : clazz.getMethods()) {
+      if (cm.getName().equalsIgnoreCase(name) && (m == null || m.isBridge())) {
+        m = cm;
+      }
+    }
+    return m;
+  }
+
+  /**
+   * Get the generic input Type of the Handler, resolving the {@link RequestHandler} type argument
+   * when the method parameter is erased to {@link Object}.
+   *
+   * @param clazz {@link Class}
+   * @param handlerMethod {@link Method}
+   * @return {@link Type}
+   */
+  private static Type getInputType(final Class<?> clazz, final Method handlerMethod) {
+    Parameter parameter = handlerMethod.getParameters()[0];
+    Type type = parameter.getParameterizedType();
+
+    if (Object.class.equals(parameter.getType())) {
+
+      Type[] types = clazz.getGenericInterfaces();
+      if (types.length > 0
+          && types[0] instanceof ParameterizedType p
+          && p.getActualTypeArguments().length > 0) {
+        type = p.getActualTypeArguments()[0];
+      }
+    }
+
+    return type;
+  }
+
+  /**
+   * Get the raw {@link Class} of a {@link Type}.
+   *
+   * @param type {@link Type}
+   * @return {@link Class}
+   */
+  private static Class<?> toClass(final Type type) {
+    Class<?> clazz = Object.class;
+
+    if (type instanceof Class<?> c) {
+      clazz = c;
+    } else if (type instanceof ParameterizedType p && p.getRawType() instanceof Class<?> c) {
+      clazz = c;
+    }
+
+    return clazz;
+  }
+
+  /**
+   * Create a new instance of the Handler, from the registered factory or the public no-arg
+   * constructor.
+   *
+   * @return {@link Object}
+   * @throws NoSuchMethodException NoSuchMethodException
+   * @throws InstantiationException InstantiationException
+   * @throws IllegalAccessException IllegalAccessException
+   * @throws InvocationTargetException InvocationTargetException
+   */
+  public Object newInstance()
+      throws NoSuchMethodException,
+          InstantiationException,
+          IllegalAccessException,
+          InvocationTargetException {
+    return this.factory != null
+        ? this.factory.get()
+        : this.handlerClass.getConstructor().newInstance();
+  }
+
+  /**
+   * Create a new instance of the Handler, from the first {@link HandlerFactory} that creates the
+   * Handler {@link Class}, otherwise from the registered factory or the public no-arg
+   * constructor.
+   *
+   * @param env {@link Map}
+   * @return {@link Object}
+   * @throws Exception Exception
+   */
+  public Object newInstance(final Map<String, String> env) throws Exception {
+    Object instance = null;
+
+    if (this.factory == null) {
+      ClassLoader loader = this.handlerClass.getClassLoader();
+      for (HandlerFactory handlerFactory : ServiceLoader.load(HandlerFactory.class, loader)) {
+        instance = handlerFactory.newInstance(this.handlerClass, env);
+        if (instance != null) {
+          break;
+        }
+      }
+    }
+
+    return instance != null ? instance : newInstance();
+  }
+
+  /**
+   * Get '_HANDLER' value.
+   *
+   * @return {@link String}
+   */
+  public String getHandler() {
+    return this.handler;
+  }
+
+  /**
+   * Get Handler {@link Class}.
+   *
+   * @return {@link Class}
+   */
+  public Class<?> getHandlerClass() {
+    return this.handlerClass;
+  }
+
+  /**
+   * Get Handler Method Name.
+   *
+   * @return {@link String}
+   */
+  public String getMethodName() {
+    return this.methodName;
+  }
+
+  /**
+   * Get Handler {@link Method}.
+   *
+   * @return {@link Method}
+   */
+  public Method getMethod() {
+    return this.method;
+  }
+
+  /**
+   * Get Handler input parameter type.
+   *
+   * @return {@link Class}
+   */
+  public Class<?> getParameterType() {
+    return this.parameterType;
+  }
+
+  /**
+   * Get {@link LazyBatchEvent} record or {@link DynamodbStreamEvent} item type.
+   *
+   * @return {@link Class}, null if the Handler input is not a {@link LazyBatchEvent} or {@link
+   *     DynamodbStreamEvent}
+   */
+  public Class<?> getRecordType() {
+    return this.recordType;
+  }
+
+  /**
+   * Get the Handler input {@link Type} deserialized by Gson, the parameter type with the item type
+   * of a {@link DynamodbStreamEvent}.
+   *
+   * @return {@link Type}
+   */
+  public Type getJsonType() {
+    return this.jsonType;
+  }
+
+  /**
+   * Can the Handler input objects be reused between invocations, true for {@link
+   * ReusableInputHandler}s that do not return a {@link CompletionStage}.
+   *
+   * @return boolean
+   */
+  public boolean isReusableInput() {
+    return ReusableInputHandler.class.isAssignableFrom(this.handlerClass)
+        && this.method != null
+        && !CompletionStage.class.isAssignableFrom(this.method.getReturnType());
+  }
+
+  /**
+   * Is the Handler input deserialized directly from the event {@link java.io.InputStream}, true for
+   * JSON object handler inputs, {@link String} inputs keep the event body as is.
+   *
+   * @return boolean
+   */
+  public boolean isStreamingInput() {
+    return this.method != null
+        && this.parameterType != null
+        && !String.class.equals(this.parameterType);
+  }
+}
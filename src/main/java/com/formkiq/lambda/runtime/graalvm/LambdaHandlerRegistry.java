@@ -0,0 +1,141 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Dispatch table of the handlers registered by the {@link LambdaHandlerIndex}es on the class path,
+ * so one binary can serve many functions and '_HANDLER' selects the handler by its registered name
+ * (or class name).
+ *
+ * <p>The table is loaded by the first lookup, so an index that fails to register its handlers
+ * fails the init like any other handler error. Building a native image with '-D_HANDLER' does the
+ * lookup at image build time, so the table is stored in the image heap and the selected handler is
+ * created from its factory, with no {@link Class#forName(String)} or reflection at startup.
+ */
+public final class LambdaHandlerRegistry {
+
+  /** Registered {@link LambdaHandlerPlan}s by name, null until loaded by the first lookup. */
+  private static Map<String, LambdaHandlerPlan> loaded;
+
+  /** Registered {@link LambdaHandlerPlan}s. */
+  private final Map<String, LambdaHandlerPlan> plans = new HashMap<>();
+
+  /** constructor. */
+  private LambdaHandlerRegistry() {}
+
+  /**
+   * Get the registered {@link LambdaHandlerPlan}s, loading the {@link LambdaHandlerIndex}es on the
+   * first call.
+   *
+   * @return {@link Map}
+   */
+  private static synchronized Map<String, LambdaHandlerPlan> getPlans() {
+    if (loaded == null) {
+      loaded = load();
+    }
+    return loaded;
+  }
+
+  /**
+   * Load the {@link LambdaHandlerIndex}es.
+   *
+   * @return {@link Map}
+   */
+  private static Map<String, LambdaHandlerPlan> load() {
+    LambdaHandlerRegistry registry = new LambdaHandlerRegistry();
+
+    ClassLoader classLoader = LambdaHandlerRegistry.class.getClassLoader();
+    try {
+      for (LambdaHandlerIndex index : ServiceLoader.load(LambdaHandlerIndex.class, classLoader)) {
+        index.register(registry);
+      }
+    } catch (ServiceConfigurationError e) {
+      throw new IllegalStateException("Invalid LambdaHandlerIndex", e);
+    }
+
+    return Collections.unmodifiableMap(registry.plans);
+  }
+
+  /**
+   * Find a registered {@link LambdaHandlerPlan}.
+   *
+   * @param handler {@link String} registered name or class name
+   * @return {@link LambdaHandlerPlan}, null if not registered
+   */
+  public static LambdaHandlerPlan find(final String handler) {
+    return getPlans().get(handler);
+  }
+
+  /**
+   * Get the registered handler names.
+   *
+   * @return {@link Set}
+   */
+  public static Set<String> getNames() {
+    return getPlans().keySet();
+  }
+
+  /**
+   * Register a handler, using its default handler method.
+   *
+   * @param <T> Type of handler
+   * @param name {@link String} '_HANDLER' value
+   * @param handlerClass {@link Class}
+   * @param factory {@link Supplier} creating the handler
+   * @return {@link LambdaHandlerRegistry}
+   */
+  public <T> LambdaHandlerRegistry register(
+      final String name, final Class<T> handlerClass, final Supplier<? extends T> factory) {
+    return register(name, handlerClass, null, factory);
+  }
+
+  /**
+   * Register a handler method.
+   *
+   * @param <T> Type of handler
+   * @param name {@link String} '_HANDLER' value
+   * @param handlerClass {@link Class}
+   * @param methodName {@link String}, null for the default handler method
+   * @param factory {@link Supplier} creating the handler
+   * @return {@link LambdaHandlerRegistry}
+   */
+  public <T> LambdaHandlerRegistry register(
+      final String name,
+      final Class<T> handlerClass,
+      final String methodName,
+      final Supplier<? extends T> factory) {
+
+    LambdaHandlerPlan plan;
+    try {
+      plan = LambdaHandlerPlan.build(name, handlerClass, methodName, factory);
+    } catch (NoSuchMethodException e) {
+      throw new IllegalArgumentException("No handler method for " + name, e);
+    }
+
+    this.plans.put(name, plan);
+
+    String className =
+        methodName != null ? handlerClass.getName() + "::" + methodName : handlerClass.getName();
+    this.plans.putIfAbsent(className, plan);
+
+    return this;
+  }
+}
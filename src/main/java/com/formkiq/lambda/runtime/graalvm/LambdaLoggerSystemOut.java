@@ -23,11 +23,13 @@ import java.util.Map;
 /** Implementation of {@link LambdaLogger}. */
 public class LambdaLoggerSystemOut implements LambdaLogger {
 
+  /** {@link Gson}. */
+  private static final Gson GSON = new GsonBuilder().create();
+
   @Override
   public void log(final String message) {
     if (isJsonFormat()) {
-      Gson gson = new GsonBuilder().create();
-      System.out.println(gson.toJson(Map.of("level", "ERROR", "message", message)));
+      System.out.println(GSON.toJson(Map.of("level", "ERROR", "message", message)));
     } else {
       System.out.println(message);
     }
@@ -38,6 +40,7 @@ public class LambdaLoggerSystemOut implements LambdaLogger {
   public void log(final byte[] message) {
     try {
       System.out.write(message);
+      System.out.flush();
     } catch (IOException e) {
       // NOTE: When actually running on AWS Lambda, an IOException would never happen
     }
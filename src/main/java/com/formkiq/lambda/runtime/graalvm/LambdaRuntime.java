@@ -22,10 +22,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
-import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.text.MessageFormat;
 import java.util.HashMap;
@@ -40,42 +38,39 @@ public class LambdaRuntime {
   /** Lambda Version. */
   private static final String LAMBDA_VERSION_DATE = "2018-06-01";
 
-  /** Lambda Runtime URL. */
-  private static final String LAMBDA_RUNTIME_URL_TEMPLATE =
-      "http://{0}/{1}/runtime/invocation/next";
+  /** Lambda Runtime Api Path. */
+  private static final String LAMBDA_RUNTIME_PATH = "/" + LAMBDA_VERSION_DATE + "/runtime";
 
-  /** Lambda Runtime Invocation URL. */
-  private static final String LAMBDA_INVOCATION_URL_TEMPLATE =
-      "http://{0}/{1}/runtime/invocation/{2}/response";
+  /** Lambda Runtime Next Invocation Path. */
+  private static final String LAMBDA_NEXT_PATH = "/invocation/next";
 
-  /** Lambda Init Error URL. */
-  private static final String LAMBDA_INIT_ERROR_URL_TEMPLATE = "http://{0}/{1}/runtime/init/error";
-
-  /** Lambda Error Inocation Url. */
-  private static final String LAMBDA_ERROR_URL_TEMPLATE =
-      "http://{0}/{1}/runtime/invocation/{2}/error";
+  /** Lambda Init Error Path. */
+  private static final String LAMBDA_INIT_ERROR_PATH = "/init/error";
 
   /** Error Response Template. */
   private static final String ERROR_RESPONSE_TEMPLATE =
       "'{'\"errorMessage\":\"{0}\",\"errorType\":\"{1}\"'}'";
 
+  /** Init Error Response. */
+  private static final String INIT_ERROR_RESPONSE =
+      MessageFormat.format(ERROR_RESPONSE_TEMPLATE, "Could not find handler method", "InitError");
+
+  /** Invocation Error Response. */
+  private static final String INVOCATION_ERROR_RESPONSE =
+      MessageFormat.format(ERROR_RESPONSE_TEMPLATE, "Invocation Error", "RuntimeError");
+
+  /** {@link Gson}. */
+  private static final Gson GSON = buildJsonProvider();
+
   /**
-   * Find {@link RequestHandler} "handleRequest".
+   * Build Lambda Runtime Api Url.
    *
-   * @param clazz {@link Class}
-   * @param methodName {@link String}
-   * @return {@link Method}
+   * @param runtimeApi {@link String}
+   * @param path {@link String}
+   * @return {@link String}
    */
-  private static Method findRequestHandlerMethod(final Class<?> clazz, final String methodName) {
-    Method method = null;
-
-    for (Method m : clazz.getMethods()) {
-      if (m.getName().equalsIgnoreCase(methodName)) {
-        method = m;
-        break;
-      }
-    }
-    return method;
+  private static String buildRuntimeUrl(final String runtimeApi, final String path) {
+    return "http://" + runtimeApi + LAMBDA_RUNTIME_PATH + path;
   }
 
   /**
@@ -94,13 +89,8 @@ public class LambdaRuntime {
     String runtimeApi = env.get("AWS_LAMBDA_RUNTIME_API");
 
     if (runtimeApi != null) {
-      String initErrorUrl =
-          MessageFormat.format(LAMBDA_INIT_ERROR_URL_TEMPLATE, runtimeApi, LAMBDA_VERSION_DATE);
-
-      String error =
-          MessageFormat.format(
-              ERROR_RESPONSE_TEMPLATE, "Could not find handler method", "InitError");
-      HttpClient.post(initErrorUrl, error);
+      String initErrorUrl = buildRuntimeUrl(runtimeApi, LAMBDA_INIT_ERROR_PATH);
+      HttpClient.post(initErrorUrl, INIT_ERROR_RESPONSE);
     }
   }
 
@@ -123,15 +113,10 @@ public class LambdaRuntime {
     String runtimeApi = env.get("AWS_LAMBDA_RUNTIME_API");
 
     if (runtimeApi != null) {
-      String initErrorUrl =
-          MessageFormat.format(
-              LAMBDA_ERROR_URL_TEMPLATE, runtimeApi, LAMBDA_VERSION_DATE, requestId);
-
-      String error =
-          MessageFormat.format(ERROR_RESPONSE_TEMPLATE, "Invocation Error", "RuntimeError");
+      String errorUrl = buildRuntimeUrl(runtimeApi, "/invocation/" + requestId + "/error");
 
       try {
-        HttpClient.post(initErrorUrl, error);
+        HttpClient.post(errorUrl, INVOCATION_ERROR_RESPONSE);
       } catch (IOException e) {
         context.getLogger().log(LambdaLoggerSystemOut.toString(e));
       }
@@ -145,122 +130,489 @@ public class LambdaRuntime {
    * @throws IOException IOException
    */
   public static void invoke(final Map<String, String> env) throws IOException {
-    String method = null;
+    long initStart = System.nanoTime();
     String handlerName = env.get("_HANDLER");
     if (handlerName == null) {
       throw new RuntimeException("'_HANDLER' system property not set");
     }
 
-    int pos = handlerName.indexOf("::");
-    if (pos > 0) {
-      method = handlerName.substring(pos + 2);
-      handlerName = handlerName.substring(0, pos);
-    }
+    String runtimeApi = env.get("AWS_LAMBDA_RUNTIME_API");
+    InitPrefetch prefetch =
+        InitPrefetch.isEnabled(env)
+            ? InitPrefetch.start(env, buildRuntimeUrl(runtimeApi, LAMBDA_NEXT_PATH))
+            : null;
 
+    LambdaHandlerPlan plan = null;
     Object handler = null;
+    IdempotencyCache cache = null;
+    long constructNanos = 0;
 
     try {
-      Class<?> clazz = Class.forName(handlerName);
-      handler = clazz.getConstructor().newInstance();
+      plan = LambdaHandlerPlan.resolve(handlerName);
+      long constructStart = System.nanoTime();
+      handler = plan.newInstance(env);
+      constructNanos = System.nanoTime() - constructStart;
+
+      if (handler instanceof BatchRecordHandler<?> recordHandler) {
+        handler = new BatchRecordRequestHandler<>(recordHandler, env);
+      }
+
+      cache = IdempotencyCache.isEnabled(env) ? new IdempotencyCache(env) : null;
+      install(env, plan);
     } catch (Exception e) {
-      Context context = new LambdaContext(UUID.randomUUID().toString());
-      LambdaRuntime.handleInitError(env, e, context);
+      handleInitError(env, e, new LambdaContext(UUID.randomUUID().toString()));
+      handler = null;
+
+      if (prefetch != null) {
+        prefetch.close();
+      }
     }
 
     if (handler != null) {
-      invokeClass(env, handler, method);
+      long initNanos = System.nanoTime() - initStart;
+      invokeClass(env, handler, plan, cache, prefetch, initNanos, constructNanos);
     }
   }
 
+  /**
+   * Install the current thread's runtime state for a handler: the {@link BufferPool}, {@link
+   * InputRecycler}, {@link AfterResponseTasks} and {@link HousekeepingScheduler}.
+   *
+   * @param env {@link Map}
+   * @param plan {@link LambdaHandlerPlan}
+   */
+  static void install(final Map<String, String> env, final LambdaHandlerPlan plan) {
+    BufferPool.install(env);
+    InputRecycler.install(env, plan);
+    AfterResponseTasks.install(env);
+    HousekeepingScheduler.install(env);
+  }
+
+  /**
+   * Run the event loop of an already created handler, skipping init, on a thread the runtime
+   * state was {@link #install(Map, LambdaHandlerPlan)}ed on. Used by benchmarks to exclude handler
+   * construction.
+   *
+   * @param env {@link Map}
+   * @param plan {@link LambdaHandlerPlan}
+   * @param handler {@link Object}
+   * @throws IOException Request Failed to get Lambda Runtime Event
+   */
+  static void invoke(
+      final Map<String, String> env, final LambdaHandlerPlan plan, final Object handler)
+      throws IOException {
+    invokeClass(env, handler, plan, null, null, 0, 0);
+  }
+
   /**
    * Handle Lambda Request.
    *
    * @param env {@link Map}
    * @param handler {@link Object}
-   * @param method {@link String}
+   * @param plan {@link LambdaHandlerPlan}
+   * @param cache {@link IdempotencyCache}, null if not enabled
+   * @param prefetch {@link InitPrefetch} of the first long poll, null if parallel init not enabled
+   * @param initNanos long
+   * @param constructNanos long handler construction, part of the init duration
    * @throws IOException Request Failed to get Lambda Runtime Event
    */
   private static void invokeClass(
-      final Map<String, String> env, final Object handler, final String method) throws IOException {
+      final Map<String, String> env,
+      final Object handler,
+      final LambdaHandlerPlan plan,
+      final IdempotencyCache cache,
+      final InitPrefetch prefetch,
+      final long initNanos,
+      final long constructNanos)
+      throws IOException {
     String runtimeApi = env.get("AWS_LAMBDA_RUNTIME_API");
 
-    String runtimeUrl =
-        runtimeApi != null
-            ? MessageFormat.format(LAMBDA_RUNTIME_URL_TEMPLATE, runtimeApi, LAMBDA_VERSION_DATE)
-            : null;
+    String runtimeUrl = runtimeApi != null ? buildRuntimeUrl(runtimeApi, LAMBDA_NEXT_PATH) : null;
+
+    InvocationMetrics metrics = new InvocationMetrics(EmfMetricsPublisher.isEnabled(env));
+    EmfMetricsPublisher publisher = new EmfMetricsPublisher(env);
+    HousekeepingScheduler housekeeping = HousekeepingScheduler.get();
+    metrics.setConstructDuration(constructNanos);
+    InitPrefetch pending = prefetch;
+    PipelinedConnection.install(env, runtimeUrl);
 
     // Main event loop
     while (true) {
 
+      metrics.start(initNanos);
+
       // Get next Lambda Event
-      String eventBody = null;
+      HttpResponse event = null;
       String requestId = UUID.randomUUID().toString();
-      Context context = new LambdaContext(requestId);
 
       if (runtimeUrl != null) {
-        HttpResponse event = HttpClient.get(runtimeUrl);
+        event = nextInvocation(runtimeUrl, pending, metrics);
+        pending = null;
         requestId = event.getHeaderValue("Lambda-Runtime-Aws-Request-Id");
-
-        String xamazTraceId = event.getHeaderValue("Lambda-Runtime-Trace-Id");
-        if (xamazTraceId != null) {
-          System.setProperty("com.amazonaws.xray.traceHeader", xamazTraceId);
-        }
-
-        eventBody = event.getBody();
       }
 
-      try {
-
-        String result = invokeLambdaRequestHandler(handler, method, context, eventBody);
+      LambdaContext context =
+          new LambdaContext(requestId, event != null ? getDeadline(event) : 0);
+      metrics.setRequestId(requestId);
 
-        if (runtimeApi != null) {
+      String responseUrl =
+          runtimeApi != null
+              ? buildRuntimeUrl(runtimeApi, "/invocation/" + requestId + "/response")
+              : null;
 
-          // Post the results of Handler Invocation
-          String invocationUrl =
-              MessageFormat.format(
-                  LAMBDA_INVOCATION_URL_TEMPLATE, runtimeApi, LAMBDA_VERSION_DATE, requestId);
-          HttpClient.post(invocationUrl, result);
-
-        } else {
+      try {
 
-          context.getLogger().log(result);
-        }
+        handleEvent(handler, plan, context, event, responseUrl, metrics, cache);
+        AfterResponseTasks.get().run(context, metrics);
 
       } catch (Exception e) {
         handleInvocationException(env, requestId, e, context);
+        metrics.mark(InvocationPhase.POST);
       }
 
+      // written before the next long poll, which is not pipelined while metrics are enabled
+      housekeeping.run(metrics);
+      metrics.finish();
+      publisher.publish(metrics, context.getLogger());
+      BufferPool.get().release();
+
       if ("true".equals(env.getOrDefault("SINGLE_LOOP", "false"))) {
+        PipelinedConnection.remove();
         break;
       }
     }
   }
 
+  /**
+   * Handle Lambda Event.
+   *
+   * @param handler {@link Object}
+   * @param plan {@link LambdaHandlerPlan}
+   * @param context {@link Context}
+   * @param event {@link HttpResponse}, null when not running in Lambda
+   * @param responseUrl {@link String}, null when not running in Lambda
+   * @param metrics {@link InvocationMetrics}
+   * @param cache {@link IdempotencyCache}, null if not enabled
+   * @throws Exception Exception
+   */
+  private static void handleEvent(
+      final Object handler,
+      final LambdaHandlerPlan plan,
+      final Context context,
+      final HttpResponse event,
+      final String responseUrl,
+      final InvocationMetrics metrics,
+      final IdempotencyCache cache)
+      throws Exception {
+
+    if (event != null) {
+
+      EventPayload payload;
+      try (InputStream is = event.getBodyStream()) {
+        payload = BufferPool.get().read(is, getContentLength(event));
+      }
+
+      metrics.setRequestBytes(payload.size());
+      metrics.mark(InvocationPhase.READ);
+
+      if (cache != null) {
+        invokeIdempotent(handler, plan, context, payload, responseUrl, metrics, cache);
+      } else {
+        Object value = invokePayload(handler, plan, context, payload, metrics);
+        postValue(responseUrl, value, metrics, canPipeline(context, metrics));
+      }
+
+    } else {
+
+      String result = invokeLambdaRequestHandler(handler, plan, context, null, metrics);
+      context.getLogger().log(result);
+      metrics.mark(InvocationPhase.POST);
+    }
+  }
+
+  /**
+   * Answer the event from the {@link IdempotencyCache}, or invoke the handler and cache its
+   * response. Only the response of an event with an idempotency key is copied to be cached, other
+   * responses are streamed like without the cache.
+   *
+   * @param handler {@link Object}
+   * @param plan {@link LambdaHandlerPlan}
+   * @param context {@link Context}
+   * @param payload {@link EventPayload}
+   * @param responseUrl {@link String}
+   * @param metrics {@link InvocationMetrics}
+   * @param cache {@link IdempotencyCache}
+   * @throws Exception Exception
+   */
+  private static void invokeIdempotent(
+      final Object handler,
+      final LambdaHandlerPlan plan,
+      final Context context,
+      final EventPayload payload,
+      final String responseUrl,
+      final InvocationMetrics metrics,
+      final IdempotencyCache cache)
+      throws Exception {
+
+    String key = cache.getKey(payload);
+    byte[] response = key != null ? cache.get(key) : null;
+
+    if (response != null) {
+
+      postValue(responseUrl, response, metrics, canPipeline(context, metrics));
+
+    } else if (key == null) {
+
+      Object value = invokePayload(handler, plan, context, payload, metrics);
+      postValue(responseUrl, value, metrics, canPipeline(context, metrics));
+
+    } else {
+
+      // only a response to cache is copied, and cached before the next long poll is sent
+      Object value = invokePayload(handler, plan, context, payload, metrics);
+      response = ResponseBody.of(value, GSON, BufferPool.get()).toByteArray();
+      postValue(responseUrl, response, metrics, false);
+      cache.put(key, response);
+    }
+  }
+
+  /**
+   * Get the next Lambda Event, the event body is left unread on {@link
+   * HttpResponse#getBodyStream()}.
+   *
+   * @param runtimeUrl {@link String}
+   * @param prefetch {@link InitPrefetch} to send the long poll on, null to start a new one
+   * @param metrics {@link InvocationMetrics}
+   * @return {@link HttpResponse}
+   * @throws IOException IOException
+   */
+  private static HttpResponse nextInvocation(
+      final String runtimeUrl, final InitPrefetch prefetch, final InvocationMetrics metrics)
+      throws IOException {
+
+    HttpResponse event = prefetch != null ? prefetch.join() : poll(runtimeUrl);
+    metrics.mark(InvocationPhase.POLL, event.getHeadersReceivedNanos());
+
+    String xamazTraceId = event.getHeaderValue("Lambda-Runtime-Trace-Id");
+    if (xamazTraceId != null) {
+      System.setProperty("com.amazonaws.xray.traceHeader", xamazTraceId);
+    }
+
+    return event;
+  }
+
+  /**
+   * Start the '/invocation/next' long poll, or read the poll pipelined behind the last response.
+   *
+   * @param runtimeUrl {@link String}
+   * @return {@link HttpResponse}
+   * @throws IOException IOException
+   */
+  private static HttpResponse poll(final String runtimeUrl) throws IOException {
+    PipelinedConnection connection = PipelinedConnection.get();
+    return connection != null ? connection.next() : HttpClient.open(runtimeUrl);
+  }
+
+  /**
+   * Can the next long poll be pipelined behind the response. The execution environment can be
+   * frozen as soon as the poll is sent, so nothing may be left to run after the response: no EMF
+   * metrics line, after response tasks or {@link HousekeepingScheduler} collection.
+   *
+   * @param context {@link Context}
+   * @param metrics {@link InvocationMetrics}
+   * @return boolean
+   */
+  private static boolean canPipeline(final Context context, final InvocationMetrics metrics) {
+    return !metrics.isEnabled()
+        && !AfterResponseTasks.isPending(context)
+        && !HousekeepingScheduler.isPending();
+  }
+
+  /**
+   * Post the handler result as a {@link ResponseBody} with an exact Content-Length, pipelining
+   * the next long poll when a {@link PipelinedConnection} is installed. A response the Runtime
+   * API rejects fails the invocation, so its error is posted.
+   *
+   * @param responseUrl {@link String}
+   * @param value {@link Object}
+   * @param metrics {@link InvocationMetrics}
+   * @param pipeline boolean, whether the next long poll can be pipelined behind the response
+   * @throws IOException IOException
+   */
+  private static void postValue(
+      final String responseUrl,
+      final Object value,
+      final InvocationMetrics metrics,
+      final boolean pipeline)
+      throws IOException {
+
+    BufferPool pool = BufferPool.get();
+    ResponseBody body = ResponseBody.of(value, GSON, pool);
+    metrics.mark(InvocationPhase.SERIALIZE);
+
+    PipelinedConnection connection = PipelinedConnection.get();
+    HttpResponse response =
+        connection != null
+            ? connection.post(responseUrl, body, body.getLength(), pipeline)
+            : HttpClient.post(responseUrl, body, body.getLength());
+
+    if (!response.isSuccess()) {
+      throw new IOException(
+          "Runtime API rejected the response with status " + response.getStatusCode());
+    }
+
+    metrics.setResponseBytes(body.getLength());
+    metrics.mark(InvocationPhase.POST);
+  }
+
+  /**
+   * Get the event Content-Length.
+   *
+   * @param event {@link HttpResponse}
+   * @return long, -1 if not set
+   */
+  private static long getContentLength(final HttpResponse event) {
+    String contentLength = event.getHeaderValue("Content-Length");
+    return contentLength != null ? Long.parseLong(contentLength) : -1;
+  }
+
+  /**
+   * Get the event Lambda-Runtime-Deadline-Ms.
+   *
+   * @param event {@link HttpResponse}
+   * @return long epoch milliseconds, 0 if not set
+   */
+  private static long getDeadline(final HttpResponse event) {
+    String deadline = event.getHeaderValue("Lambda-Runtime-Deadline-Ms");
+    return deadline != null ? Long.parseLong(deadline) : 0;
+  }
+
+  /**
+   * Invoke Lambda handler with the event {@link EventPayload}.
+   *
+   * @param handler {@link Object}
+   * @param plan {@link LambdaHandlerPlan}
+   * @param context {@link Context}
+   * @param payload {@link EventPayload}
+   * @param metrics {@link InvocationMetrics}
+   * @return {@link Object}
+   * @throws Exception Exception
+   */
+  private static Object invokePayload(
+      final Object handler,
+      final LambdaHandlerPlan plan,
+      final Context context,
+      final EventPayload payload,
+      final InvocationMetrics metrics)
+      throws Exception {
+
+    Object value;
+
+    if (plan.isStreamingInput()) {
+      value = invokeRequestHandler(handler, plan, context, payload, metrics);
+    } else if (plan.getMethod() == null && handler instanceof RequestStreamHandler streamHandler) {
+      value =
+          invokeRequestStreamHandler(
+              streamHandler, BufferPool.get().open(payload), context, metrics);
+    } else {
+      value = invokeHandler(handler, plan, context, payload.toLineString(), metrics);
+    }
+
+    return value;
+  }
+
+  /**
+   * Invoke Lambda method, deserializing the input directly from the event bytes. {@link
+   * ByteBuffer} and {@link InputStream} inputs are passed a view of the event bytes.
+   *
+   * @param handler {@link Object}
+   * @param plan {@link LambdaHandlerPlan}
+   * @param context {@link Context}
+   * @param payload {@link EventPayload}
+   * @param metrics {@link InvocationMetrics}
+   * @return {@link Object}
+   * @throws Exception Exception
+   */
+  static Object invokeRequestHandler(
+      final Object handler,
+      final LambdaHandlerPlan plan,
+      final Context context,
+      final EventPayload payload,
+      final InvocationMetrics metrics)
+      throws Exception {
+
+    Class<?> type = plan.getParameterType();
+    Object input;
+
+    if (LazyBatchEvent.class.equals(type)) {
+      input =
+          new LazyBatchEvent<>(
+              GSON, BufferPool.get().readAllBytes(payload), plan.getRecordType());
+    } else if (ByteBuffer.class.equals(type)) {
+      input = payload.byteBuffer();
+    } else if (InputStream.class.equals(type)) {
+      input = BufferPool.get().open(payload);
+    } else {
+      input = readObject(getInputJsonProvider(), payload, plan.getJsonType());
+    }
+    metrics.mark(InvocationPhase.DESERIALIZE);
+
+    return invokeHandlerMethod(handler, plan, input, context, metrics);
+  }
+
   /**
    * Invoke Lambda method.
    *
    * @param handler {@link Object}
-   * @param methodName {@link String}
+   * @param plan {@link LambdaHandlerPlan}
    * @param context {@link Context}
    * @param payload {@link String}
+   * @param metrics {@link InvocationMetrics}
    * @return {@link String}
    * @throws Exception Exception
    */
-  private static String invokeLambdaRequestHandler(
-      final Object handler, final String methodName, final Context context, final String payload)
+  static String invokeLambdaRequestHandler(
+      final Object handler,
+      final LambdaHandlerPlan plan,
+      final Context context,
+      final String payload,
+      final InvocationMetrics metrics)
       throws Exception {
 
-    String value;
-    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    Object value = invokeHandler(handler, plan, context, payload, metrics);
+    String result =
+        value instanceof String s ? s : ResponseBody.of(value, GSON, BufferPool.get()).toString();
 
-    if (methodName != null) {
-      value = invokeMethod(handler, methodName, payload, context);
-    } else if (handler instanceof RequestHandler) {
-      value = invokeMethod(handler, "handleRequest", payload, context);
-    } else if (handler instanceof RequestStreamHandler) {
+    metrics.mark(InvocationPhase.SERIALIZE);
+    return result;
+  }
+
+  /**
+   * Invoke Lambda handler, returning the unserialized result.
+   *
+   * @param handler {@link Object}
+   * @param plan {@link LambdaHandlerPlan}
+   * @param context {@link Context}
+   * @param payload {@link String}
+   * @param metrics {@link InvocationMetrics}
+   * @return {@link Object}
+   * @throws Exception Exception
+   */
+  private static Object invokeHandler(
+      final Object handler,
+      final LambdaHandlerPlan plan,
+      final Context context,
+      final String payload,
+      final InvocationMetrics metrics)
+      throws Exception {
 
-      value = invokeRequestStreamHandler((RequestStreamHandler) handler, payload, output, context);
+    Object value;
 
+    if (plan.getMethod() != null) {
+      value = invokeMethod(handler, plan, payload, context, metrics);
+    } else if (handler instanceof RequestStreamHandler streamHandler) {
+      InputStream input = new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8));
+      value = invokeRequestStreamHandler(streamHandler, input, context, metrics);
     } else {
       throw new UnsupportedOperationException(
           "Unsupported handler: " + handler.getClass().getName());
@@ -273,116 +625,179 @@ public class LambdaRuntime {
    * Invoke {@link RequestHandler}.
    *
    * @param object {@link Object}
-   * @param methodName {@link String}
+   * @param plan {@link LambdaHandlerPlan}
    * @param payload {@link String}
    * @param context {@link Context}
-   * @return {@link String}
+   * @param metrics {@link InvocationMetrics}
+   * @return {@link Object}
    * @throws InvocationTargetException InvocationTargetException
    * @throws IllegalArgumentException IllegalArgumentException
    * @throws IllegalAccessException IllegalAccessException
-   * @throws ClassNotFoundException ClassNotFoundException
    */
-  @SuppressWarnings("rawtypes")
-  private static String invokeMethod(
-      final Object object, final String methodName, final String payload, final Context context)
-      throws IllegalAccessException,
-          IllegalArgumentException,
-          InvocationTargetException,
-          ClassNotFoundException {
+  private static Object invokeMethod(
+      final Object object,
+      final LambdaHandlerPlan plan,
+      final String payload,
+      final Context context,
+      final InvocationMetrics metrics)
+      throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
 
-    String val = "";
-    Method method = findRequestHandlerMethod(object.getClass(), methodName);
-    Class<?> parameterType = getParameterType(object, method);
+    Object input =
+        LazyBatchEvent.class.equals(plan.getParameterType())
+            ? new LazyBatchEvent<>(GSON, toBytes(payload), plan.getRecordType())
+            : convertToObject(getInputJsonProvider(), payload, plan.getJsonType());
+    metrics.mark(InvocationPhase.DESERIALIZE);
 
-    Gson gson = buildJsonProvider();
-    Object input = convertToObject(gson, payload, parameterType);
+    return invokeHandlerMethod(object, plan, input, context, metrics);
+  }
+
+  /**
+   * Call the {@link RequestHandler} method, waiting for {@link AsyncRequestHandler} results.
+   *
+   * @param object {@link Object}
+   * @param plan {@link LambdaHandlerPlan}
+   * @param input {@link Object}
+   * @param context {@link Context}
+   * @param metrics {@link InvocationMetrics}
+   * @return {@link Object}
+   * @throws InvocationTargetException InvocationTargetException
+   * @throws IllegalArgumentException IllegalArgumentException
+   * @throws IllegalAccessException IllegalAccessException
+   */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private static Object invokeHandlerMethod(
+      final Object object,
+      final LambdaHandlerPlan plan,
+      final Object input,
+      final Context context,
+      final InvocationMetrics metrics)
+      throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
 
     Object value;
-    if (methodName == null && object instanceof RequestHandler) {
+    if (plan.getMethodName() == null && object instanceof RequestHandler) {
       value = ((RequestHandler) object).handleRequest(input, context);
     } else {
-      value = method.invoke(object, input, context);
+      value = plan.getMethod().invoke(object, input, context);
     }
 
-    Class<?> valueClass = value != null ? value.getClass() : null;
+    value = AsyncResult.await(value, context);
+    metrics.mark(InvocationPhase.HANDLER);
+    return value;
+  }
 
-    if (valueClass != null && value != null) {
+  /**
+   * Get the UTF-8 bytes of the payload.
+   *
+   * @param payload {@link String}
+   * @return byte[]
+   */
+  private static byte[] toBytes(final String payload) {
+    return payload != null ? payload.getBytes(StandardCharsets.UTF_8) : new byte[0];
+  }
 
-      if (String.class.equals(valueClass)) {
-        val = value.toString();
-      } else {
-        val = gson.toJson(value);
-      }
-    }
+  static Object convertToObject(final Gson gson, final String payload, final Type parameterType) {
+    return gson.fromJson(payload, parameterType);
+  }
 
-    return val;
+  /**
+   * Deserialize JSON from an {@link InputStream}, reading it into the thread's {@link BufferPool}.
+   * The stream is closed once read.
+   *
+   * @param gson {@link Gson}
+   * @param payload {@link InputStream}
+   * @param parameterType {@link Class}
+   * @return {@link Object}
+   * @throws IOException IOException
+   */
+  static Object readObject(
+      final Gson gson, final InputStream payload, final Class<?> parameterType)
+      throws IOException {
+    try (payload) {
+      return readObject(gson, BufferPool.get().read(payload), parameterType);
+    }
   }
 
-  static Object convertToObject(
-      final Gson gson, final String payload, final Class<?> parameterType) {
-    return gson.fromJson(payload, parameterType);
+  /**
+   * Deserialize UTF-8 JSON from an {@link EventPayload}.
+   *
+   * @param gson {@link Gson}
+   * @param payload {@link EventPayload}
+   * @param parameterType {@link Type}
+   * @return {@link Object}
+   * @throws IOException IOException
+   */
+  static Object readObject(
+      final Gson gson, final EventPayload payload, final Type parameterType)
+      throws IOException {
+    return gson.fromJson(BufferPool.get().reader(payload), parameterType);
   }
 
   static Gson buildJsonProvider() {
+    return jsonProviderBuilder()
+        .registerTypeAdapterFactory(new AwsEventsTypeAdapterFactory())
+        .create();
+  }
+
+  /**
+   * Get a {@link GsonBuilder} configured for AWS events, reading the events through reflection.
+   *
+   * @return {@link GsonBuilder}
+   */
+  static GsonBuilder jsonProviderBuilder() {
     return new GsonBuilder()
         .setFieldNamingStrategy(new AwsEventsFieldNamingStrategy())
         .registerTypeAdapter(DateTime.class, new DateTimeConverter())
-        .setExclusionStrategies(new AwsEventsExclusionStrategy())
-        .create();
+        .registerTypeAdapter(String.class, new CanonicalStringTypeAdapter())
+        .registerTypeHierarchyAdapter(ByteBuffer.class, new ByteBufferTypeAdapter())
+        .registerTypeAdapterFactory(new DynamodbStreamEventTypeAdapterFactory())
+        .registerTypeAdapterFactory(new CompactJsonMapTypeAdapterFactory())
+        .setExclusionStrategies(new AwsEventsExclusionStrategy());
   }
 
   /**
-   * Get the Parameter Type of the Object.
+   * Get the {@link Gson} to deserialize the handler input with, reusing the previous input's
+   * objects when an {@link InputRecycler} is installed.
    *
-   * @param object {@link Object}
-   * @param method {@link Method}
-   * @return {@link Class}
-   * @throws ClassNotFoundException ClassNotFoundException
+   * @return {@link Gson}
    */
-  private static Class<?> getParameterType(final Object object, final Method method)
-      throws ClassNotFoundException {
-    Parameter parameter = method.getParameters()[0];
-    Class<?> parameterType = parameter.getType();
-
-    if (Object.class.equals(parameterType)) {
-
-      Type[] types = object.getClass().getGenericInterfaces();
-      if (types.length > 0 && types[0] instanceof ParameterizedType p) {
-        if (p.getActualTypeArguments().length > 0) {
-          String typeName = p.getActualTypeArguments()[0].getTypeName();
-          if (typeName.startsWith("java.util.Map")) {
-            parameterType = Map.class;
-          } else {
-            parameterType = Class.forName(typeName);
-          }
-        }
-      }
-    }
+  private static Gson getInputJsonProvider() {
+    InputRecycler recycler = InputRecycler.get();
+    return recycler != null ? recycler.recycle() : GSON;
+  }
 
-    return parameterType;
+  /**
+   * Get the shared {@link Gson}, built once at class initialization.
+   *
+   * @return {@link Gson}
+   */
+  static Gson getJsonProvider() {
+    return GSON;
   }
 
   /**
    * Invoke {@link RequestStreamHandler}.
    *
    * @param handler {@link RequestStreamHandler}
-   * @param payload {@link String}
-   * @param output {@link ByteArrayOutputStream}
+   * @param input {@link InputStream}
    * @param context {@link Context}
-   * @return {@link String}
+   * @param metrics {@link InvocationMetrics}
+   * @return {@link ByteArrayOutputStream}
    * @throws IOException IOException
    */
-  private static String invokeRequestStreamHandler(
+  private static ByteArrayOutputStream invokeRequestStreamHandler(
       final RequestStreamHandler handler,
-      final String payload,
-      final ByteArrayOutputStream output,
-      final Context context)
+      final InputStream input,
+      final Context context,
+      final InvocationMetrics metrics)
       throws IOException {
 
-    InputStream input = new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8));
+    metrics.mark(InvocationPhase.DESERIALIZE);
+
+    ByteArrayOutputStream output = BufferPool.get().output();
     handler.handleRequest(input, output, context);
+    metrics.mark(InvocationPhase.HANDLER);
 
-    return output.toString(StandardCharsets.UTF_8);
+    return output;
   }
 
   /**
@@ -0,0 +1,143 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Batch event (SQS, DynamoDB Streams, Kinesis, ...) whose "Records" are decoded on demand.
+ *
+ * <p>Declaring a handler input of {@code LazyBatchEvent<SQSEvent.SQSMessage>} instead of {@code
+ * SQSEvent} keeps the raw event bytes and indexes the record boundaries in one scan. A record is
+ * only deserialized the first time it is accessed with {@link #get(int)}, handlers that filter
+ * records can inspect the raw record with {@link #getRecordJson(int)} or {@link
+ * #openRecord(int)} first. Decoding different records from different threads is safe.
+ *
+ * @param <R> Record type
+ */
+public final class LazyBatchEvent<R> extends AbstractList<R> implements RandomAccess {
+
+  /** {@link Gson}. */
+  private final Gson gson;
+
+  /** Raw event bytes. */
+  private final byte[] buffer;
+
+  /** Record offsets. */
+  private final JsonRecordIndex index;
+
+  /** Record type. */
+  private final Class<R> recordType;
+
+  /** Decoded records. */
+  private final Object[] records;
+
+  /**
+   * constructor.
+   *
+   * @param jsonProvider {@link Gson}
+   * @param bytes byte[] UTF-8 JSON event
+   * @param type {@link Class}
+   */
+  public LazyBatchEvent(final Gson jsonProvider, final byte[] bytes, final Class<R> type) {
+    this.gson = jsonProvider;
+    this.buffer = bytes;
+    this.recordType = type;
+    this.index = JsonRecordIndex.build(bytes, bytes.length);
+    this.records = new Object[this.index.size()];
+  }
+
+  /**
+   * Read {@link LazyBatchEvent} from an {@link InputStream}. The stream is closed once read.
+   *
+   * @param <T> Record type
+   * @param jsonProvider {@link Gson}
+   * @param is {@link InputStream}
+   * @param type {@link Class}
+   * @return {@link LazyBatchEvent}
+   * @throws IOException IOException
+   */
+  public static <T> LazyBatchEvent<T> read(
+      final Gson jsonProvider, final InputStream is, final Class<T> type) throws IOException {
+    try (is) {
+      return new LazyBatchEvent<>(jsonProvider, is.readAllBytes(), type);
+    }
+  }
+
+  @Override
+  public R get(final int i) {
+    Object o = this.records[i];
+
+    if (o == null) {
+      o = this.gson.fromJson(openRecord(i), this.recordType);
+      this.records[i] = o;
+    }
+
+    return this.recordType.cast(o);
+  }
+
+  @Override
+  public int size() {
+    return this.records.length;
+  }
+
+  /**
+   * Has the record been decoded.
+   *
+   * @param i int
+   * @return boolean
+   */
+  public boolean isDecoded(final int i) {
+    return this.records[i] != null;
+  }
+
+  /**
+   * Get the raw JSON of a record, without decoding it.
+   *
+   * @param i int
+   * @return {@link String}
+   */
+  public String getRecordJson(final int i) {
+    int start = this.index.getStart(i);
+    return new String(this.buffer, start, this.index.getEnd(i) - start, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Open a {@link JsonReader} over the raw JSON of a record.
+   *
+   * @param i int
+   * @return {@link JsonReader}
+   */
+  public JsonReader openRecord(final int i) {
+    int start = this.index.getStart(i);
+    InputStream is = new ByteArrayInputStream(this.buffer, start, this.index.getEnd(i) - start);
+    return this.gson.newJsonReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Get Record type.
+   *
+   * @return {@link Class}
+   */
+  public Class<R> getRecordType() {
+    return this.recordType;
+  }
+}
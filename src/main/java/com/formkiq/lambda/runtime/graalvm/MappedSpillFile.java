@@ -0,0 +1,176 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fixed size, memory-mapped ring of key / value entries, used to spill cache entries to '/tmp'.
+ * Entries are appended and the ring starts over from the beginning (dropping every entry) when it
+ * is full. Existing entries are indexed when the file is opened, so they survive a runtime
+ * restart in the same execution environment.
+ *
+ * <p>Entry layout: key length (int), key, expires at (long), value length (int), value.
+ */
+public final class MappedSpillFile {
+
+  /** Entry header bytes, key length + expires at + value length. */
+  private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES + Integer.BYTES;
+
+  /** Mapped buffer. */
+  private final MappedByteBuffer buffer;
+
+  /** Key to entry offset. */
+  private final Map<String, Integer> index = new HashMap<>();
+
+  /** Next write offset. */
+  private int writePosition;
+
+  /**
+   * constructor.
+   *
+   * @param path {@link Path}
+   * @param size int file size in bytes
+   * @throws IOException IOException
+   */
+  public MappedSpillFile(final Path path, final int size) throws IOException {
+    try (FileChannel channel =
+        FileChannel.open(
+            path,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+      this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    load(System.currentTimeMillis());
+  }
+
+  /**
+   * Index the existing entries.
+   *
+   * @param now long
+   */
+  private void load(final long now) {
+    int pos = 0;
+    int capacity = this.buffer.capacity();
+
+    while (pos + HEADER_BYTES <= capacity) {
+      int keyLength = this.buffer.getInt(pos);
+      if (keyLength <= 0 || pos + HEADER_BYTES + keyLength > capacity) {
+        break;
+      }
+
+      int valueLength = this.buffer.getInt(pos + Integer.BYTES + keyLength + Long.BYTES);
+      int end = pos + HEADER_BYTES + keyLength + valueLength;
+      if (valueLength < 0 || end > capacity) {
+        break;
+      }
+
+      if (this.buffer.getLong(pos + Integer.BYTES + keyLength) > now) {
+        this.index.put(readKey(pos, keyLength), Integer.valueOf(pos));
+      }
+
+      pos = end;
+    }
+
+    this.writePosition = pos;
+  }
+
+  /**
+   * Read key.
+   *
+   * @param pos int entry offset
+   * @param keyLength int
+   * @return {@link String}
+   */
+  private String readKey(final int pos, final int keyLength) {
+    byte[] key = new byte[keyLength];
+    this.buffer.get(pos + Integer.BYTES, key);
+    return new String(key, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Get value.
+   *
+   * @param key {@link String}
+   * @param now long current time in milliseconds
+   * @return byte[], null if not found or expired
+   */
+  public byte[] get(final String key, final long now) {
+    byte[] value = null;
+    Integer pos = this.index.get(key);
+
+    if (pos != null) {
+      int keyLength = this.buffer.getInt(pos.intValue());
+      int offset = pos.intValue() + Integer.BYTES + keyLength;
+
+      if (this.buffer.getLong(offset) > now) {
+        value = new byte[this.buffer.getInt(offset + Long.BYTES)];
+        this.buffer.get(offset + Long.BYTES + Integer.BYTES, value);
+      } else {
+        this.index.remove(key);
+      }
+    }
+
+    return value;
+  }
+
+  /**
+   * Put value, values larger than the file are ignored.
+   *
+   * @param key {@link String}
+   * @param value byte[]
+   * @param expiresAt long time in milliseconds
+   */
+  public void put(final String key, final byte[] value, final long expiresAt) {
+    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    int length = HEADER_BYTES + keyBytes.length + value.length;
+    int capacity = this.buffer.capacity();
+
+    if (length + Integer.BYTES <= capacity) {
+
+      if (this.writePosition + length + Integer.BYTES > capacity) {
+        this.writePosition = 0;
+        this.index.clear();
+      }
+
+      int pos = this.writePosition;
+      this.buffer.putInt(pos, keyBytes.length);
+      this.buffer.put(pos + Integer.BYTES, keyBytes);
+      this.buffer.putLong(pos + Integer.BYTES + keyBytes.length, expiresAt);
+      this.buffer.putInt(pos + Integer.BYTES + keyBytes.length + Long.BYTES, value.length);
+      this.buffer.put(pos + HEADER_BYTES + keyBytes.length, value);
+
+      this.writePosition = pos + length;
+      this.buffer.putInt(this.writePosition, 0);
+      this.index.put(key, Integer.valueOf(pos));
+    }
+  }
+
+  /**
+   * Get number of indexed entries.
+   *
+   * @return int
+   */
+  public int size() {
+    return this.index.size();
+  }
+}
@@ -0,0 +1,154 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reusable {@link EventPayload} held outside of the Java heap, in a direct {@link ByteBuffer} or a
+ * memory-mapped file, so large events are not copied to the heap or scanned by the GC.
+ */
+public final class OffHeapBuffer implements EventPayload {
+
+  /** Carriage return. */
+  private static final byte CR = '\r';
+
+  /** Line feed. */
+  private static final byte LF = '\n';
+
+  /** Size of the heap chunk bytes are read through. */
+  private static final int CHUNK_SIZE = 8192;
+
+  /** Off heap buffer. */
+  private final ByteBuffer buffer;
+
+  /** Heap chunk bytes are read through. */
+  private final byte[] chunk = new byte[CHUNK_SIZE];
+
+  /** Body size. */
+  private int count;
+
+  /**
+   * constructor.
+   *
+   * @param byteBuffer {@link ByteBuffer}
+   */
+  private OffHeapBuffer(final ByteBuffer byteBuffer) {
+    this.buffer = byteBuffer;
+  }
+
+  /**
+   * Create {@link OffHeapBuffer} in a direct {@link ByteBuffer}, or a memory-mapped file when a
+   * file is set.
+   *
+   * @param capacity int
+   * @param file {@link Path}, null to use a direct {@link ByteBuffer}
+   * @return {@link OffHeapBuffer}
+   * @throws IOException IOException
+   */
+  public static OffHeapBuffer allocate(final int capacity, final Path file) throws IOException {
+    ByteBuffer buffer;
+
+    if (file != null) {
+      try (FileChannel channel =
+          FileChannel.open(
+              file,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE)) {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+      }
+    } else {
+      buffer = ByteBuffer.allocateDirect(capacity);
+    }
+
+    return new OffHeapBuffer(buffer);
+  }
+
+  /**
+   * Read the {@link InputStream} to the end, replacing the body.
+   *
+   * @param is {@link InputStream}
+   * @return {@link OffHeapBuffer}
+   * @throws IOException IOException
+   */
+  public OffHeapBuffer readFrom(final InputStream is) throws IOException {
+    this.buffer.clear();
+
+    int read = is.read(this.chunk);
+    while (read != -1) {
+
+      if (read > this.buffer.remaining()) {
+        throw new IOException("Event larger than " + this.buffer.capacity() + " bytes");
+      }
+
+      this.buffer.put(this.chunk, 0, read);
+      read = is.read(this.chunk);
+    }
+
+    this.count = this.buffer.position();
+    return this;
+  }
+
+  /**
+   * Get the buffer capacity.
+   *
+   * @return int
+   */
+  public int capacity() {
+    return this.buffer.capacity();
+  }
+
+  @Override
+  public int size() {
+    return this.count;
+  }
+
+  @Override
+  public InputStream inputStream() {
+    return new ByteBufferInputStream(byteBuffer());
+  }
+
+  @Override
+  public ByteBuffer byteBuffer() {
+    return this.buffer.slice(0, this.count);
+  }
+
+  @Override
+  public byte[] toByteArray() {
+    byte[] bytes = new byte[this.count];
+    this.buffer.get(0, bytes);
+    return bytes;
+  }
+
+  @Override
+  public String toLineString() {
+    byte[] bytes = new byte[this.count];
+    int len = 0;
+
+    for (int i = 0; i < this.count; i++) {
+      byte b = this.buffer.get(i);
+      if (b != CR && b != LF) {
+        bytes[len++] = b;
+      }
+    }
+
+    return new String(bytes, 0, len, StandardCharsets.UTF_8);
+  }
+}
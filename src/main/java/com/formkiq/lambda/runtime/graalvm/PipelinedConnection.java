@@ -0,0 +1,539 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * Keep-alive HTTP/1.1 connection to the Runtime API that pipelines the '/invocation/next' long poll
+ * behind the response POST, writing both requests back to back so the next poll does not wait for
+ * the POST round trip.
+ *
+ * <p>Only used by the runtime thread, installed by {@link #install(Map, String)}. Responses must
+ * have a Content-Length, the event body is left unread on {@link HttpResponse#getBodyStream()} and
+ * must be closed before the next request.
+ */
+final class PipelinedConnection {
+
+  /** Socket buffer size. */
+  private static final int BUFFER_SIZE = 8192;
+
+  /** Runtime API max response size, larger responses are rejected so no poll follows them. */
+  private static final long MAX_PIPELINED_BYTES = 6 * 1024 * 1024;
+
+  /** Request line and headers initial capacity. */
+  private static final int HEADER_CAPACITY = 128;
+
+  /** Line feed. */
+  private static final int LF = '\n';
+
+  /** Carriage return. */
+  private static final int CR = '\r';
+
+  /** Runtime thread's {@link PipelinedConnection}, null if not enabled. */
+  private static final ThreadLocal<PipelinedConnection> CONNECTIONS = new ThreadLocal<>();
+
+  /** Runtime API host and port. */
+  private final String host;
+
+  /** Runtime API url prefix, 'http://' and host. */
+  private final String urlPrefix;
+
+  /** '/invocation/next' url. */
+  private final String nextUrl;
+
+  /** {@link Socket}, null when not connected. */
+  private Socket socket;
+
+  /** Socket {@link InputStream}. */
+  private InputStream in;
+
+  /** Socket {@link OutputStream}. */
+  private OutputStream out;
+
+  /** Bytes the socket accepted since the requests being sent were started. */
+  private CountingOutputStream counter;
+
+  /** Whether the '/invocation/next' request was sent and its response not read yet. */
+  private boolean pollPending;
+
+  /**
+   * constructor.
+   *
+   * @param runtimeApi {@link String} Runtime API host and port
+   * @param runtimeNextUrl {@link String} '/invocation/next' url
+   */
+  PipelinedConnection(final String runtimeApi, final String runtimeNextUrl) {
+    this.host = runtimeApi;
+    this.urlPrefix = "http://" + runtimeApi;
+    this.nextUrl = runtimeNextUrl;
+  }
+
+  /**
+   * Is pipelining enabled.
+   *
+   * @param env {@link Map}
+   * @return boolean
+   */
+  static boolean isEnabled(final Map<String, String> env) {
+    return "true".equals(env.get("LAMBDA_RUNTIME_PIPELINING"))
+        && env.get("AWS_LAMBDA_RUNTIME_API") != null;
+  }
+
+  /**
+   * Install the runtime thread's {@link PipelinedConnection}, closing the previous one.
+   *
+   * @param env {@link Map}
+   * @param runtimeNextUrl {@link String} '/invocation/next' url
+   */
+  static void install(final Map<String, String> env, final String runtimeNextUrl) {
+    remove();
+    CONNECTIONS.set(
+        isEnabled(env)
+            ? new PipelinedConnection(env.get("AWS_LAMBDA_RUNTIME_API"), runtimeNextUrl)
+            : null);
+  }
+
+  /** Close and remove the runtime thread's {@link PipelinedConnection}, if installed. */
+  static void remove() {
+    PipelinedConnection connection = CONNECTIONS.get();
+    if (connection != null) {
+      connection.close();
+      CONNECTIONS.remove();
+    }
+  }
+
+  /**
+   * Get the thread's {@link PipelinedConnection}.
+   *
+   * @return {@link PipelinedConnection}, null if not installed
+   */
+  static PipelinedConnection get() {
+    return CONNECTIONS.get();
+  }
+
+  /**
+   * Get the next event, reading the response of the pipelined poll when one was sent. When the
+   * Runtime API closed a reused connection without answering the poll, no event was delivered on
+   * it, so a new poll is sent once on a new connection.
+   *
+   * @return {@link HttpResponse}
+   * @throws IOException IOException
+   */
+  HttpResponse next() throws IOException {
+    boolean reused = this.socket != null;
+
+    try {
+      return poll();
+    } catch (IOException e) {
+      if (!reused) {
+        throw e;
+      }
+      return poll();
+    }
+  }
+
+  /**
+   * Send the '/invocation/next' request, unless it was pipelined, and read its response.
+   *
+   * @return {@link HttpResponse}
+   * @throws IOException IOException
+   */
+  private HttpResponse poll() throws IOException {
+    if (!this.pollPending) {
+      send(null, null, 0, true);
+    }
+
+    this.pollPending = false;
+    return read(false);
+  }
+
+  /**
+   * Post the invocation response, followed by the next '/invocation/next' poll when pipelining, and
+   * read the POST response. The poll is not pipelined behind a response above the Runtime API
+   * limit, and is lost when the response is rejected, as the connection is then closed.
+   *
+   * @param url {@link String}
+   * @param body {@link ResponseBodyWriter}
+   * @param contentLength long body length
+   * @param pipeline whether to send the next poll, false when work remains before it
+   * @return {@link HttpResponse} of the POST
+   * @throws IOException IOException
+   */
+  HttpResponse post(
+      final String url,
+      final ResponseBodyWriter body,
+      final long contentLength,
+      final boolean pipeline)
+      throws IOException {
+    boolean poll = pipeline && contentLength <= MAX_PIPELINED_BYTES;
+
+    send(url, body, contentLength, poll);
+    this.pollPending = poll;
+
+    HttpResponse response = read(true);
+    if (!response.isSuccess()) {
+      close();
+    }
+
+    return response;
+  }
+
+  /**
+   * Write and flush the POST, if any, and the poll. A connection the Runtime API closed while it
+   * was idle is reopened once, only when the socket did not accept any byte of the requests, so a
+   * request that may have reached the Runtime API is never sent twice.
+   *
+   * @param url {@link String}, null if no POST
+   * @param body {@link ResponseBodyWriter}
+   * @param contentLength long body length
+   * @param poll whether to write the poll request
+   * @throws IOException IOException
+   */
+  private void send(
+      final String url,
+      final ResponseBodyWriter body,
+      final long contentLength,
+      final boolean poll)
+      throws IOException {
+    boolean reused = this.socket != null;
+
+    try {
+      write(url, body, contentLength, poll);
+    } catch (IOException e) {
+      if (!reused || this.counter.getCount() > 0) {
+        throw e;
+      }
+      write(url, body, contentLength, poll);
+    }
+  }
+
+  /**
+   * Write and flush the requests, closing the connection on failure.
+   *
+   * @param url {@link String}, null if no POST
+   * @param body {@link ResponseBodyWriter}
+   * @param contentLength long body length
+   * @param poll whether to write the poll request
+   * @throws IOException IOException
+   */
+  private void write(
+      final String url,
+      final ResponseBodyWriter body,
+      final long contentLength,
+      final boolean poll)
+      throws IOException {
+    try {
+      connect();
+      this.counter.reset();
+
+      if (url != null) {
+        writeRequest("POST", url, body, contentLength);
+      }
+      if (poll) {
+        writeRequest("GET", this.nextUrl, null, 0);
+      }
+      this.out.flush();
+    } catch (IOException e) {
+      close();
+      throw e;
+    }
+  }
+
+  /**
+   * Read a response, closing the connection on failure.
+   *
+   * @param readBody whether to read and discard the body
+   * @return {@link HttpResponse}
+   * @throws IOException IOException
+   */
+  private HttpResponse read(final boolean readBody) throws IOException {
+    try {
+      return readResponse(readBody);
+    } catch (IOException e) {
+      close();
+      throw e;
+    }
+  }
+
+  /**
+   * Open the connection, if not open.
+   *
+   * @throws IOException IOException
+   */
+  private void connect() throws IOException {
+    if (this.socket == null) {
+      int colon = this.host.lastIndexOf(':');
+      Socket s = new Socket();
+      s.setTcpNoDelay(true);
+      s.setKeepAlive(true);
+      s.connect(
+          new InetSocketAddress(
+              this.host.substring(0, colon), Integer.parseInt(this.host.substring(colon + 1))));
+
+      this.socket = s;
+      this.in = new BufferedInputStream(s.getInputStream(), BUFFER_SIZE);
+      this.counter = new CountingOutputStream(s.getOutputStream());
+      this.out = new BufferedOutputStream(this.counter, BUFFER_SIZE);
+    }
+  }
+
+  /** Close the connection, a pipelined poll is lost with it. */
+  void close() {
+    this.pollPending = false;
+
+    if (this.socket != null) {
+      try {
+        this.socket.close();
+      } catch (IOException e) {
+        // closing a broken connection
+      }
+      this.socket = null;
+    }
+  }
+
+  /**
+   * Write a request, without flushing.
+   *
+   * @param method {@link String}
+   * @param url {@link String}
+   * @param body {@link ResponseBodyWriter}, null if no body
+   * @param contentLength long body length
+   * @throws IOException IOException
+   */
+  private void writeRequest(
+      final String method,
+      final String url,
+      final ResponseBodyWriter body,
+      final long contentLength)
+      throws IOException {
+    StringBuilder sb = new StringBuilder(HEADER_CAPACITY);
+    sb.append(method).append(' ').append(url, this.urlPrefix.length(), url.length());
+    sb.append(" HTTP/1.1\r\nHost: ").append(this.host).append("\r\n");
+
+    if (body != null) {
+      sb.append("Content-Length: ").append(contentLength).append("\r\n");
+    }
+
+    sb.append("\r\n");
+    this.out.write(sb.toString().getBytes(StandardCharsets.ISO_8859_1));
+
+    if (body != null) {
+      body.writeTo(this.out);
+    }
+  }
+
+  /**
+   * Read a response status line and headers.
+   *
+   * @param readBody whether to read and discard the body, otherwise it is left on {@link
+   *     HttpResponse#getBodyStream()}
+   * @return {@link HttpResponse}
+   * @throws IOException IOException
+   */
+  private HttpResponse readResponse(final boolean readBody) throws IOException {
+    String status = readLine();
+    int space = status.indexOf(' ');
+    if (!status.startsWith("HTTP/1.") || space < 0) {
+      throw new IOException("Invalid Runtime API response: " + status);
+    }
+
+    int end = status.indexOf(' ', space + 1);
+    HttpResponse response =
+        new HttpResponse(
+            Integer.parseInt(status.substring(space + 1, end > 0 ? end : status.length())));
+
+    for (String line = readLine(); !line.isEmpty(); line = readLine()) {
+      int colon = line.indexOf(':');
+      if (colon > 0) {
+        response
+            .getHeaders()
+            .computeIfAbsent(line.substring(0, colon).trim(), k -> new ArrayList<>())
+            .add(line.substring(colon + 1).trim());
+      }
+    }
+    response.setHeadersReceivedNanos(System.nanoTime());
+
+    InputStream body = new BodyInputStream(this.in, getContentLength(response));
+    if (readBody) {
+      body.close();
+    } else {
+      response.setBodyStream(body);
+    }
+
+    return response;
+  }
+
+  /**
+   * Get the response Content-Length.
+   *
+   * @param response {@link HttpResponse}
+   * @return long
+   * @throws IOException no Content-Length
+   */
+  private static long getContentLength(final HttpResponse response) throws IOException {
+    String contentLength = response.getHeaderValue("Content-Length");
+    String transferEncoding = response.getHeaderValue("Transfer-Encoding");
+
+    if (contentLength == null || transferEncoding != null) {
+      throw new IOException("Runtime API response without a Content-Length");
+    }
+
+    return Long.parseLong(contentLength);
+  }
+
+  /**
+   * Read a CRLF terminated ISO-8859-1 line.
+   *
+   * @return {@link String} without the line terminator
+   * @throws IOException IOException
+   */
+  private String readLine() throws IOException {
+    StringBuilder sb = new StringBuilder();
+
+    int c = this.in.read();
+    while (c != LF) {
+      if (c < 0) {
+        throw new EOFException("Runtime API closed the connection");
+      }
+      if (c != CR) {
+        sb.append((char) c);
+      }
+      c = this.in.read();
+    }
+
+    return sb.toString();
+  }
+
+  /**
+   * Counts the bytes written to the socket, a write that failed is not counted. Writes are split in
+   * {@link #BUFFER_SIZE} slices, so a failed write did at most send part of one slice.
+   */
+  private static final class CountingOutputStream extends FilterOutputStream {
+
+    /** Bytes written. */
+    private long count;
+
+    /**
+     * constructor.
+     *
+     * @param os {@link OutputStream}
+     */
+    CountingOutputStream(final OutputStream os) {
+      super(os);
+    }
+
+    /**
+     * Get the bytes written since the last reset.
+     *
+     * @return long
+     */
+    long getCount() {
+      return this.count;
+    }
+
+    /** Reset the count. */
+    void reset() {
+      this.count = 0;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      this.out.write(b);
+      this.count++;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      for (int i = 0; i < len; i += BUFFER_SIZE) {
+        int n = Math.min(BUFFER_SIZE, len - i);
+        this.out.write(b, off + i, n);
+        this.count += n;
+      }
+    }
+  }
+
+  /**
+   * Response body of a known length, reading from the connection. Closing it skips the unread
+   * bytes, so the connection is positioned at the next response.
+   */
+  private static final class BodyInputStream extends InputStream {
+
+    /** Connection {@link InputStream}. */
+    private final InputStream in;
+
+    /** Unread body bytes. */
+    private long remaining;
+
+    /**
+     * constructor.
+     *
+     * @param is {@link InputStream}
+     * @param length long
+     */
+    BodyInputStream(final InputStream is, final long length) {
+      this.in = is;
+      this.remaining = length;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = -1;
+      if (this.remaining > 0) {
+        b = this.in.read();
+        this.remaining = b >= 0 ? this.remaining - 1 : 0;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      int n = -1;
+      if (this.remaining > 0) {
+        n = this.in.read(b, off, (int) Math.min(len, this.remaining));
+        this.remaining = n >= 0 ? this.remaining - n : 0;
+      }
+      return n;
+    }
+
+    @Override
+    public int available() throws IOException {
+      return (int) Math.min(this.in.available(), this.remaining);
+    }
+
+    @Override
+    public void close() throws IOException {
+      while (this.remaining > 0) {
+        long skipped = this.in.skip(this.remaining);
+        if (skipped <= 0) {
+          if (this.in.read() < 0) {
+            throw new EOFException("Runtime API closed the connection");
+          }
+          skipped = 1;
+        }
+        this.remaining -= skipped;
+      }
+    }
+  }
+}
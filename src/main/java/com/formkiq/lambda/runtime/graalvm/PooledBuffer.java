@@ -0,0 +1,187 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Growable byte buffer that is kept between invocations by a {@link BufferPool}. The backing array
+ * is only replaced when the buffer grows, or when {@link #release(int, int)} shrinks it.
+ */
+public final class PooledBuffer extends ByteArrayOutputStream implements EventPayload {
+
+  /** Carriage return. */
+  private static final byte CR = '\r';
+
+  /** Line feed. */
+  private static final byte LF = '\n';
+
+  /** Initial capacity, the buffer never shrinks below it. */
+  private final int initialCapacity;
+
+  /** UTF-8 {@link Writer} writing to this buffer, created on first use. */
+  private Writer writer;
+
+  /** Number of consecutive invocations that used at most a quarter of the capacity. */
+  private int idle;
+
+  /**
+   * constructor.
+   *
+   * @param capacity int
+   */
+  public PooledBuffer(final int capacity) {
+    super(capacity);
+    this.initialCapacity = capacity;
+  }
+
+  /**
+   * Read the {@link InputStream} to the end, appending to the buffer.
+   *
+   * @param is {@link InputStream}
+   * @return {@link PooledBuffer}
+   * @throws IOException IOException
+   */
+  public PooledBuffer readFrom(final InputStream is) throws IOException {
+
+    int read = 0;
+    while (read != -1) {
+
+      if (this.count == this.buf.length) {
+        ensureCapacity(this.buf.length * 2);
+      }
+
+      read = is.read(this.buf, this.count, this.buf.length - this.count);
+      if (read > 0) {
+        this.count += read;
+      }
+    }
+
+    return this;
+  }
+
+  /**
+   * Ensure the buffer can hold at least the number of bytes.
+   *
+   * @param capacity int
+   */
+  private void ensureCapacity(final int capacity) {
+    if (capacity > this.buf.length) {
+      byte[] bytes = new byte[capacity];
+      System.arraycopy(this.buf, 0, bytes, 0, this.count);
+      this.buf = bytes;
+    }
+  }
+
+  /**
+   * Get the backing array, valid up to {@link #size()}.
+   *
+   * @return byte[]
+   */
+  public byte[] array() {
+    return this.buf;
+  }
+
+  /**
+   * Get the buffer capacity.
+   *
+   * @return int
+   */
+  public int capacity() {
+    return this.buf.length;
+  }
+
+  @Override
+  public InputStream inputStream() {
+    return new ByteArrayInputStream(this.buf, 0, this.count);
+  }
+
+  @Override
+  public ByteBuffer byteBuffer() {
+    return ByteBuffer.wrap(this.buf, 0, this.count).slice();
+  }
+
+  /**
+   * Get a UTF-8 {@link Writer} that writes to this buffer. The {@link Writer} is reused, so it
+   * must be flushed rather than closed.
+   *
+   * @return {@link Writer}
+   */
+  public Writer writer() {
+    if (this.writer == null) {
+      this.writer = new OutputStreamWriter(this, StandardCharsets.UTF_8);
+    }
+
+    return this.writer;
+  }
+
+  /**
+   * Decode the buffer as UTF-8 with line breaks removed, the same as joining the lines read by a
+   * {@link java.io.BufferedReader}. Line breaks are removed in place.
+   *
+   * @return {@link String}
+   */
+  @Override
+  public String toLineString() {
+    int len = 0;
+
+    for (int i = 0; i < this.count; i++) {
+      byte b = this.buf[i];
+      if (b != CR && b != LF) {
+        this.buf[len++] = b;
+      }
+    }
+
+    this.count = len;
+    return new String(this.buf, 0, len, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Release the buffer at the end of an invocation. A buffer that grew above the max capacity is
+   * replaced by one of the initial capacity, and a buffer that used at most a quarter of its
+   * capacity for the number of idle invocations is halved.
+   *
+   * @param maxCapacity int
+   * @param idleInvocations int
+   */
+  public void release(final int maxCapacity, final int idleInvocations) {
+    final int quarter = 4;
+    int capacity = this.buf.length;
+
+    if (capacity > maxCapacity) {
+      capacity = this.initialCapacity;
+      this.idle = 0;
+    } else if (capacity > this.initialCapacity && this.count <= capacity / quarter) {
+      this.idle++;
+      if (this.idle >= idleInvocations) {
+        capacity = Math.max(this.initialCapacity, capacity / 2);
+        this.idle = 0;
+      }
+    } else {
+      this.idle = 0;
+    }
+
+    reset();
+
+    if (capacity != this.buf.length) {
+      this.buf = new byte[capacity];
+    }
+  }
+}
@@ -0,0 +1,339 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Gzip decompressing {@link InputStream} using a pooled {@link Inflater}, unlike {@link
+ * java.util.zip.GZIPInputStream} that allocates a new {@link Inflater} (and its native memory) for
+ * every stream. The CRC and size in the trailer are verified, concatenated gzip members are not
+ * supported.
+ */
+public final class PooledGzipInputStream extends InputStream {
+
+  /** Gzip magic first byte. */
+  private static final int MAGIC_1 = 0x1f;
+
+  /** Gzip magic second byte. */
+  private static final int MAGIC_2 = 0x8b;
+
+  /** Deflate compression method. */
+  private static final int DEFLATE = 8;
+
+  /** Base64 of the gzip magic and deflate method. */
+  private static final String BASE64_MAGIC = "H4sI";
+
+  /** Header modification time, extra flags and OS bytes. */
+  private static final int HEADER_SKIP = 6;
+
+  /** Header CRC flag. */
+  private static final int FHCRC = 2;
+
+  /** Extra field flag. */
+  private static final int FEXTRA = 4;
+
+  /** File name flag. */
+  private static final int FNAME = 8;
+
+  /** Comment flag. */
+  private static final int FCOMMENT = 16;
+
+  /** Bits per byte. */
+  private static final int BYTE_BITS = 8;
+
+  /** Unsigned byte mask. */
+  private static final int BYTE_MASK = 0xff;
+
+  /** Unsigned int mask. */
+  private static final long INT_MASK = 0xffffffffL;
+
+  /** Compressed {@link InputStream}. */
+  private final InputStream in;
+
+  /** Pooled {@link Inflater}, without zlib wrapping. */
+  private final Inflater inflater;
+
+  /** Pooled {@link CRC32}. */
+  private final CRC32 crc;
+
+  /** Pooled compressed input chunk. */
+  private final byte[] chunk;
+
+  /** Single byte read buffer. */
+  private final byte[] single = new byte[1];
+
+  /** Bytes of the chunk set as {@link Inflater} input. */
+  private int chunkLength;
+
+  /** Whether the end of the stream has been reached. */
+  private boolean eof;
+
+  /**
+   * constructor, reads the gzip header.
+   *
+   * @param input {@link InputStream}
+   * @param pooledInflater {@link Inflater}, created with nowrap
+   * @param pooledCrc {@link CRC32}
+   * @param pooledChunk byte[]
+   * @throws IOException IOException
+   */
+  public PooledGzipInputStream(
+      final InputStream input,
+      final Inflater pooledInflater,
+      final CRC32 pooledCrc,
+      final byte[] pooledChunk)
+      throws IOException {
+    this.in = input;
+    this.inflater = pooledInflater;
+    this.crc = pooledCrc;
+    this.chunk = pooledChunk;
+    this.inflater.reset();
+    this.crc.reset();
+    readHeader();
+  }
+
+  /**
+   * Is the payload gzip compressed, either raw or as a base64 string (optionally a JSON string).
+   *
+   * @param payload {@link ByteBuffer}
+   * @return boolean
+   */
+  public static boolean isGzip(final ByteBuffer payload) {
+    return isRawGzip(payload) || isBase64Gzip(payload);
+  }
+
+  /**
+   * Is the payload raw gzip.
+   *
+   * @param payload {@link ByteBuffer}
+   * @return boolean
+   */
+  public static boolean isRawGzip(final ByteBuffer payload) {
+    return payload.limit() > 2
+        && (payload.get(0) & BYTE_MASK) == MAGIC_1
+        && (payload.get(1) & BYTE_MASK) == MAGIC_2
+        && payload.get(2) == DEFLATE;
+  }
+
+  /**
+   * Is the payload base64 encoded gzip, after any leading whitespace and JSON string quote.
+   *
+   * @param payload {@link ByteBuffer}
+   * @return boolean
+   */
+  private static boolean isBase64Gzip(final ByteBuffer payload) {
+    int pos = 0;
+    while (pos < payload.limit()
+        && (Character.isWhitespace(payload.get(pos)) || payload.get(pos) == '"')) {
+      pos++;
+    }
+
+    boolean match = pos + BASE64_MAGIC.length() <= payload.limit();
+    for (int i = 0; match && i < BASE64_MAGIC.length(); i++) {
+      match = payload.get(pos + i) == BASE64_MAGIC.charAt(i);
+    }
+
+    return match;
+  }
+
+  /**
+   * Open the compressed bytes of a gzip payload, decoding base64 payloads. Characters outside of
+   * the base64 alphabet, such as JSON quotes and escapes, are ignored.
+   *
+   * @param payload {@link EventPayload}
+   * @return {@link InputStream}
+   */
+  public static InputStream openCompressed(final EventPayload payload) {
+    InputStream is = payload.inputStream();
+    return isRawGzip(payload.byteBuffer()) ? is : Base64.getMimeDecoder().wrap(is);
+  }
+
+  /**
+   * Read the gzip header.
+   *
+   * @throws IOException IOException
+   */
+  private void readHeader() throws IOException {
+    if (readByte() != MAGIC_1 || readByte() != MAGIC_2 || readByte() != DEFLATE) {
+      throw new ZipException("Not in GZIP format");
+    }
+
+    int flags = readByte();
+    skipBytes(HEADER_SKIP);
+
+    if ((flags & FEXTRA) != 0) {
+      skipBytes(readByte() | readByte() << BYTE_BITS);
+    }
+
+    if ((flags & FNAME) != 0) {
+      skipString();
+    }
+
+    if ((flags & FCOMMENT) != 0) {
+      skipString();
+    }
+
+    if ((flags & FHCRC) != 0) {
+      skipBytes(2);
+    }
+  }
+
+  /**
+   * Read an unsigned byte from the compressed stream.
+   *
+   * @return int
+   * @throws IOException IOException
+   */
+  private int readByte() throws IOException {
+    int b = this.in.read();
+    if (b == -1) {
+      throw new EOFException("Unexpected end of GZIP stream");
+    }
+    return b;
+  }
+
+  /**
+   * Skip bytes of the compressed stream.
+   *
+   * @param n int
+   * @throws IOException IOException
+   */
+  private void skipBytes(final int n) throws IOException {
+    for (int i = 0; i < n; i++) {
+      readByte();
+    }
+  }
+
+  /**
+   * Skip a zero terminated header string.
+   *
+   * @throws IOException IOException
+   */
+  private void skipString() throws IOException {
+    int b = readByte();
+    while (b != 0) {
+      b = readByte();
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    return read(this.single, 0, 1) == -1 ? -1 : this.single[0] & BYTE_MASK;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    int n = 0;
+
+    while (n == 0 && !this.eof && len > 0) {
+      n = inflate(b, off, len);
+    }
+
+    return n == 0 && this.eof ? -1 : n;
+  }
+
+  /**
+   * Inflate into the buffer, reading more compressed bytes or the trailer when needed.
+   *
+   * @param b byte[]
+   * @param off int
+   * @param len int
+   * @return int number of bytes inflated, may be 0
+   * @throws IOException IOException
+   */
+  private int inflate(final byte[] b, final int off, final int len) throws IOException {
+    try {
+      int n = this.inflater.inflate(b, off, len);
+
+      if (n > 0) {
+        this.crc.update(b, off, n);
+      } else if (this.inflater.finished()) {
+        readTrailer();
+        this.eof = true;
+      } else if (this.inflater.needsInput()) {
+        fill();
+      } else if (this.inflater.needsDictionary()) {
+        throw new ZipException("Unexpected GZIP dictionary");
+      }
+
+      return n;
+    } catch (DataFormatException e) {
+      throw new ZipException(e.getMessage());
+    }
+  }
+
+  /**
+   * Set the next chunk of compressed bytes as {@link Inflater} input.
+   *
+   * @throws IOException IOException
+   */
+  private void fill() throws IOException {
+    this.chunkLength = this.in.read(this.chunk, 0, this.chunk.length);
+    if (this.chunkLength == -1) {
+      throw new EOFException("Unexpected end of GZIP stream");
+    }
+    this.inflater.setInput(this.chunk, 0, this.chunkLength);
+  }
+
+  /**
+   * Read and verify the gzip trailer, the CRC and size of the uncompressed bytes.
+   *
+   * @throws IOException IOException
+   */
+  private void readTrailer() throws IOException {
+    final int trailerLength = 8;
+    byte[] trailer = new byte[trailerLength];
+
+    int remaining = this.inflater.getRemaining();
+    int copy = Math.min(remaining, trailerLength);
+    System.arraycopy(this.chunk, this.chunkLength - remaining, trailer, 0, copy);
+
+    for (int i = copy; i < trailerLength; i++) {
+      trailer[i] = (byte) readByte();
+    }
+
+    if (readInt(trailer, 0) != this.crc.getValue()
+        || readInt(trailer, Integer.BYTES) != (this.inflater.getBytesWritten() & INT_MASK)) {
+      throw new ZipException("Corrupt GZIP trailer");
+    }
+  }
+
+  /**
+   * Read a little endian unsigned int.
+   *
+   * @param bytes byte[]
+   * @param offset int
+   * @return long
+   */
+  private static long readInt(final byte[] bytes, final int offset) {
+    long value = 0;
+    for (int i = Integer.BYTES - 1; i >= 0; i--) {
+      value = value << BYTE_BITS | bytes[offset + i] & BYTE_MASK;
+    }
+    return value;
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.in.close();
+  }
+}
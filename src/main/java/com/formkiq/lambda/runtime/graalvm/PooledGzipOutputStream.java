@@ -0,0 +1,138 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Gzip compressing {@link OutputStream} using a pooled {@link Deflater}, unlike {@link
+ * java.util.zip.GZIPOutputStream} that allocates a new {@link Deflater} (and its native memory) for
+ * every stream.
+ */
+public final class PooledGzipOutputStream extends OutputStream {
+
+  /** Gzip header, deflate method, no flags, no modification time, unknown OS. */
+  private static final byte[] HEADER = {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+  /** Bits per byte. */
+  private static final int BYTE_BITS = 8;
+
+  /** Compressed {@link OutputStream}. */
+  private final OutputStream out;
+
+  /** Pooled {@link Deflater}, without zlib wrapping. */
+  private final Deflater deflater;
+
+  /** Pooled {@link CRC32}. */
+  private final CRC32 crc;
+
+  /** Pooled compressed output chunk. */
+  private final byte[] chunk;
+
+  /** Single byte write buffer. */
+  private final byte[] single = new byte[1];
+
+  /** Whether the trailer has been written. */
+  private boolean finished;
+
+  /**
+   * constructor, writes the gzip header.
+   *
+   * @param output {@link OutputStream}
+   * @param pooledDeflater {@link Deflater}, created with nowrap
+   * @param pooledCrc {@link CRC32}
+   * @param pooledChunk byte[]
+   * @throws IOException IOException
+   */
+  public PooledGzipOutputStream(
+      final OutputStream output,
+      final Deflater pooledDeflater,
+      final CRC32 pooledCrc,
+      final byte[] pooledChunk)
+      throws IOException {
+    this.out = output;
+    this.deflater = pooledDeflater;
+    this.crc = pooledCrc;
+    this.chunk = pooledChunk;
+    this.deflater.reset();
+    this.crc.reset();
+    this.out.write(HEADER);
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    this.single[0] = (byte) b;
+    write(this.single, 0, 1);
+  }
+
+  @Override
+  public void write(final byte[] b, final int off, final int len) throws IOException {
+    this.crc.update(b, off, len);
+    this.deflater.setInput(b, off, len);
+
+    while (!this.deflater.needsInput()) {
+      deflate();
+    }
+  }
+
+  /**
+   * Write the compressed output of the {@link Deflater}.
+   *
+   * @throws IOException IOException
+   */
+  private void deflate() throws IOException {
+    int n = this.deflater.deflate(this.chunk, 0, this.chunk.length);
+    if (n > 0) {
+      this.out.write(this.chunk, 0, n);
+    }
+  }
+
+  /**
+   * Finish compressing and write the gzip trailer, without closing the underlying stream.
+   *
+   * @throws IOException IOException
+   */
+  public void finish() throws IOException {
+    if (!this.finished) {
+      this.deflater.finish();
+      while (!this.deflater.finished()) {
+        deflate();
+      }
+
+      writeInt(this.crc.getValue());
+      writeInt(this.deflater.getBytesRead());
+      this.finished = true;
+    }
+  }
+
+  /**
+   * Write a little endian int.
+   *
+   * @param value long
+   * @throws IOException IOException
+   */
+  private void writeInt(final long value) throws IOException {
+    for (int i = 0; i < Integer.BYTES; i++) {
+      this.out.write((int) (value >>> (i * BYTE_BITS)));
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    finish();
+    this.out.close();
+  }
+}
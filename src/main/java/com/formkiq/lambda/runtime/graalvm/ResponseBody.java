@@ -0,0 +1,182 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.google.gson.Gson;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Handler result as response bytes of a known length, so it can be posted with an exact
+ * Content-Length.
+ *
+ * <ul>
+ *   <li>byte[], {@link ByteBuffer} and {@link ByteArrayOutputStream} results are written as is,
+ *       without copying
+ *   <li>{@link InputStream} results are read fully and closed
+ *   <li>{@link CharSequence} results are encoded as UTF-8
+ *   <li>any other result is serialized to JSON
+ * </ul>
+ *
+ * <p>{@link InputStream} and JSON results are written to the {@link BufferPool} output buffer, so
+ * the {@link ResponseBody} is only valid until the buffer is next used.
+ */
+public final class ResponseBody implements ResponseBodyWriter {
+
+  /** Empty {@link ResponseBody}. */
+  private static final ResponseBody EMPTY = new ResponseBody(new byte[0], 0);
+
+  /** Body, byte[], {@link ByteBuffer} or {@link ByteArrayOutputStream}. */
+  private final Object body;
+
+  /** Body length. */
+  private final int length;
+
+  /**
+   * constructor.
+   *
+   * @param bytes {@link Object}
+   * @param bodyLength int
+   */
+  private ResponseBody(final Object bytes, final int bodyLength) {
+    this.body = bytes;
+    this.length = bodyLength;
+  }
+
+  /**
+   * Create {@link ResponseBody} from a handler result.
+   *
+   * @param value {@link Object}
+   * @param gson {@link Gson}
+   * @param pool {@link BufferPool}
+   * @return {@link ResponseBody}
+   * @throws IOException IOException
+   */
+  public static ResponseBody of(final Object value, final Gson gson, final BufferPool pool)
+      throws IOException {
+    ResponseBody response;
+
+    if (value == null) {
+      response = EMPTY;
+    } else if (value instanceof GzipResponse g) {
+      response = pool.compress(of(g.getValue(), gson, pool));
+    } else if (value instanceof byte[] b) {
+      response = new ResponseBody(b, b.length);
+    } else if (value instanceof ByteBuffer b) {
+      response = new ResponseBody(b.duplicate(), b.remaining());
+    } else if (value instanceof ByteArrayOutputStream b) {
+      response = new ResponseBody(b, b.size());
+    } else if (value instanceof InputStream is) {
+      try (is) {
+        PooledBuffer b = pool.output().readFrom(is);
+        response = new ResponseBody(b, b.size());
+      }
+    } else if (value instanceof String s) {
+      byte[] b = s.getBytes(StandardCharsets.UTF_8);
+      response = new ResponseBody(b, b.length);
+    } else if (value instanceof CharSequence s) {
+      ByteBuffer b = StandardCharsets.UTF_8.encode(CharBuffer.wrap(s));
+      response = new ResponseBody(b, b.remaining());
+    } else {
+      response = toJson(value, gson, pool.output());
+    }
+
+    return response;
+  }
+
+  /**
+   * Create {@link ResponseBody} of the bytes written to a {@link ByteArrayOutputStream}.
+   *
+   * @param bytes {@link ByteArrayOutputStream}
+   * @return {@link ResponseBody}
+   */
+  public static ResponseBody of(final ByteArrayOutputStream bytes) {
+    return new ResponseBody(bytes, bytes.size());
+  }
+
+  /**
+   * Serialize result to JSON.
+   *
+   * @param value {@link Object}
+   * @param gson {@link Gson}
+   * @param out {@link PooledBuffer}
+   * @return {@link ResponseBody}
+   * @throws IOException IOException
+   */
+  private static ResponseBody toJson(final Object value, final Gson gson, final PooledBuffer out)
+      throws IOException {
+    Writer writer = out.writer();
+    gson.toJson(value, value.getClass(), writer);
+    writer.flush();
+    return new ResponseBody(out, out.size());
+  }
+
+  @Override
+  public void writeTo(final OutputStream out) throws IOException {
+    if (this.body instanceof byte[] b) {
+      out.write(b, 0, this.length);
+    } else if (this.body instanceof ByteBuffer b) {
+      if (b.hasArray()) {
+        out.write(b.array(), b.arrayOffset() + b.position(), this.length);
+      } else {
+        Channels.newChannel(out).write(b.duplicate());
+      }
+    } else {
+      ((ByteArrayOutputStream) this.body).writeTo(out);
+    }
+  }
+
+  /**
+   * Get body length.
+   *
+   * @return int
+   */
+  public int getLength() {
+    return this.length;
+  }
+
+  /**
+   * Get body bytes.
+   *
+   * @return byte[]
+   */
+  public byte[] toByteArray() {
+    byte[] bytes;
+
+    if (this.body instanceof byte[] b && b.length == this.length) {
+      bytes = b;
+    } else {
+      ByteArrayOutputStream out = new ByteArrayOutputStream(this.length);
+      try {
+        writeTo(out);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+      bytes = out.toByteArray();
+    }
+
+    return bytes;
+  }
+
+  @Override
+  public String toString() {
+    return new String(toByteArray(), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,29 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/** Writes a Http request body directly to the connection {@link OutputStream}. */
+@FunctionalInterface
+public interface ResponseBodyWriter {
+
+  /**
+   * Write body.
+   *
+   * @param out {@link OutputStream}
+   * @throws IOException IOException
+   */
+  void writeTo(OutputStream out) throws IOException;
+}
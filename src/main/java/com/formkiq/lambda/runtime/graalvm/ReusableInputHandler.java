@@ -0,0 +1,28 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+
+/**
+ * Marks a {@link RequestHandler} that does not keep a reference to its input, or to any object in
+ * it, after returning, so setting 'LAMBDA_RUNTIME_REUSE_INPUT=true' lets the runtime fill the same
+ * input objects with the next event.
+ *
+ * <p>The input of an {@link AsyncRequestHandler}, or of any handler returning a {@link
+ * java.util.concurrent.CompletionStage}, is never reused, as code still running on other threads
+ * may hold it. Tasks registered with {@link LambdaContext#afterResponse(Runnable)} may use the
+ * input, but when they time out the pooled objects are dropped rather than filled while the tasks
+ * may still be running.
+ */
+public interface ReusableInputHandler {}
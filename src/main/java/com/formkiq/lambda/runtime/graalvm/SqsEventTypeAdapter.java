@@ -0,0 +1,143 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent.MessageAttribute;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent.SQSMessage;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
+
+/** Streaming {@link com.google.gson.TypeAdapter} of {@link SQSEvent}. */
+class SqsEventTypeAdapter extends AwsEventTypeAdapter<SQSEvent> {
+
+  /**
+   * constructor.
+   *
+   * @param gson {@link Gson}
+   * @param factory {@link TypeAdapterFactory}
+   */
+  SqsEventTypeAdapter(final Gson gson, final TypeAdapterFactory factory) {
+    super(gson, factory, TypeToken.get(SQSEvent.class));
+  }
+
+  @Override
+  public SQSEvent read(final JsonReader in) throws IOException {
+    return nextObject(in, SQSEvent::new, SqsEventTypeAdapter::readEventField);
+  }
+
+  /**
+   * Read a {@link SQSEvent} field.
+   *
+   * @param in {@link JsonReader}
+   * @param name {@link String}
+   * @param event {@link SQSEvent}
+   * @throws IOException IOException
+   */
+  private static void readEventField(final JsonReader in, final String name, final SQSEvent event)
+      throws IOException {
+    switch (name) {
+      case "records" -> event.setRecords(nextList(in, SqsEventTypeAdapter::nextMessage));
+      default -> in.skipValue();
+    }
+  }
+
+  /**
+   * Read a {@link SQSMessage}.
+   *
+   * @param in {@link JsonReader}
+   * @return {@link SQSMessage}
+   * @throws IOException IOException
+   */
+  private static SQSMessage nextMessage(final JsonReader in) throws IOException {
+    return nextObject(in, SQSMessage::new, SqsEventTypeAdapter::readMessageField);
+  }
+
+  /**
+   * Read a {@link SQSMessage} field.
+   *
+   * @param in {@link JsonReader}
+   * @param name {@link String}
+   * @param message {@link SQSMessage}
+   * @throws IOException IOException
+   */
+  private static void readMessageField(
+      final JsonReader in, final String name, final SQSMessage message) throws IOException {
+    switch (name) {
+      case "messageid" -> message.setMessageId(nextString(in));
+      case "receipthandle" -> message.setReceiptHandle(nextString(in));
+      case "body" -> message.setBody(nextString(in));
+      case "md5ofbody" -> message.setMd5OfBody(nextString(in));
+      case "md5ofmessageattributes" -> message.setMd5OfMessageAttributes(nextString(in));
+      case "attributes" -> message.setAttributes(nextMap(in, AwsEventTypeAdapter::nextString));
+      default -> readMessageSourceField(in, name, message);
+    }
+  }
+
+  /**
+   * Read a {@link SQSMessage} event source or message attributes field.
+   *
+   * @param in {@link JsonReader}
+   * @param name {@link String}
+   * @param message {@link SQSMessage}
+   * @throws IOException IOException
+   */
+  private static void readMessageSourceField(
+      final JsonReader in, final String name, final SQSMessage message) throws IOException {
+    switch (name) {
+      case "eventsourcearn" -> message.setEventSourceArn(nextString(in));
+      case "eventsource" -> message.setEventSource(nextString(in));
+      case "awsregion" -> message.setAwsRegion(nextString(in));
+      case "messageattributes" ->
+          message.setMessageAttributes(nextMap(in, SqsEventTypeAdapter::nextMessageAttribute));
+      default -> in.skipValue();
+    }
+  }
+
+  /**
+   * Read a {@link MessageAttribute}.
+   *
+   * @param in {@link JsonReader}
+   * @return {@link MessageAttribute}
+   * @throws IOException IOException
+   */
+  private static MessageAttribute nextMessageAttribute(final JsonReader in) throws IOException {
+    return nextObject(in, MessageAttribute::new, SqsEventTypeAdapter::readMessageAttributeField);
+  }
+
+  /**
+   * Read a {@link MessageAttribute} field.
+   *
+   * @param in {@link JsonReader}
+   * @param name {@link String}
+   * @param attribute {@link MessageAttribute}
+   * @throws IOException IOException
+   */
+  private static void readMessageAttributeField(
+      final JsonReader in, final String name, final MessageAttribute attribute)
+      throws IOException {
+    switch (name) {
+      case "stringvalue" -> attribute.setStringValue(nextString(in));
+      case "binaryvalue" -> attribute.setBinaryValue(nextByteBuffer(in));
+      case "stringlistvalues" ->
+          attribute.setStringListValues(nextList(in, AwsEventTypeAdapter::nextString));
+      case "binarylistvalues" ->
+          attribute.setBinaryListValues(nextList(in, AwsEventTypeAdapter::nextByteBuffer));
+      case "datatype" -> attribute.setDataType(nextString(in));
+      default -> in.skipValue();
+    }
+  }
+}
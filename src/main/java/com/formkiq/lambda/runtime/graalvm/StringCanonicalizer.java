@@ -0,0 +1,69 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+/**
+ * Bounded table of short strings, so the values repeated in every record of a batch event
+ * (eventSource, awsRegion, eventSourceARN, eventName, attribute names, ...) share one instance.
+ *
+ * <p>The table is a direct mapped cache. A string is only admitted the second time it is seen in
+ * its hash slot, so the unique values of every record (message ids, hashes, timestamps) do not
+ * evict the repeated ones. The first instance seen is kept, so it is shared with the following
+ * records. Racy reads and writes are safe as {@link String} is immutable, a lost update only means
+ * a duplicate is kept.
+ */
+final class StringCanonicalizer {
+
+  /** Number of table entries, a power of 2. */
+  private static final int SIZE = 1024;
+
+  /** Max length of canonicalized strings, longer strings are rarely repeated. */
+  private static final int MAX_LENGTH = 64;
+
+  /** Canonical strings. */
+  private static final String[] TABLE = new String[SIZE];
+
+  /** Strings seen once, admitted to the {@link #TABLE} when seen again. */
+  private static final String[] SEEN = new String[SIZE];
+
+  /** constructor. */
+  private StringCanonicalizer() {}
+
+  /**
+   * Get the canonical instance of a string.
+   *
+   * @param s {@link String}
+   * @return {@link String}, an equal instance seen before or the string itself
+   */
+  static String canonicalize(final String s) {
+    String canonical = s;
+
+    if (s != null && s.length() <= MAX_LENGTH) {
+      int hash = s.hashCode();
+      int slot = (hash ^ (hash >>> (Integer.SIZE / 2))) & (SIZE - 1);
+
+      String cached = TABLE[slot];
+      String seen = SEEN[slot];
+      if (s.equals(cached)) {
+        canonical = cached;
+      } else if (s.equals(seen)) {
+        TABLE[slot] = seen;
+        canonical = seen;
+      } else {
+        SEEN[slot] = s;
+      }
+    }
+
+    return canonical;
+  }
+}
@@ -12,6 +12,7 @@
  */
 package com.formkiq.lambda.runtime.graalvm;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import org.mockserver.mock.action.ExpectationResponseCallback;
 import org.mockserver.model.HttpRequest;
 import org.mockserver.model.HttpResponse;
@@ -25,9 +26,36 @@ public class InvocationNextHandler implements ExpectationResponseCallback {
   /** Lambda Request Id. */
   private static final String TRACE_ID = "testtraceid";
 
+  /** Invocation timeout, in milliseconds. */
+  private static final long TIMEOUT = 30000L;
+
   /** Response Content. */
   private String responseContent = "test";
 
+  /** Lambda Request Id of the next event. */
+  private String requestId = REQUEST_ID;
+
+  /** Number of long polls answered. */
+  private final AtomicInteger requestCount = new AtomicInteger();
+
+  /**
+   * Get the number of long polls answered.
+   *
+   * @return int
+   */
+  public int getRequestCount() {
+    return this.requestCount.get();
+  }
+
+  /**
+   * Set the Lambda Request Id of the next event, null for the default.
+   *
+   * @param id {@link String}
+   */
+  public void setRequestId(final String id) {
+    this.requestId = id != null ? id : REQUEST_ID;
+  }
+
   /**
    * Set Response Content.
    *
@@ -40,9 +68,12 @@ public class InvocationNextHandler implements ExpectationResponseCallback {
   @Override
   public HttpResponse handle(final HttpRequest httpRequest) throws Exception {
     final int statusCode = 200;
+    this.requestCount.incrementAndGet();
     return HttpResponse.response()
-        .withHeader("Lambda-Runtime-Aws-Request-Id", REQUEST_ID)
+        .withHeader("Lambda-Runtime-Aws-Request-Id", this.requestId)
         .withHeader("Lambda-Runtime-Trace-Id", TRACE_ID)
+        .withHeader(
+            "Lambda-Runtime-Deadline-Ms", String.valueOf(System.currentTimeMillis() + TIMEOUT))
         .withBody(responseContent)
         .withStatusCode(Integer.valueOf(statusCode));
   }
@@ -19,9 +19,29 @@ import org.mockserver.model.HttpResponse;
 /** {@link ExpectationResponseCallback} for the Lambda Invocation Response. */
 public class InvocationResponseHandler implements ExpectationResponseCallback {
 
+  /** Default Http Status Code. */
+  private static final int OK = 200;
+
   /** Http Response. */
   private String response = null;
 
+  /** Http Status Code. */
+  private final int statusCode;
+
+  /** constructor. */
+  public InvocationResponseHandler() {
+    this(OK);
+  }
+
+  /**
+   * constructor.
+   *
+   * @param status int Http Status Code
+   */
+  public InvocationResponseHandler(final int status) {
+    this.statusCode = status;
+  }
+
   /**
    * Get Http Response.
    *
@@ -38,7 +58,6 @@ public class InvocationResponseHandler implements ExpectationResponseCallback {
       this.response = "";
     }
 
-    final int statusCode = 200;
-    return HttpResponse.response(this.response).withStatusCode(Integer.valueOf(statusCode));
+    return HttpResponse.response(this.response).withStatusCode(Integer.valueOf(this.statusCode));
   }
 }
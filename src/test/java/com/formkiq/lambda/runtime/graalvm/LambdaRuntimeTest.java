@@ -12,14 +12,20 @@
  */
 package com.formkiq.lambda.runtime.graalvm;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockserver.integration.ClientAndServer.startClientAndServer;
+import static org.mockserver.model.ConnectionOptions.connectionOptions;
 import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
 
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.DynamodbEvent;
 import com.amazonaws.services.lambda.runtime.events.DynamodbEvent.DynamodbStreamRecord;
@@ -27,15 +33,31 @@ import com.amazonaws.services.lambda.runtime.events.IamPolicyResponseV1;
 import com.amazonaws.services.lambda.runtime.events.S3Event;
 import com.amazonaws.services.lambda.runtime.events.SQSEvent;
 import com.amazonaws.services.lambda.runtime.events.SQSEvent.SQSMessage;
+import com.amazonaws.services.lambda.runtime.events.models.dynamodb.AttributeValue;
 import com.amazonaws.services.lambda.runtime.events.models.dynamodb.StreamRecord;
 import com.amazonaws.services.lambda.runtime.events.models.s3.S3EventNotification.S3EventNotificationRecord;
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -50,6 +72,15 @@ public class LambdaRuntimeTest {
   /** Lambda Request Id. */
   private static final String REQUEST_ID = "testrequestid";
 
+  /** Lambda Request Id whose response is rejected. */
+  private static final String REJECTED_REQUEST_ID = "rejectedrequestid";
+
+  /** Lambda Request Id whose response closes the connection. */
+  private static final String CLOSED_REQUEST_ID = "closedrequestid";
+
+  /** Status of a rejected response, Request Entity Too Large. */
+  private static final int REJECTED_STATUS = 413;
+
   /** Server Port. */
   private static final int SERVER_PORT = 8001;
 
@@ -78,6 +109,20 @@ public class LambdaRuntimeTest {
         "/2018-06-01/runtime/invocation/" + REQUEST_ID + "/response",
         INVOCATION_RESPONSE_HANDLER);
     add("POST", "/2018-06-01/runtime/init/error", INVOCATION_RESPONSE_HANDLER);
+    add(
+        "POST",
+        "/2018-06-01/runtime/invocation/" + REJECTED_REQUEST_ID + "/response",
+        new InvocationResponseHandler(REJECTED_STATUS));
+    mockServer
+        .when(
+            request()
+                .withMethod("POST")
+                .withPath("/2018-06-01/runtime/invocation/" + CLOSED_REQUEST_ID + "/response"))
+        .respond(response().withConnectionOptions(connectionOptions().withCloseSocket(true)));
+    add(
+        "POST",
+        "/2018-06-01/runtime/invocation/" + REJECTED_REQUEST_ID + "/error",
+        INVOCATION_RESPONSE_HANDLER);
   }
 
   /** After Class. */
@@ -116,6 +161,7 @@ public class LambdaRuntimeTest {
   @BeforeEach
   public void before() {
     INVOCATION_NEXT_HANDLER.setResponseContent("test");
+    INVOCATION_NEXT_HANDLER.setRequestId(null);
   }
 
   /**
@@ -332,6 +378,681 @@ public class LambdaRuntimeTest {
     assertNotNull(System.getProperty("com.amazonaws.xray.traceHeader"));
   }
 
+  /**
+   * Test invoke Lambda with {@link TestRequestLazyBatchHandler}.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testInvoke12() throws Exception {
+    // given
+    INVOCATION_NEXT_HANDLER.setResponseContent(
+        "{\"x\":{\"Records\":[1]},\"Records\":[{\"body\":\"a]}\\\"{\"},"
+            + " {\"body\":\"b\\u00e9\"} ],\"y\":null}");
+    Map<String, String> env = createEnv(TestRequestLazyBatchHandler.class.getName());
+
+    // when
+    LambdaRuntime.invoke(env);
+
+    // then
+    String expected = "2 false b\u00e9";
+    assertEquals(expected, INVOCATION_RESPONSE_HANDLER.getResponse());
+  }
+
+  /**
+   * Test invoke Lambda with {@link TestRequestBatchRecordHandler}, a failed record fails the
+   * records after it in the same message group.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testInvoke13() throws Exception {
+    // given
+    INVOCATION_NEXT_HANDLER.setResponseContent(
+        "{\"Records\":["
+            + "{\"messageId\":\"1\",\"body\":\"fail\"},"
+            + "{\"messageId\":\"2\",\"body\":\"ok\"},"
+            + "{\"messageId\":\"3\",\"body\":\"fail\",\"attributes\":{\"MessageGroupId\":\"a\"}},"
+            + "{\"messageId\":\"4\",\"body\":\"ok\",\"attributes\":{\"MessageGroupId\":\"a\"}},"
+            + "{\"messageId\":\"5\",\"body\":\"ok\",\"attributes\":{\"MessageGroupId\":\"b\"}}"
+            + "]}");
+    Map<String, String> env = createEnv(TestRequestBatchRecordHandler.class.getName());
+    env.put("LAMBDA_RUNTIME_BATCH_PARALLELISM", "2");
+
+    // when
+    LambdaRuntime.invoke(env);
+
+    // then
+    String expected =
+        "{\"batchItemFailures\":[{\"itemIdentifier\":\"1\"},"
+            + "{\"itemIdentifier\":\"3\"},{\"itemIdentifier\":\"4\"}]}";
+    assertEquals(expected, INVOCATION_RESPONSE_HANDLER.getResponse());
+  }
+
+  /**
+   * Test invoke Lambda with {@link TestRequestInputStringByteBufferHandler}, the buffer bytes are
+   * posted as is.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testInvoke14() throws Exception {
+    // given
+    INVOCATION_NEXT_HANDLER.setResponseContent("abc");
+    Map<String, String> env = createEnv(TestRequestInputStringByteBufferHandler.class.getName());
+
+    // when
+    LambdaRuntime.invoke(env);
+
+    // then
+    String expected = "r\u00e9sum\u00e9 abc";
+    assertEquals(expected, INVOCATION_RESPONSE_HANDLER.getResponse());
+  }
+
+  /**
+   * Test invoke Lambda with {@link TestRequestInputByteBufferHandler}, events above the off heap
+   * threshold are read into a direct {@link java.nio.ByteBuffer}.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testInvoke15() throws Exception {
+    // given
+    INVOCATION_NEXT_HANDLER.setResponseContent("{\"a\":\"b\u00e9\"}");
+    Map<String, String> env = createEnv(TestRequestInputByteBufferHandler.class.getName());
+    env.put("LAMBDA_RUNTIME_OFFHEAP_THRESHOLD", "4");
+
+    // when
+    LambdaRuntime.invoke(env);
+
+    // then
+    String expected = "true {\"a\":\"b\u00e9\"}";
+    assertEquals(expected, INVOCATION_RESPONSE_HANDLER.getResponse());
+  }
+
+  /**
+   * Test invoke Lambda with a base64 gzip event and a {@link GzipResponse}.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testInvoke16() throws Exception {
+    // given
+    String event = "{\"Records\":[{\"body\":\"a\"},{\"body\":\"b\\u00e9\"}]}";
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+      gzip.write(event.getBytes(StandardCharsets.UTF_8));
+    }
+
+    INVOCATION_NEXT_HANDLER.setResponseContent(
+        "\"" + Base64.getEncoder().encodeToString(compressed.toByteArray()) + "\"");
+    Map<String, String> env = createEnv(TestRequestGzipResponseHandler.class.getName());
+    env.put("LAMBDA_RUNTIME_GZIP_INPUT", "true");
+    env.put("LAMBDA_RUNTIME_GZIP_RESPONSE_MIN_BYTES", "0");
+
+    // when
+    LambdaRuntime.invoke(env);
+
+    // then
+    String response = INVOCATION_RESPONSE_HANDLER.getResponse();
+    assertTrue(response.startsWith("\"H4sI"));
+    byte[] bytes = Base64.getDecoder().decode(response.substring(1, response.length() - 1));
+    try (InputStream is = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+      assertEquals("2 false b\u00e9", new String(is.readAllBytes(), StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * Test invoke Lambda with a handler registered by {@link TestLambdaHandlerIndex}.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testInvoke17() throws Exception {
+    // given
+    Map<String, String> env = createEnv("stringHandler");
+
+    // when
+    LambdaRuntime.invoke(env);
+
+    // then
+    String expected = "this is a test string";
+    assertEquals(expected, INVOCATION_RESPONSE_HANDLER.getResponse());
+    assertTrue(LambdaHandlerRegistry.getNames().contains("stringHandler"));
+  }
+
+  /**
+   * Test invoke Lambda with a handler created by {@link TestHandlerFactory}.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testInvoke18() throws Exception {
+    // given
+    INVOCATION_NEXT_HANDLER.setResponseContent("\"world\"");
+    Map<String, String> env = createEnv(TestRequestFactoryHandler.class.getName());
+    env.put("GREETING", "hi");
+
+    // when
+    LambdaRuntime.invoke(env);
+
+    // then
+    assertEquals("hi world", INVOCATION_RESPONSE_HANDLER.getResponse());
+  }
+
+  /**
+   * Test invoke Lambda with parallel init.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testInvoke19() throws Exception {
+    // given
+    Map<String, String> env = createEnv(TestRequestInputStringStringHandler.class.getName());
+    env.put("LAMBDA_RUNTIME_PARALLEL_INIT", "true");
+
+    // when
+    LambdaRuntime.invoke(env);
+
+    // then
+    assertEquals("this is a test string", INVOCATION_RESPONSE_HANDLER.getResponse());
+  }
+
+  /**
+   * Test parallel init error is posted to '/init/error' without sending the first long poll, with
+   * provisioned concurrency only logging a warning.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testInvoke20() throws Exception {
+    // given
+    Map<String, String> env = createEnv("com.formkiq.NonExistance.class");
+    env.put("LAMBDA_RUNTIME_PARALLEL_INIT", "true");
+    env.put("AWS_LAMBDA_INITIALIZATION_TYPE", "provisioned-concurrency");
+    int polls = INVOCATION_NEXT_HANDLER.getRequestCount();
+
+    // when
+    LambdaRuntime.invoke(env);
+
+    // then
+    String expected =
+        "{\"errorMessage\":\"Could not find handler method\",\"errorType\":\"InitError\"}";
+    assertEquals(expected, INVOCATION_RESPONSE_HANDLER.getResponse());
+    assertEquals(polls, INVOCATION_NEXT_HANDLER.getRequestCount());
+  }
+
+  /**
+   * Test invoke Lambda with a {@link DynamodbStreamHandler}.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testInvoke21() throws Exception {
+    // given
+    INVOCATION_NEXT_HANDLER.setResponseContent(
+        "{\"Records\":[{\"eventID\":\"1\",\"eventName\":\"INSERT\",\"dynamodb\":{"
+            + "\"Keys\":{\"id\":{\"S\":\"a1\"}},\"NewImage\":{\"id\":{\"S\":\"a1\"},"
+            + "\"quantity\":{\"N\":\"3\"},\"tags\":{\"SS\":[\"x\",\"y\"]},"
+            + "\"other\":{\"M\":{\"k\":{\"L\":[{\"NULL\":true}]}}}}}}]}");
+    Map<String, String> env = createEnv(TestRequestDynamodbStreamHandler.class.getName());
+
+    // when
+    LambdaRuntime.invoke(env);
+
+    // then
+    assertEquals("INSERT a1 3 [x, y];", INVOCATION_RESPONSE_HANDLER.getResponse());
+  }
+
+  /**
+   * Test invoke Lambda with a {@link Map} input read as a {@link CompactJsonMap}.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testInvoke22() throws Exception {
+    // given
+    INVOCATION_NEXT_HANDLER.setResponseContent(
+        "{\"id\":9007199254740993,\"price\":1.5,\"name\":\"a\",\"tags\":[1],\"ok\":true}");
+    Map<String, String> env = createEnv(TestRequestInputMapStringHandler.class.getName());
+
+    // when
+    LambdaRuntime.invoke(env);
+
+    // then
+    assertEquals(
+        "CompactJsonMap id=9007199254740993:Long price=1.5:Double name=a:String "
+            + "tags=[1]:ArrayList ok=true:Boolean",
+        INVOCATION_RESPONSE_HANDLER.getResponse());
+  }
+
+  /**
+   * Test invoke {@link AsyncRequestHandler}, the response is posted when the future completes.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testInvoke23() throws Exception {
+    // given
+    Map<String, String> env = createEnv(TestRequestAsyncHandler.class.getName());
+
+    // when
+    LambdaRuntime.invoke(env);
+
+    // then
+    assertEquals("async test true", INVOCATION_RESPONSE_HANDLER.getResponse());
+  }
+
+  /**
+   * Test invoke Lambda with the next long poll pipelined behind the response.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testInvoke24() throws Exception {
+    // given
+    Map<String, String> env = createEnv(TestRequestInputStringStringHandler.class.getName());
+    env.put("LAMBDA_RUNTIME_PIPELINING", "true");
+
+    // when
+    LambdaRuntime.invoke(env);
+
+    // then
+    assertEquals("this is a test string", INVOCATION_RESPONSE_HANDLER.getResponse());
+    assertNull(PipelinedConnection.get());
+  }
+
+  /**
+   * Test invoke Lambda with pipelining, a response the Runtime API rejects posts the error.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testInvoke26() throws Exception {
+    // given
+    Map<String, String> env = createEnv(TestRequestInputStringStringHandler.class.getName());
+    env.put("LAMBDA_RUNTIME_PIPELINING", "true");
+    INVOCATION_NEXT_HANDLER.setRequestId(REJECTED_REQUEST_ID);
+
+    // when
+    LambdaRuntime.invoke(env);
+
+    // then
+    String expected = "{\"errorMessage\":\"Invocation Error\",\"errorType\":\"RuntimeError\"}";
+    assertEquals(expected, INVOCATION_RESPONSE_HANDLER.getResponse());
+  }
+
+  /**
+   * Test invoke Lambda with {@link LambdaContext#afterResponse(Runnable)} tasks, a failing task
+   * does not stop the following ones.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testInvoke25() throws Exception {
+    // given
+    Map<String, String> env = createEnv(TestRequestAfterResponseHandler.class.getName());
+    env.put("LAMBDA_RUNTIME_PIPELINING", "true");
+
+    // when
+    LambdaRuntime.invoke(env);
+
+    // then
+    assertEquals("after response test", INVOCATION_RESPONSE_HANDLER.getResponse());
+    assertEquals("test", TestRequestAfterResponseHandler.getTaskInput());
+  }
+
+  /**
+   * Test invoke Lambda with {@link ReusableInputHandler}, the input objects are only reused for
+   * marked handlers that are not async.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testInvoke27() throws Exception {
+    // given
+    INVOCATION_NEXT_HANDLER.setResponseContent("{\"Records\":[{\"messageId\":\"abc\"}]}");
+    Map<String, String> env = createEnv(TestRequestReusableInputHandler.class.getName());
+    env.put("LAMBDA_RUNTIME_REUSE_INPUT", "true");
+
+    // when
+    LambdaRuntime.invoke(env);
+
+    // then
+    assertEquals("abc", INVOCATION_RESPONSE_HANDLER.getResponse());
+    assertNotNull(InputRecycler.get());
+
+    for (Class<?> handler :
+        Arrays.asList(TestRequestAsyncReusableInputHandler.class, TestRequestAsyncHandler.class)) {
+      LambdaHandlerPlan plan = LambdaHandlerPlan.resolve(handler.getName());
+      InputRecycler.install(env, plan);
+      assertFalse(plan.isReusableInput());
+      assertNull(InputRecycler.get());
+    }
+  }
+
+  /**
+   * Test invoke Lambda with pipelining and EMF metrics, the next long poll is not pipelined behind
+   * the response as the metrics line is written after it.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testInvoke28() throws Exception {
+    // given
+    Map<String, String> env = createEnv(TestRequestInputStringStringHandler.class.getName());
+    env.put("LAMBDA_RUNTIME_PIPELINING", "true");
+    env.put("LAMBDA_RUNTIME_METRICS", "true");
+    int polls = INVOCATION_NEXT_HANDLER.getRequestCount();
+
+    // when
+    LambdaRuntime.invoke(env);
+
+    // then
+    assertEquals("this is a test string", INVOCATION_RESPONSE_HANDLER.getResponse());
+    assertEquals(polls + 1, INVOCATION_NEXT_HANDLER.getRequestCount());
+    assertNull(PipelinedConnection.get());
+  }
+
+  /**
+   * Test invoke Lambda with the {@link IdempotencyCache} and pipelining, responses of events with
+   * and without an idempotency key are posted.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testInvoke29() throws Exception {
+    for (String event : Arrays.asList("{\"data\":\"test\"}", "{\"id\":\"k1\"}")) {
+      // given
+      INVOCATION_NEXT_HANDLER.setResponseContent(event);
+      Map<String, String> env = createEnv(TestRequestStreamHandler.class.getName());
+      env.put("LAMBDA_RUNTIME_PIPELINING", "true");
+      env.put("LAMBDA_RUNTIME_IDEMPOTENCY", "true");
+      env.put("LAMBDA_RUNTIME_IDEMPOTENCY_KEY", "$.id");
+
+      // when
+      LambdaRuntime.invoke(env);
+
+      // then
+      assertEquals("test data result", INVOCATION_RESPONSE_HANDLER.getResponse());
+    }
+  }
+
+  /**
+   * Test {@link PipelinedConnection} when the Runtime API closes the connection after the
+   * response, the lost pipelined poll is sent again on a new connection.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testPipelinedConnection01() throws Exception {
+    // given
+    String runtimeApi = SERVER_HOST + ":" + SERVER_PORT;
+    String runtimeUrl = "http://" + runtimeApi + "/2018-06-01/runtime";
+    PipelinedConnection connection =
+        new PipelinedConnection(runtimeApi, runtimeUrl + "/invocation/next");
+    byte[] body = "closed".getBytes(StandardCharsets.UTF_8);
+    String responseUrl = runtimeUrl + "/invocation/" + CLOSED_REQUEST_ID + "/response";
+
+    try {
+      // when
+      HttpResponse post = connection.post(responseUrl, os -> os.write(body), body.length, true);
+      HttpResponse event = connection.next();
+
+      // then
+      assertTrue(post.isSuccess());
+      assertEquals(REQUEST_ID, event.getHeaderValue("Lambda-Runtime-Aws-Request-Id"));
+      try (InputStream is = event.getBodyStream()) {
+        assertEquals("test", new String(is.readAllBytes(), StandardCharsets.UTF_8));
+      }
+    } finally {
+      connection.close();
+    }
+  }
+
+  /**
+   * Test {@link HousekeepingScheduler} decides a collection is due before the response is posted
+   * and collects once the heap grew by the threshold.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testHousekeeping01() throws Exception {
+    // given
+    Map<String, String> env = new HashMap<>();
+    env.put("AWS_LAMBDA_FUNCTION_MEMORY_SIZE", "128");
+    env.put("LAMBDA_RUNTIME_HOUSEKEEPING", "true");
+    env.put("LAMBDA_RUNTIME_HOUSEKEEPING_HEAP_PERCENT", "0");
+    BufferPool.install(env);
+
+    HousekeepingScheduler.install(env);
+    HousekeepingScheduler housekeeping = HousekeepingScheduler.get();
+    InvocationMetrics metrics = new InvocationMetrics(true);
+    metrics.start(0);
+
+    // when
+    boolean pending = HousekeepingScheduler.isPending();
+    housekeeping.run(metrics);
+
+    // then
+    assertTrue(pending);
+    assertTrue(metrics.getDuration(InvocationPhase.HOUSEKEEPING) > 0);
+    assertTrue(housekeeping.getNextCollection() < Long.MAX_VALUE);
+    assertEquals(Long.MAX_VALUE, new HousekeepingScheduler(new HashMap<>()).getNextCollection());
+  }
+
+  /**
+   * Test {@link EmfMetricsPublisher} writes one EMF line per invocation, defining the init metrics
+   * only on the cold start.
+   */
+  @Test
+  public void testEmfMetrics01() {
+    // given
+    final long initNanos = 2000000;
+    final int requestBytes = 10;
+    final int responseBytes = 20;
+    final int otherMetrics = 7;
+    final long nanosPerMicro = 1000;
+    List<String> lines = new ArrayList<>();
+    LambdaLogger logger =
+        new LambdaLogger() {
+          @Override
+          public void log(final String message) {
+            lines.add(message);
+          }
+
+          @Override
+          public void log(final byte[] message) {
+            lines.add(new String(message, StandardCharsets.UTF_8));
+          }
+        };
+
+    Map<String, String> env = Map.of("AWS_LAMBDA_FUNCTION_NAME", "test");
+    EmfMetricsPublisher publisher = new EmfMetricsPublisher(env);
+    InvocationMetrics metrics = new InvocationMetrics(true);
+    Gson gson = new Gson();
+
+    // when
+    for (String requestId : Arrays.asList("r1", "r2")) {
+      metrics.start(initNanos);
+      metrics.setRequestId(requestId);
+      metrics.setRequestBytes(requestBytes);
+      metrics.mark(InvocationPhase.HANDLER);
+      metrics.setResponseBytes(responseBytes);
+      metrics.finish();
+      publisher.publish(metrics, logger);
+    }
+
+    // then
+    assertEquals(2, lines.size());
+
+    JsonObject cold = gson.fromJson(lines.get(0), JsonObject.class);
+    JsonObject directive =
+        cold.getAsJsonObject("_aws").getAsJsonArray("CloudWatchMetrics").get(0).getAsJsonObject();
+    assertEquals("LambdaRuntimeGraalvm", directive.get("Namespace").getAsString());
+    assertEquals("[[\"FunctionName\"]]", directive.get("Dimensions").toString());
+
+    JsonArray definitions = directive.getAsJsonArray("Metrics");
+    assertEquals(InvocationPhase.values().length + otherMetrics, definitions.size());
+    for (JsonElement definition : definitions) {
+      String name = definition.getAsJsonObject().get("Name").getAsString();
+      assertTrue(cold.has(name), name);
+    }
+
+    assertTrue(cold.getAsJsonObject("_aws").get("Timestamp").getAsLong() > 0);
+    assertEquals("test", cold.get("FunctionName").getAsString());
+    assertEquals("r1", cold.get("RequestId").getAsString());
+    assertEquals(1, cold.get("ColdStart").getAsInt());
+    assertEquals(initNanos / nanosPerMicro, cold.get("InitDuration").getAsLong());
+    assertEquals(requestBytes, cold.get("RequestBytes").getAsInt());
+    assertEquals(responseBytes, cold.get("ResponseBytes").getAsInt());
+
+    JsonObject warm = gson.fromJson(lines.get(1), JsonObject.class);
+    assertEquals("r2", warm.get("RequestId").getAsString());
+    assertEquals(0, warm.get("ColdStart").getAsInt());
+    assertFalse(warm.has("InitDuration"));
+    assertFalse(lines.get(1).contains("\"Name\":\"InitDuration\""));
+  }
+
+  /**
+   * Test {@link IdempotencyCache} answers a redelivered event by its key, and misses once the TTL
+   * passed.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testIdempotencyCache01() throws Exception {
+    // given
+    Map<String, String> env = new HashMap<>();
+    env.put("LAMBDA_RUNTIME_IDEMPOTENCY_KEY", "$.Records[0].messageId");
+    IdempotencyCache cache = new IdempotencyCache(env);
+    byte[] response = "ok".getBytes(StandardCharsets.UTF_8);
+    byte[] event =
+        "{\"Records\":[{\"messageId\":\"m1\",\"attributes\":{\"ApproximateReceiveCount\":\"1\"}}]}"
+            .getBytes(StandardCharsets.UTF_8);
+    byte[] redelivered =
+        "{\"Records\":[{\"messageId\":\"m1\",\"attributes\":{\"ApproximateReceiveCount\":\"2\"}}]}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    // when
+    String key = cache.getKey(event);
+    byte[] miss = cache.get(key);
+    cache.put(key, response);
+
+    // then
+    assertEquals("m1", key);
+    assertNull(miss);
+    assertArrayEquals(response, cache.get(cache.getKey(redelivered)));
+    assertNull(cache.getKey("{}".getBytes(StandardCharsets.UTF_8)));
+
+    env.put("LAMBDA_RUNTIME_IDEMPOTENCY_TTL", "0");
+    IdempotencyCache expired = new IdempotencyCache(env);
+    expired.put(key, response);
+    assertNull(expired.get(key));
+    assertEquals(0, expired.size());
+
+    assertThrows(IllegalArgumentException.class, () -> new IdempotencyCache(new HashMap<>()));
+  }
+
+  /**
+   * Test {@link IdempotencyCache} spills evicted entries to a {@link MappedSpillFile}, which
+   * indexes them again when reopened and starts over when full.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testIdempotencyCache02() throws Exception {
+    // given
+    final int size = 1024;
+    final int large = 900;
+    Path file = Files.createTempFile("idempotency", ".cache");
+    byte[] a = "A".getBytes(StandardCharsets.UTF_8);
+    byte[] b = "B".getBytes(StandardCharsets.UTF_8);
+
+    Map<String, String> env = new HashMap<>();
+    env.put("LAMBDA_RUNTIME_IDEMPOTENCY_KEY", "$.id");
+    env.put("LAMBDA_RUNTIME_IDEMPOTENCY_MAX_ENTRIES", "1");
+    env.put("LAMBDA_RUNTIME_IDEMPOTENCY_SPILL_FILE", file.toString());
+    env.put("LAMBDA_RUNTIME_IDEMPOTENCY_SPILL_SIZE", String.valueOf(size));
+
+    try {
+      IdempotencyCache cache = new IdempotencyCache(env);
+
+      // when
+      cache.put("a", a);
+      cache.put("b", b);
+
+      // then
+      assertEquals(1, cache.size());
+      assertArrayEquals(a, cache.get("a"));
+      assertArrayEquals(b, cache.get("b"));
+
+      MappedSpillFile spill = new MappedSpillFile(file, size);
+      assertEquals(1, spill.size());
+      assertArrayEquals(a, spill.get("a", System.currentTimeMillis()));
+      assertNull(spill.get("a", Long.MAX_VALUE));
+
+      spill.put("c", new byte[large], Long.MAX_VALUE);
+      spill.put("d", new byte[large], Long.MAX_VALUE);
+      assertEquals(1, spill.size());
+      assertNull(spill.get("c", 0));
+      assertEquals(large, spill.get("d", 0).length);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Test {@link JsonPath} extracts field values, array items and nested JSON.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testJsonPath01() throws Exception {
+    // given
+    byte[] json =
+        ("{\"Records\":[{\"messageId\":\"m1\",\"body\":{\"a\":[1,2]}},"
+                + "{\"messageId\":\"m2\"}],\"n\":null}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    // when
+    String messageId = JsonPath.compile("$.Records[1].messageId").extract(json);
+    String body = JsonPath.compile("$.Records[0].body").extract(json);
+
+    // then
+    assertEquals("m2", messageId);
+    assertEquals("{\"a\":[1,2]}", body);
+    assertNull(JsonPath.compile("$.Records[2].messageId").extract(json));
+    assertNull(JsonPath.compile("$.n").extract(json));
+    assertNull(JsonPath.compile("$.missing").extract(json));
+    assertThrows(IllegalArgumentException.class, () -> JsonPath.compile("$.Records[0"));
+  }
+
+  /**
+   * Test {@link BufferPool#reader(EventPayload)} decodes multi byte characters split across the
+   * decoded chunks, on and off heap.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testBufferPool01() throws Exception {
+    // given
+    final int count = 20000;
+    String text = "a\u00e9\u20ac\ud83d\ude00".repeat(count);
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+
+    for (String threshold : Arrays.asList("-1", "0")) {
+      BufferPool pool = new BufferPool(Map.of("LAMBDA_RUNTIME_OFFHEAP_THRESHOLD", threshold));
+
+      // when
+      EventPayload payload = pool.read(new ByteArrayInputStream(bytes), bytes.length);
+      String decoded = IOUtils.toString(pool.reader(payload));
+
+      // then
+      assertEquals(text, decoded);
+    }
+  }
+
   /**
    * Test invoke Lambda with {@link APIGatewayProxyRequestEvent}.
    *
@@ -359,6 +1080,34 @@ public class LambdaRuntimeTest {
     assertFalse(event.getIsBase64Encoded());
   }
 
+  /**
+   * Test {@link DynamodbStreamEvent} is written with the reflective {@link
+   * com.google.gson.TypeAdapter}, the item images as plain JSON.
+   */
+  @Test
+  public void testDynamodbStreamEvent01() {
+    // given
+    Gson gson = LambdaRuntime.buildJsonProvider();
+    Type type =
+        TypeToken.getParameterized(
+                DynamodbStreamEvent.class, TestRequestDynamodbStreamHandler.Item.class)
+            .getType();
+    String payload =
+        "{\"Records\":[{\"eventID\":\"1\",\"eventName\":\"INSERT\",\"dynamodb\":{"
+            + "\"Keys\":{\"id\":{\"S\":\"a1\"}},\"NewImage\":{\"id\":{\"S\":\"a1\"},"
+            + "\"quantity\":{\"N\":\"3\"},\"tags\":{\"SS\":[\"x\",\"y\"]}}}}]}";
+
+    // when
+    String json = gson.toJson(gson.fromJson(payload, type), type);
+
+    // then
+    assertEquals(
+        "{\"records\":[{\"eventId\":\"1\",\"eventName\":\"INSERT\","
+            + "\"keys\":{\"id\":\"a1\",\"quantity\":0},"
+            + "\"newImage\":{\"id\":\"a1\",\"quantity\":3,\"tags\":[\"x\",\"y\"]}}]}",
+        json);
+  }
+
   /**
    * Test invoke Lambda with {@link DynamodbEvent}.
    *
@@ -409,6 +1158,69 @@ public class LambdaRuntimeTest {
     assertEquals("NEW_AND_OLD_IMAGES", db.getStreamViewType());
   }
 
+  /**
+   * Test {@link DynamodbEvent} binary attributes are decoded from base64.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testDynamodbEvent02() throws Exception {
+    // given
+    String payload =
+        "{\"Records\":[{\"dynamodb\":{\"NewImage\":{"
+            + "\"data\":{\"B\":\"aGVsbG8=\"},\"set\":{\"BS\":[\"YQ==\",\"Yg\"]}}}}]}";
+
+    Gson gson = LambdaRuntime.buildJsonProvider();
+
+    // when
+    DynamodbEvent event =
+        (DynamodbEvent) LambdaRuntime.convertToObject(gson, payload, DynamodbEvent.class);
+
+    // then
+    Map<String, AttributeValue> image = event.getRecords().get(0).getDynamodb().getNewImage();
+    assertEquals("hello", StandardCharsets.UTF_8.decode(image.get("data").getB()).toString());
+    assertEquals(2, image.get("set").getBS().size());
+    assertEquals("b", StandardCharsets.UTF_8.decode(image.get("set").getBS().get(1)).toString());
+
+    String json = gson.toJson(image.get("set"));
+    assertEquals("{\"bS\":[\"YQ\\u003d\\u003d\",\"Yg\\u003d\\u003d\"]}", json);
+  }
+
+  /**
+   * Test {@link DynamodbEvent} is read by the streaming {@link DynamodbEventTypeAdapter}.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testDynamodbEvent03() throws Exception {
+    // given
+    String payload =
+        "{\"Records\":[{\"eventSourceARN\":\"arn\",\"dynamodb\":{\"NewImage\":{"
+            + "\"m\":{\"M\":{\"l\":{\"L\":[{\"N\":\"1\"},{\"NULL\":true}]}}},"
+            + "\"ok\":{\"BOOL\":true},\"ss\":{\"SS\":[\"a\",\"b\"]}},"
+            + "\"SizeBytes\":12}}]}";
+
+    Gson gson = LambdaRuntime.buildJsonProvider();
+
+    // when
+    DynamodbEvent event =
+        (DynamodbEvent) LambdaRuntime.convertToObject(gson, payload, DynamodbEvent.class);
+
+    // then
+    assertTrue(gson.getAdapter(DynamodbEvent.class) instanceof DynamodbEventTypeAdapter);
+
+    DynamodbStreamRecord record = event.getRecords().get(0);
+    assertEquals("arn", record.getEventSourceARN());
+    assertEquals(Long.valueOf(12), record.getDynamodb().getSizeBytes());
+
+    Map<String, AttributeValue> image = record.getDynamodb().getNewImage();
+    List<AttributeValue> list = image.get("m").getM().get("l").getL();
+    assertEquals("1", list.get(0).getN());
+    assertTrue(list.get(1).getNULL());
+    assertTrue(image.get("ok").getBOOL());
+    assertEquals(List.of("a", "b"), image.get("ss").getSS());
+  }
+
   /**
    * Test invoke Lambda with {@link S3Event}.
    *
@@ -489,6 +1301,131 @@ public class LambdaRuntimeTest {
     assertNotNull(record.getReceiptHandle());
   }
 
+  /**
+   * Test the strings repeated in the records of a {@link SQSEvent} share one instance.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testSqsEvent02() throws Exception {
+    // given
+    Gson gson = LambdaRuntime.buildJsonProvider();
+    JsonObject json = gson.fromJson(loadContent("/SQSEvent/event01.json"), JsonObject.class);
+    JsonArray records = json.getAsJsonArray("Records");
+    records.add(records.get(0).deepCopy());
+
+    // when
+    SQSEvent event =
+        (SQSEvent) LambdaRuntime.convertToObject(gson, json.toString(), SQSEvent.class);
+
+    // then
+    SQSMessage record0 = event.getRecords().get(0);
+    SQSMessage record1 = event.getRecords().get(1);
+    assertEquals("us-east-2", record1.getAwsRegion());
+    assertSame(record0.getAwsRegion(), record1.getAwsRegion());
+    assertSame(record0.getEventSource(), record1.getEventSource());
+    assertSame(record0.getEventSourceArn(), record1.getEventSourceArn());
+    assertEquals(record0.getBody(), record1.getBody());
+  }
+
+  /**
+   * Test {@link InputRecycler} fills the previous {@link SQSEvent} objects in place.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testSqsEvent03() throws Exception {
+    // given
+    String payload = loadContent("/SQSEvent/event01.json");
+    InputRecycler recycler =
+        new InputRecycler(LambdaRuntime.jsonProviderBuilder(), SQSEvent.class);
+    SQSEvent event = recycler.recycle().fromJson(payload, SQSEvent.class);
+    SQSMessage record = event.getRecords().get(0);
+
+    // when
+    SQSEvent next =
+        recycler.recycle().fromJson("{\"Records\":[{\"messageId\":\"abc\"}]}", SQSEvent.class);
+
+    // then
+    assertSame(event, next);
+    assertSame(record, next.getRecords().get(0));
+    assertEquals(1, next.getRecords().size());
+    assertEquals("abc", record.getMessageId());
+    assertNull(record.getAwsRegion());
+    assertNull(record.getAttributes());
+  }
+
+  /**
+   * Test {@link StringCanonicalizer} keeps sharing the repeated values of a large batch, the unique
+   * values of each record do not evict them.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testSqsEvent04() throws Exception {
+    // given
+    final int count = 5000;
+    Gson gson = LambdaRuntime.buildJsonProvider();
+    JsonObject json = gson.fromJson(loadContent("/SQSEvent/event01.json"), JsonObject.class);
+    JsonArray records = json.getAsJsonArray("Records");
+    JsonObject template = records.get(0).getAsJsonObject();
+
+    for (int i = 0; i < count; i++) {
+      JsonObject record = template.deepCopy();
+      record.addProperty("messageId", UUID.randomUUID().toString());
+      record.addProperty("md5OfBody", Integer.toHexString(i));
+      record.addProperty("body", "body " + i);
+      records.add(record);
+    }
+
+    // when
+    SQSEvent event =
+        (SQSEvent) LambdaRuntime.convertToObject(gson, json.toString(), SQSEvent.class);
+
+    // then
+    SQSMessage first = event.getRecords().get(0);
+    for (SQSMessage record : event.getRecords()) {
+      assertSame(first.getAwsRegion(), record.getAwsRegion());
+      assertSame(first.getEventSource(), record.getEventSource());
+      assertSame(first.getEventSourceArn(), record.getEventSourceArn());
+    }
+  }
+
+  /**
+   * Test the {@link SQSEvent} and {@link DynamodbEvent} adapters read the field name aliases of
+   * {@link AwsEventsFieldNamingStrategy}, and booleans as strings.
+   *
+   * @throws Exception Exception
+   */
+  @Test
+  public void testSqsEvent05() throws Exception {
+    // given
+    Gson gson = LambdaRuntime.buildJsonProvider();
+    String sqs =
+        "{\"RECORDS\":[{\"message-id\":\"m1\",\"BODY\":true,\"eventsourcearn\":\"arn\","
+            + "\"AwsRegion\":\"us-east-2\"}]}";
+    String dynamodb =
+        "{\"records\":[{\"EVENTID\":\"1\",\"event-source-a-r-n\":\"arn\","
+            + "\"Dynamodb\":{\"new-image\":{\"id\":{\"s\":\"a\"}}}}]}";
+
+    // when
+    SQSEvent event = (SQSEvent) LambdaRuntime.convertToObject(gson, sqs, SQSEvent.class);
+    DynamodbEvent stream =
+        (DynamodbEvent) LambdaRuntime.convertToObject(gson, dynamodb, DynamodbEvent.class);
+
+    // then
+    SQSMessage message = event.getRecords().get(0);
+    assertEquals("m1", message.getMessageId());
+    assertEquals("true", message.getBody());
+    assertEquals("arn", message.getEventSourceArn());
+    assertEquals("us-east-2", message.getAwsRegion());
+
+    DynamodbStreamRecord record = stream.getRecords().get(0);
+    assertEquals("1", record.getEventID());
+    assertEquals("arn", record.getEventSourceARN());
+    assertEquals("a", record.getDynamodb().getNewImage().get("id").getS());
+  }
+
   /**
    * Test invoke Lambda with {@link
    * com.amazonaws.services.lambda.runtime.events.IamPolicyResponseV1}.
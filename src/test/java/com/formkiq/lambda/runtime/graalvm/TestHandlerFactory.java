@@ -0,0 +1,26 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import java.util.Map;
+
+/** Test {@link HandlerFactory}. */
+public class TestHandlerFactory implements HandlerFactory {
+
+  @Override
+  public Object newInstance(final Class<?> handlerClass, final Map<String, String> env) {
+    return TestRequestFactoryHandler.class.equals(handlerClass)
+        ? new TestRequestFactoryHandler(env.getOrDefault("GREETING", "hello"))
+        : null;
+  }
+}
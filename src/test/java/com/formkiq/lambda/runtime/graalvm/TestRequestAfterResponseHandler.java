@@ -0,0 +1,47 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+
+/**
+ * Test {@link RequestHandler} registering {@link LambdaContext#afterResponse(Runnable)} tasks,
+ * input {@link String} return {@link String}.
+ */
+public class TestRequestAfterResponseHandler implements RequestHandler<String, String> {
+
+  /** Input seen by the last after response task. */
+  private static volatile String taskInput;
+
+  /**
+   * Get the input seen by the last after response task.
+   *
+   * @return {@link String}
+   */
+  public static String getTaskInput() {
+    return taskInput;
+  }
+
+  @Override
+  public String handleRequest(final String input, final Context context) {
+    taskInput = null;
+    LambdaContext lambdaContext = (LambdaContext) context;
+    lambdaContext.afterResponse(
+        () -> {
+          throw new IllegalStateException("after response failure");
+        });
+    lambdaContext.afterResponse(() -> taskInput = input);
+    return "after response " + input;
+  }
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import java.util.List;
+
+/** Test {@link DynamodbStreamHandler}. */
+public class TestRequestDynamodbStreamHandler
+    implements DynamodbStreamHandler<TestRequestDynamodbStreamHandler.Item, String> {
+
+  /** DynamoDB Item. */
+  public static class Item {
+    /** Id. */
+    private String id;
+
+    /** Quantity. */
+    private int quantity;
+
+    /** Tags. */
+    private List<String> tags;
+  }
+
+  @Override
+  public String handleRequest(final DynamodbStreamEvent<Item> event, final Context context) {
+    StringBuilder sb = new StringBuilder();
+    for (DynamodbImageRecord<Item> record : event.getRecords()) {
+      Item item = record.getNewImage();
+      sb.append(record.getEventName()).append(' ').append(record.getKeys().id);
+      sb.append(' ').append(item.quantity).append(' ').append(item.tags).append(';');
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,37 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+
+/** Test {@link RequestHandler} created by {@link TestHandlerFactory}. */
+public class TestRequestFactoryHandler implements RequestHandler<String, String> {
+
+  /** Greeting built by the {@link HandlerFactory}. */
+  private final String greeting;
+
+  /**
+   * constructor.
+   *
+   * @param greetingValue {@link String}
+   */
+  public TestRequestFactoryHandler(final String greetingValue) {
+    this.greeting = greetingValue;
+  }
+
+  @Override
+  public String handleRequest(final String input, final Context context) {
+    return this.greeting + " " + input;
+  }
+}
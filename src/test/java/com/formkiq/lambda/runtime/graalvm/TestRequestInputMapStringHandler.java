@@ -0,0 +1,33 @@
+/**
+ * Copyright [2020] FormKiQ Inc. Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You may obtain a copy of the License
+ * at
+ *
+ * <p>http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * <p>Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.formkiq.lambda.runtime.graalvm;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import java.util.Map;
+
+/** Test {@link RequestHandler}, input {@link Map} return {@link String}. */
+public class TestRequestInputMapStringHandler
+    implements RequestHandler<Map<String, Object>, String> {
+
+  @Override
+  public String handleRequest(final Map<String, Object> input, final Context context) {
+    StringBuilder sb = new StringBuilder(input.getClass().getSimpleName());
+    for (Map.Entry<String, Object> e : input.entrySet()) {
+      Object value = e.getValue();
+      sb.append(' ').append(e.getKey()).append('=').append(value);
+      sb.append(':').append(value != null ? value.getClass().getSimpleName() : null);
+    }
+    return sb.toString();
+  }
+}